@@ -0,0 +1,46 @@
+package com.example.evolon.config;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.evolon.dto.CardMasterImportResult;
+import com.example.evolon.service.CardMasterImportService;
+
+/**
+ * CLI からの card_master 一括取り込み
+ *
+ *   java -jar evolon.jar --spring.main.web-application-type=none \
+ *       --card-master.import=sets/sv8a.csv --card-master.import=sets/sv9.json
+ *
+ * 引数が無ければ何もしない（通常起動には影響しない）。
+ * web-application-type=none で起動すれば取り込み後にそのまま終了する。
+ */
+@Configuration
+public class CardMasterImportRunner {
+
+	@Bean
+	ApplicationRunner importCardMasters(CardMasterImportService importService) {
+		return args -> {
+
+			List<String> files = args.getOptionValues("card-master.import");
+			if (files == null || files.isEmpty()) {
+				return;
+			}
+
+			for (String file : files) {
+				CardMasterImportResult r = importService.importFile(Path.of(file));
+
+				System.out.println("✅ card_master 取り込み: " + r.getFileName()
+						+ " 読込=" + r.getRowsRead()
+						+ " 反映=" + r.getRowsWritten()
+						+ " スキップ=" + r.getRowsSkipped()
+						+ " " + r.getElapsedMillis() + "ms (" + r.getRowsPerSecond() + " 行/秒)");
+				r.getErrors().forEach(e -> System.out.println("⚠️ " + e));
+			}
+		};
+	}
+}
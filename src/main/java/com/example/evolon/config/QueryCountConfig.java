@@ -0,0 +1,46 @@
+package com.example.evolon.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.example.evolon.monitoring.QueryCountInspector;
+import com.example.evolon.monitoring.QueryCountInterceptor;
+import com.example.evolon.monitoring.QueryCountRecorder;
+import com.example.evolon.monitoring.QueryCountSessionListener;
+
+/**
+ * リクエスト単位の SQL 件数・JDBC 実行時間の計測（N+1 の検知用）
+ *
+ * Hibernate（StatementInspector / SessionEventListener）で数え、
+ * Controller のハンドラ単位で Micrometer と /actuator/querycount に出す。
+ */
+@Configuration
+public class QueryCountConfig implements WebMvcConfigurer {
+
+	private final QueryCountRecorder recorder;
+
+	public QueryCountConfig(QueryCountRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer queryCountHibernateCustomizer() {
+		return properties -> {
+			// 別の StatementInspector / SessionEventListener が設定済みなら包んで両方動かす
+			// （計測・元の処理のどちらも黙って止まらないように）
+			properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+					QueryCountInspector.wrapping(properties.get(AvailableSettings.STATEMENT_INSPECTOR)));
+			properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+					QueryCountSessionListener.wrapping(properties.get(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER)));
+		};
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new QueryCountInterceptor(recorder));
+	}
+}
@@ -26,11 +26,13 @@ public class SecurityConfig {
 								"/css/**",
 								"/js/**",
 								"/images/**",
+								"/media/**",
 								"/items/**")
 						.permitAll()
-						.requestMatchers("/api/ocr").permitAll() // ★ここ重要
 						.requestMatchers("/orders/stripe-webhook").permitAll()
+						.requestMatchers("/api/ocr/**").authenticated() // OCR（有料 API）はログイン・CSRF トークン必須
 						.requestMatchers("/admin/**").hasRole("ADMIN")
+						.requestMatchers("/actuator/querycount/**", "/actuator/metrics/**").hasRole("ADMIN")
 						.anyRequest().authenticated())
 				.formLogin(form -> form
 						.loginPage("/login")
@@ -42,7 +44,6 @@ public class SecurityConfig {
 						.permitAll())
 				.csrf(csrf -> csrf
 						.ignoringRequestMatchers("/orders/stripe-webhook")
-						.ignoringRequestMatchers("/api/ocr") // ★ここ重要
 				);
 
 		return http.build();
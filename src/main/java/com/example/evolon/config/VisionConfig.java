@@ -0,0 +1,40 @@
+package com.example.evolon.config;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import com.google.api.gax.grpc.ChannelPoolSettings;
+import com.google.cloud.vision.v1.ImageAnnotatorClient;
+import com.google.cloud.vision.v1.ImageAnnotatorSettings;
+
+/**
+ * Google Cloud Vision クライアント
+ *
+ * ImageAnnotatorClient は gRPC チャネル・認証・スレッドプールを抱える重いオブジェクトなので、
+ * アプリ全体で1つを使い回す（スレッドセーフ）。
+ * 同時に走る OCR が1本のコネクションに詰まらないよう、チャネルはプールにする。
+ *
+ * ★ 認証情報が無い開発環境でも起動できるよう、最初に OCR が呼ばれた時点で作る（@Lazy）
+ */
+@Configuration
+public class VisionConfig {
+
+	@Bean(destroyMethod = "close")
+	@Lazy
+	public ImageAnnotatorClient imageAnnotatorClient(
+			@Value("${evolon.ocr.vision.channel-pool-size:2}") int channelPoolSize) throws IOException {
+
+		ImageAnnotatorSettings settings = ImageAnnotatorSettings.newBuilder()
+				.setTransportChannelProvider(
+						ImageAnnotatorSettings.defaultGrpcTransportProviderBuilder()
+								.setChannelPoolSettings(ChannelPoolSettings.staticallySized(channelPoolSize))
+								.build())
+				.build();
+
+		return ImageAnnotatorClient.create(settings);
+	}
+}
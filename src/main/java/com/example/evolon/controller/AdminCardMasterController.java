@@ -0,0 +1,57 @@
+package com.example.evolon.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import com.example.evolon.service.CardMasterImportService;
+
+/**
+ * 管理者：カードマスタ（card_master）の一括取り込み
+ */
+@Controller
+@RequestMapping("/admin/card-master")
+public class AdminCardMasterController {
+
+	private final CardMasterImportService cardMasterImportService;
+
+	public AdminCardMasterController(CardMasterImportService cardMasterImportService) {
+		this.cardMasterImportService = cardMasterImportService;
+	}
+
+	/** 取り込み画面 */
+	@GetMapping
+	public String showImportForm() {
+		return "pages/admin/admin_card_master";
+	}
+
+	/** セットリスト（CSV / JSON）の取り込み */
+	@PostMapping("/import")
+	public String importSetList(
+			@RequestParam("file") MultipartFile file,
+			RedirectAttributes ra) {
+
+		if (file == null || file.isEmpty()) {
+			ra.addFlashAttribute("errorMessage", "ファイルを選択してください");
+			return "redirect:/admin/card-master";
+		}
+
+		try (InputStream in = file.getInputStream()) {
+			ra.addFlashAttribute("result",
+					cardMasterImportService.importStream(in, file.getOriginalFilename()));
+		} catch (IOException | DataAccessException e) {
+			// ファイル単位のトランザクションなので、失敗時は1行も反映されない
+			ra.addFlashAttribute("errorMessage", "取り込みに失敗しました: " + e.getMessage());
+		}
+
+		return "redirect:/admin/card-master";
+	}
+}
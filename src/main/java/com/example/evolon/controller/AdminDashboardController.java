@@ -29,7 +29,7 @@ public class AdminDashboardController {
 
 		// 最近の出品（例：最新5件）
 		model.addAttribute("recentItems",
-				itemService.getAllItems().stream().limit(5).toList());
+				itemService.getRecentItems());
 
 		// 最近の注文（Serviceにメソッドがあれば差し替え）
 		model.addAttribute("recentOrders",
@@ -6,12 +6,15 @@ import java.io.IOException;
 import java.math.BigDecimal;
 // 一覧描画などで使うコレクションの import
 import java.util.List;
+// JSON 応答（画像アップロード状態）用の Map の import
+import java.util.Map;
 // Optional で存在チェックを簡潔にするための import
 import java.util.Optional;
 
 // ページング機能を使うための import
 import org.springframework.data.domain.Page;
 // 認証ユーザ取得用アノテーションの import
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 // 認証ユーザの型の import
 import org.springframework.security.core.userdetails.UserDetails;
@@ -19,6 +22,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 // 画面へデータを渡すための Model の import
 import org.springframework.ui.Model;
+import org.springframework.util.MultiValueMap;
 // HTTP GET を扱うための import
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -45,9 +49,13 @@ import com.example.evolon.domain.enums.ShippingFeeBurden;
 import com.example.evolon.domain.enums.ShippingMethod;
 import com.example.evolon.domain.enums.ShippingRegion;
 import com.example.evolon.dto.CardAutoFillResponse;
+import com.example.evolon.dto.ItemCardView;
+import com.example.evolon.dto.ItemCursorSlice;
+import com.example.evolon.dto.ItemImageEdit;
 import com.example.evolon.dto.ParsedCardNumber;
 // カテゴリエンティティの import
 import com.example.evolon.entity.Category;
+import com.example.evolon.entity.ImageStatus;
 // 商品エンティティの import
 import com.example.evolon.entity.Item;
 import com.example.evolon.entity.ItemStatus;
@@ -75,6 +83,9 @@ import com.example.evolon.service.UserService;
 @RequestMapping("/items")
 public class ItemController {
 
+	// 編集フォームの画像差し替え欄の name（replaceImage_{item_image の id}）
+	private static final String REPLACE_IMAGE_PARAM = "replaceImage_";
+
 	// 商品サービスへの参照
 	private final ItemService itemService;
 	// カテゴリサービスへの参照
@@ -124,15 +135,26 @@ public class ItemController {
 			@RequestParam(value = "keyword", required = false) String keyword,
 			// カテゴリ ID（任意）
 			@RequestParam(value = "categoryId", required = false) Long categoryId,
-			// ページ番号（0 始まり、デフォルト 0）
+			// ページ番号（関連度順のときだけ使う。0 始まり、デフォルト 0）
 			@RequestParam(value = "page", defaultValue = "0") int page,
 			// 1 ページ件数（デフォルト 10）
 			@RequestParam(value = "size", defaultValue = "10") int size,
+			// 並び替え（未指定：キーワードありなら関連度順）
+			@RequestParam(value = "sort", required = false) String sort,
+			// キーセットページング用カーソル（未指定なら先頭ページ）
+			@RequestParam(value = "cursor", required = false) String cursor,
 			// 画面へデータを渡すモデル
 			Model model) {
 
-		// 条件に応じて商品を検索（SELLING + SOLD を表示する想定）
-		Page<Item> items = itemService.searchItems(keyword, categoryId, page, size);
+		// ★ 通常はキーセットページング（count なし・深いページでも一定速度）
+		//   関連度順だけはカーソルにできないので、ページ番号で先頭 MAX_OFFSET_PAGES ページまで
+		if (ItemService.isRelevanceOrder(keyword, sort)) {
+			Page<ItemCardView> items = itemService.searchItems(keyword, categoryId, sort, page, size);
+			addPageAttributes(model, items, "/items");
+		} else {
+			ItemCursorSlice slice = itemService.searchItemsByCursor(keyword, categoryId, sort, cursor, size);
+			addCursorAttributes(model, slice, "/items");
+		}
 
 		// カテゴリ一覧を取得
 		List<Category> categories = categoryService.getAllCategories();
@@ -142,8 +164,6 @@ public class ItemController {
 		model.addAttribute("regulations", Regulation.values());
 		model.addAttribute("conditions", CardCondition.values());
 
-		// 商品一覧をテンプレートへ渡す
-		model.addAttribute("items", items);
 		// カテゴリ一覧をテンプレートへ渡す
 		model.addAttribute("categories", categories);
 
@@ -177,12 +197,14 @@ public class ItemController {
 			@RequestParam(required = false) BigDecimal minPrice,
 			// 最高価格
 			@RequestParam(required = false) BigDecimal maxPrice,
-			// 並び替え（new / priceAsc / priceDesc）
+			// 並び替え（new / priceAsc / priceDesc / relevance）
 			@RequestParam(defaultValue = "new") String sort,
-			// ページ
+			// ページ（関連度順のときだけ使う）
 			@RequestParam(defaultValue = "0") int page,
 			// 1ページ件数
 			@RequestParam(defaultValue = "10") int size,
+			// キーセットページング用カーソル（未指定なら先頭ページ）
+			@RequestParam(required = false) String cursor,
 			Model model) {
 
 		// ===== enum 安全変換（空や不正値なら null 扱いにする）=====
@@ -193,14 +215,29 @@ public class ItemController {
 
 		// 検索
 		// statusEnum が null のときは「全て（= SELLING + SOLD）」扱いにするのは Service 側
-		Page<Item> items = itemService.searchByCardFilters(
+		// 関連度順だけページ番号（先頭 MAX_OFFSET_PAGES ページまで）、それ以外はキーセット
+		if (ItemService.isRelevanceOrder(cardName, sort)) {
+			Page<ItemCardView> items = itemService.searchByCardFilters(
+					cardName, rarityEnum, regEnum, condEnum,
+					packName, minPrice, maxPrice, sort,
+					statusEnum,
+					page, size);
+			addPageAttributes(model, items, "/items/search");
+		} else {
+			ItemCursorSlice slice = itemService.searchByCardFiltersByCursor(
+					cardName, rarityEnum, regEnum, condEnum,
+					packName, minPrice, maxPrice, sort,
+					statusEnum,
+					cursor, size);
+			addCursorAttributes(model, slice, "/items/search");
+		}
+
+		// ★ 選択肢ごとのヒット件数（GROUP BY 1クエリ）
+		model.addAttribute("facets", itemService.countFacets(
 				cardName, rarityEnum, regEnum, condEnum,
-				packName, minPrice, maxPrice, sort,
-				statusEnum,
-				page, size);
+				packName, minPrice, maxPrice, statusEnum));
 
 		// ★ item_list.html で enum/カテゴリを参照するので常に渡す
-		model.addAttribute("items", items);
 		model.addAttribute("rarities", Rarity.values());
 		model.addAttribute("regulations", Regulation.values());
 		model.addAttribute("conditions", CardCondition.values());
@@ -281,6 +318,17 @@ public class ItemController {
 		return "pages/items/item_form";
 	}
 
+	/* =========================================================
+	 * ★ 画像アップロードの状態 GET /items/{id}/image-status
+	 * 詳細画面が PENDING の間ポーリングする（{status, label}）
+	 * ========================================================= */
+	@GetMapping("/{id}/image-status")
+	@ResponseBody
+	public ResponseEntity<Map<String, String>> imageStatus(@PathVariable("id") Long id) {
+		return ResponseEntity.of(itemService.getImageStatus(id)
+				.map(status -> Map.of("status", status.name(), "label", status.getLabel())));
+	}
+
 	@GetMapping("/auto-fill")
 	@ResponseBody
 	public CardAutoFillResponse autoFill(@RequestParam String text) {
@@ -300,6 +348,24 @@ public class ItemController {
 				.orElse(null);
 	}
 
+	/* =========================================================
+	 * ★ カード名の入力候補 GET /items/card-suggest?name=...
+	 * 全角/半角・かな/カナの揺れを吸収して card_master を部分一致（最大20件）
+	 * 候補を選ぶとレアリティ・封入パック・レギュレーションも埋める
+	 * ========================================================= */
+	@GetMapping("/card-suggest")
+	@ResponseBody
+	public List<CardAutoFillResponse> cardSuggest(@RequestParam String name) {
+
+		return cardMasterService.searchByCardName(name).stream()
+				.map(cm -> new CardAutoFillResponse(
+						cm.getCardName(),
+						cm.getRarity(),
+						cm.getPackName(),
+						regulationService.resolve(cm.getPrintedRegulation())))
+				.toList();
+	}
+
 	/* =========================================================
 	 * 出品登録 POST /items
 	 * ========================================================= */
@@ -365,14 +431,21 @@ public class ItemController {
 			}
 		}
 
+		Item saved;
 		try {
-			itemService.saveItem(item, imageFiles);
-			redirectAttributes.addFlashAttribute("successMessage", "商品を出品しました！");
+			saved = itemService.saveItem(item, imageFiles);
 		} catch (IOException e) {
 			redirectAttributes.addFlashAttribute("errorMessage", "画像のアップロードに失敗しました: " + e.getMessage());
 			return "redirect:/items/new";
 		}
 
+		// ★ 画像はバックグラウンドでアップロード中 → 詳細画面で反映を待つ
+		if (saved.getImageStatus() == ImageStatus.PENDING) {
+			redirectAttributes.addFlashAttribute("successMessage", "商品を出品しました！画像は順次反映されます。");
+			return "redirect:/items/" + saved.getId();
+		}
+
+		redirectAttributes.addFlashAttribute("successMessage", "商品を出品しました！");
 		return "redirect:/items";
 	}
 
@@ -447,8 +520,13 @@ public class ItemController {
 			@RequestParam("price") BigDecimal price,
 			@RequestParam("categoryId") Long categoryId,
 
-			// 画像ファイル（任意）
+			// ★ 楽観ロック：フォームを表示した時点の Item#version
+			@RequestParam(value = "version", required = false) Long version,
+
+			// 画像（任意）：追加・外す画像の id・差し替え（replaceImage_{id}）
 			@RequestParam(value = "images", required = false) MultipartFile[] imageFiles,
+			@RequestParam(value = "removeImageIds", required = false) List<Long> removeImageIds,
+			@RequestParam MultiValueMap<String, MultipartFile> multipartFiles,
 
 			// 発送系（フォームにあるなら受け取って更新する）
 			@RequestParam("shippingDuration") ShippingDuration shippingDuration,
@@ -492,6 +570,9 @@ public class ItemController {
 		Category category = categoryService.getCategoryById(categoryId)
 				.orElseThrow(() -> new IllegalArgumentException("Category not found"));
 
+		// フォームを開いた後に更新されていれば（版が無い送信も）、保存時に ItemService が弾く
+		existingItem.setVersion(version);
+
 		// 基本情報更新
 		existingItem.setName(name);
 		existingItem.setDescription(description);
@@ -539,9 +620,31 @@ public class ItemController {
 			existingItem.getCardInfo().setItem(existingItem);
 		}
 
+		// ★ 画像は差分だけ渡す（触れていない画像はそのまま）
+		ItemImageEdit imageEdit = new ItemImageEdit();
+		if (imageFiles != null) {
+			imageEdit.setAdditions(imageFiles);
+		}
+		if (removeImageIds != null) {
+			imageEdit.getRemovals().addAll(removeImageIds);
+		}
+		multipartFiles.forEach((param, files) -> {
+			if (param.startsWith(REPLACE_IMAGE_PARAM) && !files.isEmpty() && !files.get(0).isEmpty()) {
+				try {
+					imageEdit.getReplacements().put(
+							Long.valueOf(param.substring(REPLACE_IMAGE_PARAM.length())), files.get(0));
+				} catch (NumberFormatException ignore) {
+					// 不正なパラメータ名は無視
+				}
+			}
+		});
+
 		try {
-			itemService.saveItem(existingItem, imageFiles);
-			redirectAttributes.addFlashAttribute("successMessage", "商品を更新しました！");
+			Item saved = itemService.updateItem(existingItem, imageEdit);
+			redirectAttributes.addFlashAttribute("successMessage",
+					saved.getImageStatus() == ImageStatus.PENDING
+							? "商品を更新しました！画像は順次反映されます。"
+							: "商品を更新しました！");
 		} catch (IOException e) {
 			redirectAttributes.addFlashAttribute("errorMessage", "画像のアップロードに失敗しました: " + e.getMessage());
 			return "redirect:/items/{id}/edit";
@@ -644,6 +747,25 @@ public class ItemController {
 		return "redirect:/items/{id}";
 	}
 
+	/**
+	 * キーセットページング時に item_list.html が参照する属性
+	 * （items は Slice なので totalPages 等は持たない）
+	 */
+	private void addCursorAttributes(Model model, ItemCursorSlice slice, String listPath) {
+		model.addAttribute("items", slice.getItems());
+		model.addAttribute("cursorMode", true);
+		model.addAttribute("listPath", listPath);
+		model.addAttribute("nextCursor", slice.getNextCursor());
+	}
+
+	// ページ番号のリンクは先頭 MAX_OFFSET_PAGES ページ分だけ
+	private void addPageAttributes(Model model, Page<ItemCardView> items, String listPath) {
+		model.addAttribute("items", items);
+		model.addAttribute("cursorMode", false);
+		model.addAttribute("listPath", listPath);
+		model.addAttribute("lastPage", Math.min(items.getTotalPages(), ItemService.MAX_OFFSET_PAGES) - 1);
+	}
+
 	private <E extends Enum<E>> E parseEnumSafely(String value, Class<E> enumClass) {
 		if (value == null || value.isBlank()) {
 			return null;
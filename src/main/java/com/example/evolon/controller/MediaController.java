@@ -0,0 +1,51 @@
+package com.example.evolon.controller;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.evolon.service.LocalImageStorage;
+
+/**
+ * ★ ローカル保存の商品画像の配信（evolon.images.storage=local のときだけ）
+ *
+ * - ファイル名は書き換えない UUID なので、名前をそのまま強い ETag にして
+ *   Cache-Control: public, max-age=evolon.images.local.max-age, immutable で返す
+ *   （If-None-Match が一致すれば 304：ResponseEntity の ETag で Spring が判定）
+ * - 本文は Resource のまま返す → Range 付きリクエストは Spring が ResourceRegion（206）で返す
+ */
+@RestController
+@ConditionalOnProperty(name = "evolon.images.storage", havingValue = "local")
+public class MediaController {
+
+	private final LocalImageStorage storage;
+	private final CacheControl cacheControl;
+
+	public MediaController(
+			LocalImageStorage storage,
+			@Value("${evolon.images.local.max-age:365d}") Duration maxAge) {
+		this.storage = storage;
+		this.cacheControl = CacheControl.maxAge(maxAge).cachePublic().immutable();
+	}
+
+	@GetMapping(LocalImageStorage.URL_PREFIX + "{shard}/{name}")
+	public ResponseEntity<Resource> image(@PathVariable String shard, @PathVariable String name) {
+
+		return storage.resolve(shard, name)
+				.map(path -> ResponseEntity.ok()
+						.eTag(name)
+						.cacheControl(cacheControl)
+						.contentType(MediaType.IMAGE_JPEG)
+						.<Resource> body(new FileSystemResource(path)))
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+}
@@ -1,58 +1,208 @@
 package com.example.evolon.controller;
 
 import java.io.IOException;
+import java.security.Principal;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.example.evolon.dto.DetectedCard;
+import com.example.evolon.dto.OcrJobStatus;
 import com.example.evolon.dto.ParsedCardNumber;
 import com.example.evolon.service.CardMasterService;
+import com.example.evolon.service.CardSheetService;
+import com.example.evolon.service.OcrJobService;
 import com.example.evolon.service.OcrService;
 
-import lombok.RequiredArgsConstructor;
-
 @RestController
 @RequestMapping("/api/ocr")
-@RequiredArgsConstructor
 public class OcrController {
 
 	private final OcrService ocrService;
 	private final CardMasterService cardMasterService;
+	private final OcrJobService ocrJobService;
+	private final CardSheetService cardSheetService;
+
+	// 1リクエストで受け付ける画像の上限
+	private final int maxBatchImages;
+
+	public OcrController(
+			OcrService ocrService,
+			CardMasterService cardMasterService,
+			OcrJobService ocrJobService,
+			CardSheetService cardSheetService,
+			@Value("${evolon.ocr.batch.max-images:64}") int maxBatchImages) {
+		this.ocrService = ocrService;
+		this.cardMasterService = cardMasterService;
+		this.ocrJobService = ocrJobService;
+		this.cardSheetService = cardSheetService;
+		this.maxBatchImages = maxBatchImages;
+	}
 
 	@PostMapping
 	public ResponseEntity<?> ocr(@RequestParam("image") MultipartFile image)
 			throws IOException {
 
-		ParsedCardNumber parsed = ocrService.extractCardNumberOnly(image);
+		try {
+			ParsedCardNumber parsed = ocrJobService.runBounded(() -> ocrService.extractCardNumberOnly(image));
+			return ResponseEntity.ok(toBody(parsed));
 
-		if (!parsed.isValid()) {
+		} catch (RejectedExecutionException ex) {
+			return busy();
+		}
+	}
+
+	/**
+	 * ★ 非同期OCR：受付だけしてジョブIDを返す（202）
+	 *
+	 * 結果は GET /api/ocr/jobs/{id}（ポーリング）か /api/ocr/jobs/{id}/events（SSE）で受け取る。
+	 * 待ち行列が満杯なら 503 + Retry-After
+	 */
+	@PostMapping("/jobs")
+	public ResponseEntity<?> submitJob(
+			@RequestParam("image") MultipartFile image,
+			Principal principal) throws IOException {
+
+		try {
+			OcrJobStatus status = ocrJobService.submit(principal.getName(), image);
+			return ResponseEntity.accepted().body(status);
+
+		} catch (RejectedExecutionException ex) {
+			return busy();
+		}
+	}
+
+	@GetMapping("/jobs/{jobId}")
+	public ResponseEntity<OcrJobStatus> jobStatus(@PathVariable String jobId, Principal principal) {
+		return ResponseEntity.of(ocrJobService.status(principal.getName(), jobId));
+	}
+
+	@GetMapping(path = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> jobEvents(@PathVariable String jobId, Principal principal) {
+		return ResponseEntity.of(ocrJobService.subscribe(principal.getName(), jobId));
+	}
+
+	/**
+	 * ★ 複数画像の一括OCR
+	 *
+	 * 結果はアップロード順に images[i] ごと（index / fileName / parsed / card / message）
+	 * 同時実行数は OcrJobService#runBounded で抑える（空きが無ければ 503 + Retry-After）
+	 */
+	@PostMapping("/batch")
+	public ResponseEntity<?> ocrBatch(@RequestParam("images") List<MultipartFile> images) throws IOException {
+
+		if (images.isEmpty() || images.size() > maxBatchImages) {
 			Map<String, Object> body = new HashMap<>();
+			body.put("message", "画像は1〜" + maxBatchImages + "枚で指定してください");
+			return ResponseEntity.badRequest().body(body);
+		}
+
+		List<ParsedCardNumber> parsedList;
+		try {
+			parsedList = ocrJobService.runBounded(() -> ocrService.extractCardNumbers(images));
+		} catch (RejectedExecutionException ex) {
+			return busy();
+		}
+
+		List<Map<String, Object>> results = new ArrayList<>(images.size());
+		for (int i = 0; i < images.size(); i++) {
+			Map<String, Object> body = toBody(parsedList.get(i));
+			body.put("index", i);
+			body.put("fileName", images.get(i).getOriginalFilename());
+			results.add(body);
+		}
+
+		Map<String, Object> body = new HashMap<>();
+		body.put("results", results);
+		return ResponseEntity.ok(body);
+	}
+
+	/**
+	 * ★ バインダー写真（1枚に複数カード）のOCR
+	 *
+	 * カードを検出して番号帯をまとめて読む。結果は左上から行順に
+	 * カードごと（row / col / x / y / width / height / parsed / card / message）
+	 * 同時実行数は OcrJobService#runBounded で抑える（空きが無ければ 503 + Retry-After）
+	 */
+	@PostMapping("/sheet")
+	public ResponseEntity<?> ocrSheet(@RequestParam("image") MultipartFile image) throws IOException {
+
+		List<DetectedCard> detected;
+		try {
+			detected = ocrJobService.runBounded(() -> cardSheetService.extract(image));
+		} catch (RejectedExecutionException ex) {
+			return busy();
+		}
+
+		List<Map<String, Object>> cards = new ArrayList<>(detected.size());
+		for (DetectedCard d : detected) {
+			Map<String, Object> body = toBody(d.getParsed());
+			body.put("row", d.getRow());
+			body.put("col", d.getCol());
+			body.put("x", d.getX());
+			body.put("y", d.getY());
+			body.put("width", d.getWidth());
+			body.put("height", d.getHeight());
+			cards.add(body);
+		}
+
+		Map<String, Object> body = new HashMap<>();
+		body.put("cards", cards);
+		return ResponseEntity.ok(body);
+	}
+
+	/* =========================
+	 * OCR が混んでいる：503 + Retry-After
+	 * ========================= */
+	private ResponseEntity<?> busy() {
+
+		Map<String, Object> body = new HashMap<>();
+		body.put("message", "OCRが混み合っています。しばらくしてから再度お試しください");
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "5")
+				.body(body);
+	}
+
+	/* =========================
+	 * OCR結果 → レスポンス（parsed / card / message）
+	 * ========================= */
+	private Map<String, Object> toBody(ParsedCardNumber parsed) {
+
+		Map<String, Object> body = new HashMap<>();
+
+		if (!parsed.isValid()) {
 			body.put("parsed", null);
 			body.put("card", null);
 			body.put("message", "カード番号を検出できませんでした");
-			return ResponseEntity.ok(body);
-		}
-
-		return cardMasterService.findByParsedNumber(parsed)
-				.map(card -> {
-					Map<String, Object> body = new HashMap<>();
-					body.put("parsed", parsed);
-					body.put("card", card);
-					return ResponseEntity.ok(body);
-				})
-				.orElseGet(() -> {
-					Map<String, Object> body = new HashMap<>();
-					body.put("parsed", parsed);
-					body.put("card", null);
-					body.put("message", "カードマスタ未登録");
-					return ResponseEntity.ok(body);
-				});
+			return body;
+		}
+
+		body.put("parsed", parsed);
+		cardMasterService.findByOcrNumber(parsed)
+				.ifPresentOrElse(
+						card -> body.put("card", card),
+						() -> {
+							body.put("card", null);
+							body.put("candidates", cardMasterService.findCandidates(parsed, 5));
+							body.put("message", "カードマスタ未登録");
+						});
+		return body;
 	}
 
 }
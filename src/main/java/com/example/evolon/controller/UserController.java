@@ -63,9 +63,9 @@ public class UserController {
 		model.addAttribute("orders",
 				appOrderService.findPurchasedOrdersByBuyer(user));
 
-		// 出品中プレビュー用
+		// 出品中プレビュー用（一覧用の軽量ビュー）
 		model.addAttribute("items",
-				itemService.getItemsBySeller(user));
+				itemService.getItemCardsBySeller(user));
 
 		// ✅ 公開対象だけの評価サマリ（2者評価が揃った分だけ）
 		model.addAttribute("reviewStats",
@@ -169,9 +169,10 @@ public class UserController {
 
 		User user = getLoginUser(userDetails);
 
+		// ★ seller_items.html は sellingItems を参照する
 		model.addAttribute(
-				"items",
-				itemService.getItemsBySeller(user));
+				"sellingItems",
+				itemService.getItemCardsBySeller(user));
 
 		return "seller_items";
 	}
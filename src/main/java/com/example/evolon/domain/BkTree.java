@@ -0,0 +1,119 @@
+package com.example.evolon.domain;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * BK-tree（距離が maxDistance 以内のキーを探す木）
+ *
+ * 子ノードを親との距離で分けておき、検索時は三角不等式で
+ * |d(q, node) - d(node, child)| > maxDistance の枝を丸ごと飛ばす。
+ * 距離関数は距離の公理（特に三角不等式）を満たすこと（OcrEditDistance など）。
+ *
+ * 構築後は読み取り専用（複数スレッドから検索してよい）
+ */
+public final class BkTree<T> {
+
+	private final ToIntBiFunction<String, String> metric;
+	private Node<T> root;
+	private int size;
+
+	public BkTree(ToIntBiFunction<String, String> metric) {
+		this.metric = metric;
+	}
+
+	public void add(String key, T value) {
+
+		size++;
+		if (root == null) {
+			root = new Node<>(key, value);
+			return;
+		}
+
+		Node<T> node = root;
+		while (true) {
+			int d = metric.applyAsInt(key, node.key);
+			if (d == 0) {
+				node.values.add(value);
+				return;
+			}
+			Node<T> child = node.child(d);
+			if (child == null) {
+				node.setChild(d, new Node<>(key, value));
+				return;
+			}
+			node = child;
+		}
+	}
+
+	/**
+	 * 距離 maxDistance 以内の値（順不同）
+	 */
+	public List<Match<T>> search(String query, int maxDistance) {
+
+		List<Match<T>> matches = new ArrayList<>();
+		if (root == null) {
+			return matches;
+		}
+
+		Deque<Node<T>> stack = new ArrayDeque<>();
+		stack.push(root);
+
+		while (!stack.isEmpty()) {
+			Node<T> node = stack.pop();
+			int d = metric.applyAsInt(query, node.key);
+
+			if (d <= maxDistance) {
+				for (T value : node.values) {
+					matches.add(new Match<>(node.key, value, d));
+				}
+			}
+
+			int from = Math.max(1, d - maxDistance);
+			int to = Math.min(node.children.length - 1, d + maxDistance);
+			for (int i = from; i <= to; i++) {
+				if (node.children[i] != null) {
+					stack.push(node.children[i]);
+				}
+			}
+		}
+		return matches;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public record Match<T>(String key, T value, int distance) {
+	}
+
+	private static final class Node<T> {
+
+		final String key;
+		final List<T> values = new ArrayList<>(1);
+
+		// children[d] = 自分との距離が d の子
+		@SuppressWarnings("unchecked")
+		Node<T>[] children = new Node[0];
+
+		Node(String key, T value) {
+			this.key = key;
+			this.values.add(value);
+		}
+
+		Node<T> child(int d) {
+			return d < children.length ? children[d] : null;
+		}
+
+		void setChild(int d, Node<T> child) {
+			if (d >= children.length) {
+				children = Arrays.copyOf(children, d + 1);
+			}
+			children[d] = child;
+		}
+	}
+}
@@ -0,0 +1,244 @@
+package com.example.evolon.domain;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * バインダー1ページの写真から、カード1枚ずつの矩形を見つける（外部サービスは使わない）
+ *
+ * バインダーのポケット同士の隙間（ガター）はカードの絵柄に比べてほぼ無地なので、
+ * 縮小したグレー画像で「列ごと / 行ごとの輝度変化量（投影プロファイル）」を取り、
+ * 変化の少ない帯をガターとみなして格子状に区切る。
+ *
+ * ① 長辺 DETECT_SIZE 程度に間引いてグレー化
+ * ② 列ごとの横方向の差分・行ごとの縦方向の差分の平均
+ * ③ 中央値の LOW_RATIO 倍未満が続く帯 = ガター（端に接する帯は余白として削る）
+ * ④ ガターの間 = カードの列 / 行。列数・行数・縦横比がカードらしくなければ
+ *    指定の行数 × 列数で均等割り（fallback）
+ *
+ * 1×1 しか見つからないときも fallback（このモードはバインダー写真前提なので）
+ */
+public final class CardGridDetector {
+
+	// 検出用に縮小するときの長辺
+	static final int DETECT_SIZE = 640;
+
+	// ガター判定：変化量がプロファイル中央値のこの倍率未満
+	static final double LOW_RATIO = 0.35;
+
+	// ガターとみなす帯の最小幅（辺の長さに対する割合）
+	static final double MIN_GAP = 0.008;
+
+	// 1ページに並ぶカードの行数・列数の上限
+	static final int MAX_CELLS_PER_AXIS = 4;
+
+	// カード1枚分の縦横比（幅 / 高さ、63mm × 88mm ≒ 0.72）として許す範囲。斜めからの写真も考えて広めに取る
+	static final double MIN_ASPECT = 0.45;
+	static final double MAX_ASPECT = 1.1;
+
+	/**
+	 * 1枚分の矩形（元画像の座標）と格子上の位置（0 始まり）
+	 */
+	public record Cell(int row, int col, Rectangle bounds) {
+	}
+
+	/**
+	 * 検出結果（detected = false なら均等割り）
+	 */
+	public record Result(int rows, int cols, List<Cell> cells, boolean detected) {
+	}
+
+	public static Result detect(BufferedImage photo, int fallbackRows, int fallbackCols) {
+
+		int w = photo.getWidth();
+		int h = photo.getHeight();
+		int step = Math.max(1, (Math.max(w, h) + DETECT_SIZE - 1) / DETECT_SIZE);
+
+		int sw = w / step;
+		int sh = h / step;
+		if (sw < 2 || sh < 2) {
+			return uniform(w, h, fallbackRows, fallbackCols);
+		}
+
+		int[] luma = sample(photo, step, sw, sh);
+
+		int[][] colSpans = spans(columnProfile(luma, sw, sh));
+		int[][] rowSpans = spans(rowProfile(luma, sw, sh));
+
+		if (!plausible(colSpans, rowSpans)) {
+			return uniform(w, h, fallbackRows, fallbackCols);
+		}
+
+		List<Cell> cells = new ArrayList<>(rowSpans.length * colSpans.length);
+		for (int r = 0; r < rowSpans.length; r++) {
+			for (int c = 0; c < colSpans.length; c++) {
+				int x0 = colSpans[c][0] * step;
+				int y0 = rowSpans[r][0] * step;
+				int x1 = Math.min(w, colSpans[c][1] * step);
+				int y1 = Math.min(h, rowSpans[r][1] * step);
+				cells.add(new Cell(r, c, new Rectangle(x0, y0, x1 - x0, y1 - y0)));
+			}
+		}
+		return new Result(rowSpans.length, colSpans.length, cells, true);
+	}
+
+	/* =========================
+	 * 均等割り（検出できなかったとき）
+	 * ========================= */
+	static Result uniform(int w, int h, int rows, int cols) {
+
+		int r = Math.max(1, rows);
+		int c = Math.max(1, cols);
+
+		List<Cell> cells = new ArrayList<>(r * c);
+		for (int i = 0; i < r; i++) {
+			for (int j = 0; j < c; j++) {
+				int x0 = w * j / c;
+				int y0 = h * i / r;
+				cells.add(new Cell(i, j, new Rectangle(x0, y0, w * (j + 1) / c - x0, h * (i + 1) / r - y0)));
+			}
+		}
+		return new Result(r, c, cells, false);
+	}
+
+	/* =========================
+	 * ① step 画素おきのグレー値（0〜255）
+	 * ========================= */
+	private static int[] sample(BufferedImage photo, int step, int sw, int sh) {
+
+		int[] luma = new int[sw * sh];
+		int[] row = new int[sw * step];
+
+		for (int y = 0; y < sh; y++) {
+			photo.getRGB(0, y * step, sw * step, 1, row, 0, row.length);
+			int o = y * sw;
+			for (int x = 0; x < sw; x++) {
+				int argb = row[x * step];
+				luma[o + x] = (77 * ((argb >> 16) & 0xff) + 150 * ((argb >> 8) & 0xff) + 29 * (argb & 0xff)) >> 8;
+			}
+		}
+		return luma;
+	}
+
+	/* =========================
+	 * ② 投影プロファイル
+	 * ========================= */
+	private static double[] columnProfile(int[] luma, int sw, int sh) {
+
+		double[] profile = new double[sw];
+		for (int y = 0; y < sh; y++) {
+			int o = y * sw;
+			for (int x = 0; x < sw - 1; x++) {
+				profile[x] += Math.abs(luma[o + x + 1] - luma[o + x]);
+			}
+		}
+		profile[sw - 1] = profile[sw - 2];
+		return smooth(profile, sh);
+	}
+
+	private static double[] rowProfile(int[] luma, int sw, int sh) {
+
+		double[] profile = new double[sh];
+		for (int y = 0; y < sh - 1; y++) {
+			int o = y * sw;
+			double sum = 0;
+			for (int x = 0; x < sw; x++) {
+				sum += Math.abs(luma[o + sw + x] - luma[o + x]);
+			}
+			profile[y] = sum;
+		}
+		profile[sh - 1] = profile[sh - 2];
+		return smooth(profile, sw);
+	}
+
+	// 平均化 + 幅3の移動平均（1画素だけのノイズでガターが途切れないように）
+	private static double[] smooth(double[] profile, int samples) {
+
+		double[] out = new double[profile.length];
+		for (int i = 0; i < profile.length; i++) {
+			double sum = 0;
+			int n = 0;
+			for (int k = Math.max(0, i - 1); k <= Math.min(profile.length - 1, i + 1); k++) {
+				sum += profile[k];
+				n++;
+			}
+			out[i] = sum / n / samples;
+		}
+		return out;
+	}
+
+	/* =========================
+	 * ③ ガター以外の区間 [start, end)
+	 * ========================= */
+	static int[][] spans(double[] profile) {
+
+		int n = profile.length;
+		double[] sorted = profile.clone();
+		Arrays.sort(sorted);
+		double threshold = sorted[n / 2] * LOW_RATIO;
+		int minGap = Math.max(2, (int) Math.ceil(n * MIN_GAP));
+
+		List<int[]> spans = new ArrayList<>();
+		int start = -1;
+		int lowRun = 0;
+
+		for (int i = 0; i <= n; i++) {
+			boolean low = i == n || profile[i] < threshold;
+
+			if (!low) {
+				if (start < 0) {
+					start = i;
+				}
+				lowRun = 0;
+				continue;
+			}
+
+			lowRun++;
+			// 端（i == n）か、十分な幅の無地帯に入ったら区間を閉じる
+			if (start >= 0 && (i == n || lowRun >= minGap)) {
+				int end = i == n ? n - lowRun + 1 : i - lowRun + 1;
+				spans.add(new int[] { start, end });
+				start = -1;
+			}
+		}
+
+		// 細すぎる区間（カードの中の細い無地帯で割れた破片など）は捨てる
+		int[] lengths = spans.stream().mapToInt(s -> s[1] - s[0]).sorted().toArray();
+		if (lengths.length == 0) {
+			return new int[0][];
+		}
+		int longest = lengths[lengths.length - 1];
+		return spans.stream()
+				.filter(s -> s[1] - s[0] >= longest / 2)
+				.toArray(int[][]::new);
+	}
+
+	/* =========================
+	 * ④ カードの格子らしいか
+	 * ========================= */
+	private static boolean plausible(int[][] colSpans, int[][] rowSpans) {
+
+		int cols = colSpans.length;
+		int rows = rowSpans.length;
+
+		if (cols == 0 || rows == 0 || cols > MAX_CELLS_PER_AXIS || rows > MAX_CELLS_PER_AXIS) {
+			return false;
+		}
+		if (cols == 1 && rows == 1) {
+			return false;
+		}
+
+		double width = Arrays.stream(colSpans).mapToInt(s -> s[1] - s[0]).average().orElse(0);
+		double height = Arrays.stream(rowSpans).mapToInt(s -> s[1] - s[0]).average().orElse(0);
+		double aspect = width / height;
+
+		return aspect >= MIN_ASPECT && aspect <= MAX_ASPECT;
+	}
+
+	// インスタンス化させない（ユーティリティクラス）
+	private CardGridDetector() {
+	}
+}
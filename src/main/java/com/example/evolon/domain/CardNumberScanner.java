@@ -0,0 +1,303 @@
+package com.example.evolon.domain;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import com.example.evolon.dto.ParsedCardNumber;
+
+/**
+ * テキスト（OCR 結果・手入力）からセットコードとカード番号を取り出すスキャナ
+ *
+ * 例: "H sv8a 212/187 SAR" → setCode=sv8a, cardNumber=212/187
+ *     "Ｍ１Ｌ　０８１／０６３" → setCode=m1l, cardNumber=081/063
+ *
+ * 正規表現・replaceAll を使わず、文字列を先頭から1回だけ走査する（結果の文字列以外はアロケーションしない）。
+ * 全角英数記号は半角、英字は小文字として比較する。
+ *
+ * セットコードの文法（コンストラクタで変更可）
+ *   単語の先頭が「接頭辞（sv, m …）＋ 数字 ＋ 英数字」で、全体が maxSetCodeLength 文字以内
+ *   直前にレギュレーションマーク（H 等）が空白なしで付いていても読み飛ばす（"Hsv8a"）
+ *   OCR が接頭辞の先頭1文字を落とした場合は補う（"v8a" → sv8a。2文字以上の接頭辞のみ）
+ *   直後にカード番号が空白なしで続いていれば、そこで切る（手入力の "sv8a212/187" → sv8a, 212/187）
+ *
+ * カード番号
+ *   数字1〜3桁 / 数字1〜3桁（スラッシュ前後の空白は無視）
+ *   数字と見間違えやすい英字（l/I → 1、O → 0、S → 5 …：OcrEditDistance）は数字として読む（"2l2/187" → 212/187）
+ *   ただし先頭は本物の数字、後ろ側にも本物の数字が1つ以上あること
+ *   セットコードの後ろ NUMBER_WINDOW 文字以内の最初のもの。無ければセットコードより前の最初のもの
+ *
+ * どちらかが見つからなければ、その項目は null（isValid() == false）
+ */
+public final class CardNumberScanner {
+
+	/** 既定の文法：sv / m、6文字以内、レギュレーションマーク D〜K */
+	public static final CardNumberScanner DEFAULT = new CardNumberScanner(List.of("sv", "m"), 6, "DEFGHIJK");
+
+	// セットコードの後ろ何文字までカード番号を探すか
+	static final int NUMBER_WINDOW = 200;
+
+	// 長い接頭辞から試す（"sv" と "s" が両方ある場合など）
+	private final char[][] prefixes;
+	private final int maxSetCodeLength;
+	private final String regulationMarks;
+
+	public CardNumberScanner(List<String> setCodePrefixes, int maxSetCodeLength, String regulationMarks) {
+
+		List<char[]> list = new ArrayList<>();
+		for (String prefix : setCodePrefixes) {
+			String p = prefix.trim().toLowerCase(Locale.ROOT);
+			if (!p.isEmpty()) {
+				list.add(p.toCharArray());
+			}
+		}
+		list.sort(Comparator.comparingInt((char[] p) -> p.length).reversed());
+
+		this.prefixes = list.toArray(char[][]::new);
+		this.maxSetCodeLength = maxSetCodeLength;
+		this.regulationMarks = regulationMarks.toLowerCase(Locale.ROOT);
+	}
+
+	public ParsedCardNumber scan(CharSequence text) {
+
+		if (text == null) {
+			return ParsedCardNumber.invalid();
+		}
+
+		int length = text.length();
+
+		String setCode = null;
+		int setCodeEnd = -1;
+		String numberBefore = null;
+
+		char prev = ' ';
+		for (int i = 0; i < length; i++) {
+			char c = fold(text.charAt(i));
+
+			if (setCode != null && i - setCodeEnd > NUMBER_WINDOW) {
+				break;
+			}
+
+			// ---- カード番号（直前が数字・スラッシュでない数字から）----
+			if (isDigit(c) && !isDigit(prev) && prev != '/') {
+				int end = matchNumber(text, i);
+				if (end > 0) {
+					String number = buildNumber(text, i, end);
+					if (setCode != null) {
+						return new ParsedCardNumber(setCode, number);
+					}
+					if (numberBefore == null) {
+						numberBefore = number;
+					}
+					prev = fold(text.charAt(end - 1));
+					i = end - 1;
+					continue;
+				}
+			}
+
+			// ---- セットコード（単語の先頭から）----
+			if (setCode == null && isLetter(c) && !isAlnum(prev)) {
+				int start = i;
+				int end = matchSetCode(text, start);
+				if (end < 0 && regulationMarks.indexOf(c) >= 0 && i + 1 < length) {
+					start = i + 1;
+					end = matchSetCode(text, start);
+				}
+				if (end > 0) {
+					setCode = buildSetCode(text, start, end, null);
+				} else {
+					// 接頭辞の先頭1文字が欠けている（"v8a"）
+					char[] prefix = droppedPrefix(text, i);
+					if (prefix != null) {
+						start = i;
+						end = matchSetCode(text, start, prefix, 1);
+						setCode = buildSetCode(text, start, end, prefix);
+					}
+				}
+				if (setCode != null) {
+					setCodeEnd = end;
+					prev = fold(text.charAt(end - 1));
+					i = end - 1;
+					continue;
+				}
+			}
+
+			prev = c;
+		}
+
+		return new ParsedCardNumber(setCode, numberBefore);
+	}
+
+	/* =========================
+	 * セットコード：接頭辞 + 数字 + 英数字（単語の終わりまで）
+	 * 一致すれば終わりの位置、しなければ -1
+	 * ========================= */
+	private int matchSetCode(CharSequence text, int start) {
+
+		for (char[] prefix : prefixes) {
+			int end = matchSetCode(text, start, prefix, 0);
+			if (end > 0) {
+				return end;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 先頭 dropped 文字が欠けた prefix で始まるセットコード（長さは補った後で数える）
+	 */
+	private int matchSetCode(CharSequence text, int start, char[] prefix, int dropped) {
+
+		int length = text.length();
+
+		int p = start;
+		int k = dropped;
+		while (k < prefix.length && p < length && fold(text.charAt(p)) == prefix[k]) {
+			p++;
+			k++;
+		}
+		if (k < prefix.length || p >= length || !isDigit(fold(text.charAt(p)))) {
+			return -1;
+		}
+
+		while (p < length && isAlnum(fold(text.charAt(p)))) {
+			// 英字の直後からカード番号が始まる（"sv8a212/187"）：そこまで
+			if (isDigit(fold(text.charAt(p))) && isLetter(fold(text.charAt(p - 1))) && matchNumber(text, p) > 0) {
+				break;
+			}
+			p++;
+		}
+		return (p - start + dropped <= maxSetCodeLength) ? p : -1;
+	}
+
+	/**
+	 * 先頭1文字を落とせば一致する接頭辞（2文字以上のもの）。無ければ null
+	 */
+	private char[] droppedPrefix(CharSequence text, int start) {
+
+		for (char[] prefix : prefixes) {
+			if (prefix.length >= 2 && matchSetCode(text, start, prefix, 1) > 0) {
+				return prefix;
+			}
+		}
+		return null;
+	}
+
+	/* =========================
+	 * カード番号：\d{1,3} \s* / \s* \d{1,3}（後ろに数字が続かない）
+	 * 一致すれば終わりの位置、しなければ -1
+	 * ========================= */
+	private static int matchNumber(CharSequence text, int start) {
+
+		int length = text.length();
+
+		int p = skipDigits(text, start, Integer.MAX_VALUE);
+		if (p - start > 3) {
+			return -1;
+		}
+
+		p = skipSpaces(text, p);
+		if (p >= length || fold(text.charAt(p)) != '/') {
+			return -1;
+		}
+		p = skipSpaces(text, p + 1);
+
+		int digitsStart = p;
+		p = skipDigits(text, p, 3);
+		if (p < length && isDigit(fold(text.charAt(p)))) {
+			return -1;
+		}
+
+		// "187SAR" の S のように、後ろの単語にくっついた見間違い候補は番号に含めない
+		if (p < length && isLetter(fold(text.charAt(p)))) {
+			while (p > digitsStart && !isDigit(fold(text.charAt(p - 1)))) {
+				p--;
+			}
+		}
+
+		boolean hasDigit = false;
+		for (int i = digitsStart; i < p; i++) {
+			hasDigit |= isDigit(fold(text.charAt(i)));
+		}
+		return hasDigit ? p : -1;
+	}
+
+	/**
+	 * droppedPrefix が null でなければ、欠けていた先頭1文字を補う
+	 */
+	private static String buildSetCode(CharSequence text, int start, int end, char[] droppedPrefix) {
+		int offset = (droppedPrefix == null) ? 0 : 1;
+		char[] chars = new char[end - start + offset];
+		if (offset == 1) {
+			chars[0] = droppedPrefix[0];
+		}
+		for (int i = start; i < end; i++) {
+			chars[i - start + offset] = fold(text.charAt(i));
+		}
+		return new String(chars);
+	}
+
+	private static String buildNumber(CharSequence text, int start, int end) {
+		StringBuilder sb = new StringBuilder(7);
+		for (int i = start; i < end; i++) {
+			char c = fold(text.charAt(i));
+			if (isDigit(c) || c == '/') {
+				sb.append(c);
+			} else if (c != ' ') {
+				sb.append(OcrEditDistance.confusableDigit(c));
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * 数字（と見間違えやすい英字）を最大 max 文字読み飛ばす
+	 */
+	private static int skipDigits(CharSequence text, int p, int max) {
+		int start = p;
+		while (p < text.length() && p - start < max && isDigitLike(fold(text.charAt(p)))) {
+			p++;
+		}
+		return p;
+	}
+
+	private static int skipSpaces(CharSequence text, int p) {
+		while (p < text.length() && fold(text.charAt(p)) == ' ') {
+			p++;
+		}
+		return p;
+	}
+
+	/**
+	 * 全角英数記号 → 半角、英大文字 → 小文字、空白類 → ' '
+	 */
+	private static char fold(char c) {
+		if (c >= '！' && c <= '～') {
+			c = (char) (c - 0xFEE0);
+		}
+		if (c >= 'A' && c <= 'Z') {
+			return (char) (c + ('a' - 'A'));
+		}
+		if (c == '　' || c == '\t' || c == '\n' || c == '\r') {
+			return ' ';
+		}
+		return c;
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isDigitLike(char c) {
+		return isDigit(c) || OcrEditDistance.confusableDigit(c) != 0;
+	}
+
+	private static boolean isLetter(char c) {
+		return c >= 'a' && c <= 'z';
+	}
+
+	private static boolean isAlnum(char c) {
+		return isDigit(c) || isLetter(c);
+	}
+}
@@ -0,0 +1,100 @@
+package com.example.evolon.domain;
+
+/**
+ * OCR の読み間違いを考慮した編集距離
+ *
+ * - 見た目が似ている文字どうし（l/1, O/0, S/5 …）の置換：1
+ * - それ以外の置換・挿入・削除：2
+ *
+ * 全コストが 1〜2 なので三角不等式が成り立ち、BkTree の距離として使える。
+ * 比較は英字の大文字小文字を区別しない。
+ */
+public final class OcrEditDistance {
+
+	public static final int CONFUSION_COST = 1;
+	public static final int EDIT_COST = 2;
+
+	// 見た目が似ている文字 → 同じグループ番号（0 = グループなし）
+	private static final byte[] GROUP = new byte[128];
+
+	static {
+		group(1, "1li|");
+		group(2, "0o");
+		group(3, "5s");
+		group(4, "8b");
+		group(5, "2z");
+		group(6, "9g");
+	}
+
+	public static int distance(CharSequence a, CharSequence b) {
+
+		int n = a.length();
+		int m = b.length();
+
+		int[] prev = new int[m + 1];
+		int[] curr = new int[m + 1];
+		for (int j = 0; j <= m; j++) {
+			prev[j] = j * EDIT_COST;
+		}
+
+		for (int i = 1; i <= n; i++) {
+			curr[0] = i * EDIT_COST;
+			char ca = lower(a.charAt(i - 1));
+
+			for (int j = 1; j <= m; j++) {
+				int sub = prev[j - 1] + substitutionCost(ca, lower(b.charAt(j - 1)));
+				int del = prev[j] + EDIT_COST;
+				int ins = curr[j - 1] + EDIT_COST;
+				curr[j] = Math.min(sub, Math.min(del, ins));
+			}
+
+			int[] t = prev;
+			prev = curr;
+			curr = t;
+		}
+		return prev[m];
+	}
+
+	/**
+	 * 数字と見間違えやすい英字 → 数字（それ以外は 0）
+	 */
+	public static char confusableDigit(char c) {
+		c = lower(c);
+		if (c >= 128 || c == 0 || (c >= '0' && c <= '9')) {
+			return 0;
+		}
+		return switch (GROUP[c]) {
+		case 1 -> '1';
+		case 2 -> '0';
+		case 3 -> '5';
+		case 4 -> '8';
+		case 5 -> '2';
+		case 6 -> '9';
+		default -> 0;
+		};
+	}
+
+	static int substitutionCost(char a, char b) {
+		if (a == b) {
+			return 0;
+		}
+		if (a < 128 && b < 128 && GROUP[a] != 0 && GROUP[a] == GROUP[b]) {
+			return CONFUSION_COST;
+		}
+		return EDIT_COST;
+	}
+
+	private static char lower(char c) {
+		return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+	}
+
+	private static void group(int id, String chars) {
+		for (char c : chars.toCharArray()) {
+			GROUP[c] = (byte) id;
+		}
+	}
+
+	// インスタンス化させない（ユーティリティクラス）
+	private OcrEditDistance() {
+	}
+}
@@ -0,0 +1,79 @@
+package com.example.evolon.domain;
+
+import java.text.Normalizer;
+
+/**
+ * 検索キー（*_key 列）用の文字列正規化
+ *
+ * 「ﾆﾝﾌｨｱ」「にんふぃあ」「ニンフィア」「ニンフィア ex」「ＮＩＮＦＩＡ」などを同じキーに揃える。
+ *
+ * ① NFKC：半角カナ → 全角カナ、全角英数記号 → 半角
+ * ② ひらがな → カタカナ
+ * ③ 英字は小文字
+ * ④ 空白（半角・全角）は削除
+ *
+ * 保存時（エンティティの @PrePersist / @PreUpdate）と検索時（ItemSpecifications）の
+ * 両方で同じ関数を通すので、一致判定は *_key 列への1回の比較で済む。
+ */
+public final class SearchKeyNormalizer {
+
+	// ひらがな（ぁ〜ゖ, ゝゞ）→ カタカナ の差分
+	private static final int HIRAGANA_TO_KATAKANA = 'ァ' - 'ぁ';
+
+	public static String normalize(String value) {
+
+		if (value == null) {
+			return null;
+		}
+
+		// ① NFKC（すでに正規形なら新しい文字列を作らない）
+		String nfkc = Normalizer.isNormalized(value, Normalizer.Form.NFKC)
+				? value
+				: Normalizer.normalize(value, Normalizer.Form.NFKC);
+
+		// ②〜④ を1パスで
+		StringBuilder sb = null;
+		int length = nfkc.length();
+
+		for (int i = 0; i < length; i++) {
+			char c = nfkc.charAt(i);
+			char folded = fold(c);
+
+			if (sb == null) {
+				if (folded == c) {
+					continue;
+				}
+				// 初めて変化があった位置までをコピー（変化なしならアロケーションしない）
+				sb = new StringBuilder(length);
+				sb.append(nfkc, 0, i);
+			}
+
+			if (folded != 0) {
+				sb.append(folded);
+			}
+		}
+
+		return sb == null ? nfkc : sb.toString();
+	}
+
+	/**
+	 * 1文字分の畳み込み（0 は削除）
+	 */
+	private static char fold(char c) {
+
+		if (c == ' ' || c == '　' || c == '\t' || c == '\n' || c == '\r') {
+			return 0;
+		}
+		if ((c >= 'ぁ' && c <= 'ゖ') || c == 'ゝ' || c == 'ゞ') {
+			return (char) (c + HIRAGANA_TO_KATAKANA);
+		}
+		if (c >= 'A' && c <= 'Z') {
+			return (char) (c + ('a' - 'A'));
+		}
+		return c;
+	}
+
+	// インスタンス化させない（ユーティリティクラス）
+	private SearchKeyNormalizer() {
+	}
+}
@@ -0,0 +1,20 @@
+package com.example.evolon.dto;
+
+import com.example.evolon.entity.CardMaster;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * あいまい検索（CardMasterIndex.findSimilar）の候補
+ *
+ * distance は OcrEditDistance（読み間違いやすい文字の置換 1、その他の編集 2）の
+ * セットコード分とカード番号分の合計。小さいほど近い。
+ */
+@Data
+@AllArgsConstructor
+public class CardMasterCandidate {
+
+	private CardMaster card;
+	private int distance;
+}
@@ -0,0 +1,35 @@
+package com.example.evolon.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * card_master 一括取り込みの結果
+ */
+@Data
+@AllArgsConstructor
+public class CardMasterImportResult {
+
+	private String fileName;
+
+	// 読み込んだ行数（ヘッダ除く）
+	private int rowsRead;
+
+	// upsert した行数（同一ファイル内の重複はバッチ内で1行にまとめる）
+	private int rowsWritten;
+
+	// 検証エラーで飛ばした行数
+	private int rowsSkipped;
+
+	// 検証エラーの内容（先頭から最大 20 件）
+	private List<String> errors;
+
+	private long elapsedMillis;
+
+	/** 1秒あたりの取り込み行数 */
+	public long getRowsPerSecond() {
+		return elapsedMillis == 0 ? rowsWritten : rowsWritten * 1000L / elapsedMillis;
+	}
+}
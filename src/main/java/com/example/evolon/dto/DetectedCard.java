@@ -0,0 +1,22 @@
+package com.example.evolon.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * バインダー写真（1枚に複数カード）から切り出したカード1枚分
+ *
+ * row / col は格子上の位置（0 始まり、左上から）。x / y / width / height は元写真上の矩形。
+ */
+@Data
+@AllArgsConstructor
+public class DetectedCard {
+
+	private int row;
+	private int col;
+	private int x;
+	private int y;
+	private int width;
+	private int height;
+	private ParsedCardNumber parsed;
+}
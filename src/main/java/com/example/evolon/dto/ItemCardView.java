@@ -0,0 +1,46 @@
+package com.example.evolon.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.example.evolon.domain.enums.CardCondition;
+import com.example.evolon.domain.enums.Rarity;
+import com.example.evolon.entity.ItemStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 一覧画面（商品カード）用の軽量ビュー
+ *
+ * Item エンティティの代わりに一覧テンプレートへ渡す。
+ * description・2枚目以降の画像・発送情報は持たず、
+ * seller / category / cardInfo も必要な列だけを1クエリの JOIN で取る。
+ */
+@Data
+@AllArgsConstructor
+public class ItemCardView {
+
+	private Long id;
+	private String name;
+	private BigDecimal price;
+	private ItemStatus status;
+
+	// キーセットページングのカーソル用
+	private LocalDateTime createdAt;
+
+	// 1枚目の画像のみ（item_image の position 0）
+	private String imageUrl;
+
+	// 1枚目のサムネイル（未生成の商品は null → imageUrl を表示）
+	private String thumbnailUrl;
+
+	private String categoryName;
+
+	// カード以外の商品は null
+	private Rarity rarity;
+	private CardCondition condition;
+
+	// ニックネーム未設定なら name
+	private String sellerNickname;
+}
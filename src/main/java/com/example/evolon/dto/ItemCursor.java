@@ -0,0 +1,72 @@
+package com.example.evolon.dto;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * キーセット（シーク）ページング用のカーソル
+ *
+ * 直前ページ最後の商品の (createdAt, id) または (price, id) を保持する。
+ * 画面には encode() した不透明なトークンだけを渡す。
+ */
+@Data
+@AllArgsConstructor
+public class ItemCursor {
+
+	private static final String SEPARATOR = "|";
+
+	// 並び替えキー（new / priceAsc / priceDesc）
+	private String sort;
+
+	private LocalDateTime createdAt;
+	private BigDecimal price;
+	private Long id;
+
+	/**
+	 * ページ最後の商品からカーソルを作る
+	 */
+	public static ItemCursor of(String sort, ItemCardView last) {
+		return new ItemCursor(sort, last.getCreatedAt(), last.getPrice(), last.getId());
+	}
+
+	public String encode() {
+		String raw = sort + SEPARATOR + createdAt + SEPARATOR + price.toPlainString() + SEPARATOR + id;
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * トークン → カーソル
+	 *
+	 * 空・不正値・並び替えキー不一致の場合は null（＝先頭ページ扱い）
+	 */
+	public static ItemCursor decode(String token, String sort) {
+
+		if (token == null || token.isBlank()) {
+			return null;
+		}
+
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			String[] parts = raw.split("\\" + SEPARATOR, -1);
+			if (parts.length != 4 || !parts[0].equals(sort)) {
+				return null;
+			}
+
+			return new ItemCursor(
+					parts[0],
+					LocalDateTime.parse(parts[1]),
+					new BigDecimal(parts[2]),
+					Long.valueOf(parts[3]));
+
+		} catch (RuntimeException ex) {
+			// ★ 改ざん・期限切れトークンは先頭ページに戻すだけ
+			return null;
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package com.example.evolon.dto;
+
+import org.springframework.data.domain.Slice;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * キーセットページングの結果
+ *
+ * ・items      : 今回のページ（総件数は持たない）
+ * ・nextCursor : 次ページ用トークン（最終ページなら null）
+ */
+@Data
+@AllArgsConstructor
+public class ItemCursorSlice {
+
+	private Slice<ItemCardView> items;
+	private String nextCursor;
+
+	public boolean hasNext() {
+		return nextCursor != null;
+	}
+}
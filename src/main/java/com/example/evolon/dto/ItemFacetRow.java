@@ -0,0 +1,25 @@
+package com.example.evolon.dto;
+
+import com.example.evolon.domain.enums.CardCondition;
+import com.example.evolon.domain.enums.Rarity;
+import com.example.evolon.domain.enums.Regulation;
+import com.example.evolon.entity.ItemStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * ファセット集計の1行（rarity × regulation × condition × status ごとの件数）
+ *
+ * card_info が無い商品は rarity / regulation / condition が null になる。
+ */
+@Data
+@AllArgsConstructor
+public class ItemFacetRow {
+
+	private Rarity rarity;
+	private Regulation regulation;
+	private CardCondition condition;
+	private ItemStatus status;
+	private Long count;
+}
@@ -0,0 +1,50 @@
+package com.example.evolon.dto;
+
+import java.util.Map;
+
+import com.example.evolon.domain.enums.CardCondition;
+import com.example.evolon.domain.enums.Rarity;
+import com.example.evolon.domain.enums.Regulation;
+import com.example.evolon.entity.ItemStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 絞り込み検索の選択肢ごとのヒット件数
+ *
+ * 各ファセットの件数は「自分以外の条件」を適用した件数
+ * （例：rarity の件数は regulation / condition / status の選択を反映し、rarity の選択は無視）。
+ * そのため今の選択から別の値に切り替えたときの件数がそのまま分かる。
+ */
+@Data
+@AllArgsConstructor
+public class ItemFacets {
+
+	private Map<Rarity, Long> rarity;
+	private Map<Regulation, Long> regulation;
+	private Map<CardCondition, Long> condition;
+	private Map<ItemStatus, Long> status;
+
+	// 画面用（未出現の値は 0）
+	public long rarityCount(Rarity value) {
+		return rarity.getOrDefault(value, 0L);
+	}
+
+	public long regulationCount(Regulation value) {
+		return regulation.getOrDefault(value, 0L);
+	}
+
+	public long conditionCount(CardCondition value) {
+		return condition.getOrDefault(value, 0L);
+	}
+
+	public long statusCount(ItemStatus value) {
+		return status.getOrDefault(value, 0L);
+	}
+
+	/** SELLING + SOLD（ステータス「全て」）の件数 */
+	public long totalCount() {
+		return status.values().stream().mapToLong(Long::longValue).sum();
+	}
+}
@@ -0,0 +1,28 @@
+package com.example.evolon.dto;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 商品編集フォームの画像の変更（既存の画像は item_image の id で指す）
+ *
+ * 触れられていない画像はそのまま残す（価格だけの編集なら画像の I/O はゼロ）。
+ *   removals     … 外す画像の id
+ *   replacements … id → 差し替える画像（中身が同じなら上げ直さない）
+ *   additions    … 末尾に足す画像（8枚を超えた分は捨てる）
+ */
+@Data
+@NoArgsConstructor
+public class ItemImageEdit {
+
+	private Set<Long> removals = new LinkedHashSet<>();
+	private Map<Long, MultipartFile> replacements = new LinkedHashMap<>();
+	private MultipartFile[] additions = new MultipartFile[0];
+}
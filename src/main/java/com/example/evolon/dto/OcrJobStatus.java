@@ -0,0 +1,31 @@
+package com.example.evolon.dto;
+
+import java.util.List;
+
+import com.example.evolon.entity.CardMaster;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 非同期OCRジョブの状態（ポーリング / SSE の応答）
+ *
+ * status：QUEUED → RUNNING → DONE / FAILED
+ * DONE のときだけ parsed / card が入る（/api/ocr と同じく、見つからなければ message に理由）
+ * card が決まらなかったときは candidates に近いカードの候補（近い順）
+ */
+@Data
+@AllArgsConstructor
+public class OcrJobStatus {
+
+	private String jobId;
+	private String status;
+	private ParsedCardNumber parsed;
+	private CardMaster card;
+	private List<CardMasterCandidate> candidates;
+	private String message;
+
+	public boolean isFinished() {
+		return "DONE".equals(status) || "FAILED".equals(status);
+	}
+}
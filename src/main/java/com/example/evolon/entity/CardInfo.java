@@ -4,13 +4,17 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 
+import com.example.evolon.domain.SearchKeyNormalizer;
 import com.example.evolon.domain.enums.CardCondition;
 import com.example.evolon.domain.enums.Rarity;
 import com.example.evolon.domain.enums.Regulation;
@@ -39,7 +43,7 @@ public class CardInfo {
 	// =========================
 	// ★ Item 側が逆なので、ここが owner
 	// =========================
-	@OneToOne
+	@OneToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "item_id", nullable = false)
 	private Item item;
 
@@ -49,6 +53,10 @@ public class CardInfo {
 	@Column(nullable = false)
 	private String cardName;
 
+	// 検索キー（SearchKeyNormalizer で正規化。保存時に自動更新）
+	@Column(name = "card_name_key")
+	private String cardNameKey;
+
 	@Enumerated(EnumType.STRING)
 	@Column(nullable = false)
 	private Rarity rarity;
@@ -60,7 +68,20 @@ public class CardInfo {
 	@Column
 	private String packName;
 
+	@Column(name = "pack_name_key")
+	private String packNameKey;
+
 	@Enumerated(EnumType.STRING)
 	@Column(nullable = false)
 	private CardCondition condition;
+
+	// =========================
+	// 検索キー更新
+	// =========================
+	@PrePersist
+	@PreUpdate
+	void refreshSearchKeys() {
+		this.cardNameKey = SearchKeyNormalizer.normalize(cardName);
+		this.packNameKey = SearchKeyNormalizer.normalize(packName);
+	}
 }
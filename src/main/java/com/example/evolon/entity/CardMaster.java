@@ -2,14 +2,18 @@ package com.example.evolon.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 
+import com.example.evolon.domain.SearchKeyNormalizer;
 import com.example.evolon.domain.enums.PrintedRegulation;
 import com.example.evolon.domain.enums.Rarity;
 
@@ -17,6 +21,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@EntityListeners(CardMasterListener.class)
 @Table(name = "card_master", uniqueConstraints = @UniqueConstraint(columnNames = { "set_code", "card_number" }))
 @Data
 @NoArgsConstructor
@@ -35,6 +40,10 @@ public class CardMaster {
 	@Column(nullable = false)
 	private String cardName;
 
+	// 検索キー（SearchKeyNormalizer で正規化した cardName。保存時に自動更新）
+	@Column(name = "card_name_key")
+	private String cardNameKey;
+
 	@Enumerated(EnumType.STRING)
 	@Column(nullable = false)
 	private Rarity rarity;
@@ -61,4 +70,10 @@ public class CardMaster {
 		this.packName = packName;
 		this.printedRegulation = printedRegulation;
 	}
+
+	@PrePersist
+	@PreUpdate
+	void refreshSearchKeys() {
+		this.cardNameKey = SearchKeyNormalizer.normalize(cardName);
+	}
 }
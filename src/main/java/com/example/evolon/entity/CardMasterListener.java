@@ -0,0 +1,48 @@
+package com.example.evolon.entity;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * card_master の変更検知（CardMasterIndex の再読み込み用）
+ *
+ * 変更のたびに世代番号を進める。トランザクション中ならコミット後に進めるので、
+ * 未コミットの状態をインデックスが読み込んでしまうことはない。
+ * JPA を通らない一括更新（JDBC）は呼び出し側で markChanged() を呼ぶ。
+ */
+public class CardMasterListener {
+
+	private static final AtomicLong GENERATION = new AtomicLong();
+
+	/** 現在の世代番号 */
+	public static long generation() {
+		return GENERATION.get();
+	}
+
+	/** 変更あり（トランザクション中ならコミット後に反映） */
+	public static void markChanged() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					GENERATION.incrementAndGet();
+				}
+			});
+		} else {
+			GENERATION.incrementAndGet();
+		}
+	}
+
+	@PostPersist
+	@PostUpdate
+	@PostRemove
+	void onChange(CardMaster cardMaster) {
+		markChanged();
+	}
+}
@@ -6,6 +6,7 @@ import java.time.LocalDateTime;
 //JPA 関連インポート
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -35,11 +36,11 @@ public class FavoriteItem {
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private Long id;
 	//お気に入り登録したユーザー。NULL 禁止
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "user_id", nullable = false)
 	private User user;
 	//お気に入り対象の商品。NULL 禁止
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "item_id", nullable = false)
 	private Item item;
 	//お気に入り登録日時。既定で現在時刻
@@ -0,0 +1,27 @@
+package com.example.evolon.entity;
+
+/**
+ * 商品画像の状態（ItemImagePipeline）
+ *
+ * PENDING：商品は保存済み、画像はバックグラウンドでアップロード中
+ * READY  ：画像の URL が揃った（画像なしの商品もこれ）
+ * FAILED ：リトライしてもアップロードできなかった（編集画面から再アップロード）
+ */
+public enum ImageStatus {
+
+	READY("公開中"),
+
+	PENDING("画像アップロード中"),
+
+	FAILED("画像アップロード失敗");
+
+	private final String label;
+
+	ImageStatus(String label) {
+		this.label = label;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+}
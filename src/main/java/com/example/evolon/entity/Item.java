@@ -2,20 +2,29 @@ package com.example.evolon.entity;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.OrderBy;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
+import com.example.evolon.domain.SearchKeyNormalizer;
 import com.example.evolon.domain.enums.ShippingDuration;
 import com.example.evolon.domain.enums.ShippingFeeBurden;
 import com.example.evolon.domain.enums.ShippingMethod;
@@ -23,7 +32,9 @@ import com.example.evolon.domain.enums.ShippingRegion;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
 @Table(name = "item")
@@ -32,6 +43,9 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class Item {
 
+	// 1商品あたりの画像の上限
+	public static final int MAX_IMAGES = 8;
+
 	// =========================
 	// 主キー
 	// =========================
@@ -42,7 +56,7 @@ public class Item {
 	// =========================
 	// 出品者
 	// =========================
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "user_id", nullable = false)
 	private User seller;
 
@@ -52,13 +66,17 @@ public class Item {
 	@Column(nullable = false)
 	private String name;
 
+	// 検索キー（SearchKeyNormalizer で正規化した name。保存時に自動更新）
+	@Column(name = "name_key")
+	private String nameKey;
+
 	@Column(columnDefinition = "TEXT")
 	private String description;
 
 	@Column(nullable = false)
 	private BigDecimal price;
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "category_id")
 	private Category category;
 
@@ -83,6 +101,9 @@ public class Item {
 
 	// =========================
 	// ★ カード情報（逆側）
+	// mappedBy 側の @OneToOne は Hibernate がプロキシにできず、
+	// 単体で読むと1件ごとに追加 SELECT が出るので、
+	// Item をまとめて読むクエリでは left join fetch i.cardInfo する（ItemRepository / AppOrderRepository）
 	// =========================
 	@OneToOne(mappedBy = "item", cascade = CascadeType.ALL, orphanRemoval = true)
 	private CardInfo cardInfo;
@@ -94,31 +115,40 @@ public class Item {
 	@Column(nullable = false)
 	private ItemStatus status = ItemStatus.SELLING;
 
-	private String imageUrl;
-	@Column(name = "image_url2")
-	private String imageUrl2;
-
-	@Column(name = "image_url3")
-	private String imageUrl3;
-
-	@Column(name = "image_url4")
-	private String imageUrl4;
-
-	@Column(name = "image_url5")
-	private String imageUrl5;
-
-	@Column(name = "image_url6")
-	private String imageUrl6;
+	// =========================
+	// ★ 商品画像（item_image。position 順、最大8枚）
+	// 一覧は ItemCardView で position 0 だけを JOIN する。
+	// 詳細・編集は findWithDetailsById で left join fetch i.images する（open-in-view 無効のため）
+	// =========================
+	@OneToMany(mappedBy = "item", cascade = CascadeType.ALL, orphanRemoval = true)
+	@OrderBy("position ASC")
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
+	private List<ItemImage> images = new ArrayList<>();
 
-	@Column(name = "image_url7")
-	private String imageUrl7;
+	// ★ 画像のアップロード状態（ItemImagePipeline が非同期に images を埋める）
+	@Enumerated(EnumType.STRING)
+	@Column(name = "image_status", nullable = false)
+	private ImageStatus imageStatus = ImageStatus.READY;
 
-	@Column(name = "image_url8")
-	private String imageUrl8;
+	// ★ 楽観ロック：画像パイプラインの書き込み・同時の編集・古い編集フォームからの送信で上書きし合わない
+	// （編集フォームは hidden の version を送り、食い違えば ItemService が弾く）
+	@Version
+	@Column(nullable = false)
+	private Long version;
 
 	@Column(nullable = false)
 	private LocalDateTime createdAt = LocalDateTime.now();
 
+	// =========================
+	// 検索キー更新
+	// =========================
+	@PrePersist
+	@PreUpdate
+	void refreshSearchKeys() {
+		this.nameKey = SearchKeyNormalizer.normalize(name);
+	}
+
 	// =========================
 	// ドメインロジック
 	// =========================
@@ -141,4 +171,88 @@ public class Item {
 	public void markAsSold() {
 		this.status = ItemStatus.SOLD;
 	}
+
+	/**
+	 * 1枚目の画像 URL（無ければ null）
+	 */
+	public String getImageUrl() {
+		return images.isEmpty() ? null : images.get(0).getUrl();
+	}
+
+	/**
+	 * position の画像（無ければ null）
+	 */
+	public ItemImage getImageAt(int position) {
+		for (ItemImage image : images) {
+			if (image.getPosition() == position) {
+				return image;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * id の画像（無ければ null。編集フォームは position ではなく id で画像を指す）
+	 */
+	public ItemImage getImageById(Long id) {
+		for (ItemImage image : images) {
+			if (image.getId() != null && image.getId().equals(id)) {
+				return image;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * position に画像を置く（既にあれば URL 等を差し替え、無ければ末尾に追加：position に歯抜けは作らない）
+	 *
+	 * 差し替えた場合、前の画像の URL は呼び出し側で保存先から消す。
+	 */
+	public ItemImage putImage(int position, String url) {
+
+		ItemImage image = getImageAt(position);
+		if (image == null) {
+			if (position < 0 || images.size() >= MAX_IMAGES) {
+				throw new IllegalArgumentException("画像は" + MAX_IMAGES + "枚までです");
+			}
+			image = new ItemImage(this, images.size(), url);
+			images.add(image);
+		} else {
+			image.setUrl(url);
+			image.setThumbnailUrl(null);
+			image.setWidth(null);
+			image.setHeight(null);
+			image.setContentHash(null);
+		}
+		return image;
+	}
+
+	/**
+	 * position の画像を外し、後ろの画像を1つずつ詰める（外した画像を返す。無ければ null）
+	 */
+	public ItemImage removeImage(int position) {
+
+		ItemImage removed = getImageAt(position);
+		if (removed == null) {
+			return null;
+		}
+		images.remove(removed);
+		for (ItemImage image : images) {
+			if (image.getPosition() > position) {
+				image.setPosition(image.getPosition() - 1);
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * 画像（images・状態）を other から引き継ぐ
+	 *
+	 * 画像は ItemImagePipeline が非同期に書き換えるので、
+	 * 編集フォームから戻ってきた（古い値を持つ）Item で上書きしないために使う。
+	 */
+	public void copyImagesFrom(Item other) {
+		this.images = other.images;
+		this.imageStatus = other.imageStatus;
+	}
 }
@@ -0,0 +1,74 @@
+package com.example.evolon.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 商品画像エンティティ（1商品に最大8枚。position 0 が一覧・サムネイルに使う1枚目）
+ *
+ * 画像の追加・削除・並べ替えはこの表の行だけを触る（item の行は書き換えない）。
+ */
+@Entity
+@Table(name = "item_image")
+@Data
+@NoArgsConstructor
+public class ItemImage {
+
+	// =========================
+	// 主キー
+	// =========================
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	// =========================
+	// ★ Item 側が逆なので、ここが owner
+	// =========================
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "item_id", nullable = false)
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
+	private Item item;
+
+	// 表示順（0 始まり）
+	@Column(nullable = false)
+	private int position;
+
+	@Column(nullable = false, columnDefinition = "TEXT")
+	private String url;
+
+	// 正規化後の大きさ（ImageIngestService）
+	private Integer width;
+	private Integer height;
+
+	// 一覧用サムネイル（position 0 のものを一覧で使う。無ければ url を使う）
+	@Column(name = "thumbnail_url", columnDefinition = "TEXT")
+	private String thumbnailUrl;
+
+	// 元ファイルの SHA-256（16進）
+	@Column(name = "content_hash", length = 64)
+	private String contentHash;
+
+	@Column(nullable = false)
+	private LocalDateTime createdAt = LocalDateTime.now();
+
+	public ItemImage(Item item, int position, String url) {
+		this.item = item;
+		this.position = position;
+		this.url = url;
+	}
+}
@@ -0,0 +1,35 @@
+package com.example.evolon.monitoring;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * /actuator/querycount
+ *
+ * GET    ：ハンドラごとのリクエスト数・SQL 件数（合計/最大/平均）・JDBC 実行時間
+ * DELETE ：集計のリセット（改修前後の比較用）
+ */
+@Component
+@Endpoint(id = "querycount")
+public class QueryCountEndpoint {
+
+	private final QueryCountRecorder recorder;
+
+	public QueryCountEndpoint(QueryCountRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	@ReadOperation
+	public Map<String, QueryCountRecorder.Snapshot> queryCounts() {
+		return recorder.snapshot();
+	}
+
+	@DeleteOperation
+	public void reset() {
+		recorder.reset();
+	}
+}
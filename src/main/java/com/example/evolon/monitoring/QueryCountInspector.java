@@ -0,0 +1,49 @@
+package com.example.evolon.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate が SQL を準備するたびに呼ばれ、QueryCounter の件数を1つ進める
+ *
+ * SQL 自体は書き換えない。別の StatementInspector が設定済みなら、数えてからそちらに渡す。
+ */
+public class QueryCountInspector implements StatementInspector {
+
+	private final StatementInspector delegate;
+
+	public QueryCountInspector() {
+		this(null);
+	}
+
+	public QueryCountInspector(StatementInspector delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * hibernate.session_factory.statement_inspector に設定済みの値（インスタンス・クラス・クラス名。null 可）を包む
+	 */
+	public static QueryCountInspector wrapping(Object configured) {
+
+		if (configured == null || configured instanceof QueryCountInspector) {
+			return configured == null ? new QueryCountInspector() : (QueryCountInspector) configured;
+		}
+		if (configured instanceof StatementInspector inspector) {
+			return new QueryCountInspector(inspector);
+		}
+
+		try {
+			Class<?> type = (configured instanceof Class<?> c)
+					? c
+					: Class.forName(configured.toString().trim(), true, QueryCountInspector.class.getClassLoader());
+			return new QueryCountInspector((StatementInspector) type.getDeclaredConstructor().newInstance());
+		} catch (ReflectiveOperationException | ClassCastException ex) {
+			throw new IllegalStateException("StatementInspector を生成できません: " + configured, ex);
+		}
+	}
+
+	@Override
+	public String inspect(String sql) {
+		QueryCounter.countStatement();
+		return delegate == null ? sql : delegate.inspect(sql);
+	}
+}
@@ -0,0 +1,69 @@
+package com.example.evolon.monitoring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Controller のハンドラ1回分（View 描画まで含む）を SQL 計測の範囲にする
+ *
+ * - ハンドラ名は「ItemController.listItems」の形で QueryCountRecorder に渡す
+ * - 件数はリクエスト属性 STATEMENTS_ATTRIBUTE にも残す（テストの QueryBudget が参照）
+ * - 非同期処理（SseEmitter 等）を始めたハンドラは afterCompletion が元のスレッドで呼ばれないので、
+ *   afterConcurrentHandlingStarted で計測を捨てる（Tomcat のスレッドに ThreadLocal を残さない）
+ */
+public class QueryCountInterceptor implements AsyncHandlerInterceptor {
+
+	/** このリクエストで発行された SQL 件数（Integer） */
+	public static final String STATEMENTS_ATTRIBUTE = QueryCountInterceptor.class.getName() + ".statements";
+
+	private final QueryCountRecorder recorder;
+
+	public QueryCountInterceptor(QueryCountRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (handler instanceof HandlerMethod) {
+			QueryCounter.start();
+		}
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(
+			HttpServletRequest request,
+			HttpServletResponse response,
+			Object handler,
+			Exception ex) {
+
+		if (!(handler instanceof HandlerMethod method)) {
+			return;
+		}
+
+		QueryCounter.Stats stats = QueryCounter.stop();
+		if (stats == null) {
+			return;
+		}
+
+		request.setAttribute(STATEMENTS_ATTRIBUTE, stats.getStatements());
+		recorder.record(handlerName(method), stats);
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(
+			HttpServletRequest request,
+			HttpServletResponse response,
+			Object handler) {
+
+		// 続きは別スレッド（非同期ディスパッチ）なので、このスレッドの計測はここで終わり（記録しない）
+		QueryCounter.stop();
+	}
+
+	static String handlerName(HandlerMethod method) {
+		return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+	}
+}
@@ -0,0 +1,131 @@
+package com.example.evolon.monitoring;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * ハンドラごとの SQL 件数・JDBC 実行時間の集計
+ *
+ * - Micrometer：evolon.sql.statements（1リクエストあたりの件数）/ evolon.sql.execution（JDBC 実行時間）
+ *   どちらも handler タグ（例：ItemController.listItems）付き
+ * - /actuator/querycount 用に、起動後（またはリセット後）の累計・最大値も持つ
+ */
+@Component
+public class QueryCountRecorder {
+
+	public static final String STATEMENTS_METRIC = "evolon.sql.statements";
+	public static final String EXECUTION_METRIC = "evolon.sql.execution";
+
+	private final MeterRegistry meterRegistry;
+
+	private final Map<String, HandlerStats> handlers = new ConcurrentHashMap<>();
+
+	public QueryCountRecorder(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	public void record(String handler, QueryCounter.Stats stats) {
+		handlers.computeIfAbsent(handler, this::newHandlerStats).add(stats);
+	}
+
+	/** ハンドラ名順のスナップショット */
+	public Map<String, Snapshot> snapshot() {
+		Map<String, Snapshot> result = new TreeMap<>();
+		handlers.forEach((handler, stats) -> result.put(handler, stats.snapshot()));
+		return result;
+	}
+
+	/** 累計・最大値をリセット（Micrometer のメーターはそのまま） */
+	public void reset() {
+		handlers.values().forEach(HandlerStats::reset);
+	}
+
+	private HandlerStats newHandlerStats(String handler) {
+		DistributionSummary statements = DistributionSummary.builder(STATEMENTS_METRIC)
+				.description("SQL statements issued per request")
+				.baseUnit("statements")
+				.tag("handler", handler)
+				.register(meterRegistry);
+
+		Timer execution = Timer.builder(EXECUTION_METRIC)
+				.description("JDBC execution time per request")
+				.tag("handler", handler)
+				.register(meterRegistry);
+
+		return new HandlerStats(statements, execution);
+	}
+
+	/**
+	 * /actuator/querycount の1行
+	 */
+	public record Snapshot(
+			long requests,
+			long totalStatements,
+			long maxStatements,
+			double avgStatements,
+			double totalExecutionMillis,
+			double maxExecutionMillis) {
+	}
+
+	private static final class HandlerStats {
+
+		private final DistributionSummary statementsSummary;
+		private final Timer executionTimer;
+
+		private final LongAdder requests = new LongAdder();
+		private final LongAdder statements = new LongAdder();
+		private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+		private final LongAdder executionNanos = new LongAdder();
+		private final LongAccumulator maxExecutionNanos = new LongAccumulator(Math::max, 0);
+
+		HandlerStats(DistributionSummary statementsSummary, Timer executionTimer) {
+			this.statementsSummary = statementsSummary;
+			this.executionTimer = executionTimer;
+		}
+
+		void add(QueryCounter.Stats stats) {
+			statementsSummary.record(stats.getStatements());
+			executionTimer.record(stats.getExecutionNanos(), TimeUnit.NANOSECONDS);
+
+			requests.increment();
+			statements.add(stats.getStatements());
+			maxStatements.accumulate(stats.getStatements());
+			executionNanos.add(stats.getExecutionNanos());
+			maxExecutionNanos.accumulate(stats.getExecutionNanos());
+		}
+
+		Snapshot snapshot() {
+			long count = requests.sum();
+			long total = statements.sum();
+			return new Snapshot(
+					count,
+					total,
+					maxStatements.get(),
+					count == 0 ? 0 : (double) total / count,
+					toMillis(executionNanos.sum()),
+					toMillis(maxExecutionNanos.get()));
+		}
+
+		void reset() {
+			requests.reset();
+			statements.reset();
+			maxStatements.reset();
+			executionNanos.reset();
+			maxExecutionNanos.reset();
+		}
+
+		private static double toMillis(long nanos) {
+			return nanos / 1_000_000.0;
+		}
+	}
+}
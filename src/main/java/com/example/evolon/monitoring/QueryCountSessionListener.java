@@ -0,0 +1,248 @@
+package com.example.evolon.monitoring;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * JDBC の実行時間（executeQuery / executeUpdate / executeBatch）を QueryCounter に足す
+ *
+ * hibernate.session.events.auto で Session ごとに1インスタンス作られる（スレッドをまたがない）。
+ * この設定はクラス名を1つしか持てないので、別のリスナーが設定済みなら wrapping で覚えておき、
+ * Session ごとにそちらも生成して全イベントを渡す。
+ */
+public class QueryCountSessionListener implements SessionEventListener {
+
+	private static final long serialVersionUID = 1L;
+
+	// 設定済みだった元のリスナー（無ければ null）
+	private static volatile Class<? extends SessionEventListener> delegateType;
+
+	private final SessionEventListener delegate;
+
+	private long startedAt;
+
+	public QueryCountSessionListener() {
+		this.delegate = newDelegate(delegateType);
+	}
+
+	/**
+	 * hibernate.session.events.auto に設定済みの値（クラス・クラス名。null 可）を包み、代わりに設定するクラス名を返す
+	 */
+	public static String wrapping(Object configured) {
+
+		Class<?> type;
+		try {
+			type = (configured instanceof Class<?> c)
+					? c
+					: (configured == null || configured.toString().isBlank())
+							? null
+							: Class.forName(configured.toString().trim(), true,
+									QueryCountSessionListener.class.getClassLoader());
+		} catch (ClassNotFoundException ex) {
+			throw new IllegalStateException("SessionEventListener を生成できません: " + configured, ex);
+		}
+
+		if (type == null || type == QueryCountSessionListener.class) {
+			delegateType = null;
+		} else if (SessionEventListener.class.isAssignableFrom(type)) {
+			// 生成できるかを起動時に確かめる（Session を開くたびに失敗しないように）
+			newDelegate(type.asSubclass(SessionEventListener.class));
+			delegateType = type.asSubclass(SessionEventListener.class);
+		} else {
+			throw new IllegalStateException("SessionEventListener ではありません: " + configured);
+		}
+
+		return QueryCountSessionListener.class.getName();
+	}
+
+	private static SessionEventListener newDelegate(Class<? extends SessionEventListener> type) {
+
+		if (type == null) {
+			return null;
+		}
+		try {
+			return type.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException ex) {
+			throw new IllegalStateException("SessionEventListener を生成できません: " + type.getName(), ex);
+		}
+	}
+
+	/* =========================
+	 * 計測
+	 * ========================= */
+
+	@Override
+	public void jdbcExecuteStatementStart() {
+		startedAt = System.nanoTime();
+		if (delegate != null) {
+			delegate.jdbcExecuteStatementStart();
+		}
+	}
+
+	@Override
+	public void jdbcExecuteStatementEnd() {
+		QueryCounter.addExecutionNanos(System.nanoTime() - startedAt);
+		if (delegate != null) {
+			delegate.jdbcExecuteStatementEnd();
+		}
+	}
+
+	@Override
+	public void jdbcExecuteBatchStart() {
+		startedAt = System.nanoTime();
+		if (delegate != null) {
+			delegate.jdbcExecuteBatchStart();
+		}
+	}
+
+	@Override
+	public void jdbcExecuteBatchEnd() {
+		QueryCounter.addExecutionNanos(System.nanoTime() - startedAt);
+		if (delegate != null) {
+			delegate.jdbcExecuteBatchEnd();
+		}
+	}
+
+	/* =========================
+	 * 元のリスナーへそのまま渡すだけ
+	 * ========================= */
+
+	@Override
+	public void transactionCompletion(boolean successful) {
+		if (delegate != null) {
+			delegate.transactionCompletion(successful);
+		}
+	}
+
+	@Override
+	public void jdbcConnectionAcquisitionStart() {
+		if (delegate != null) {
+			delegate.jdbcConnectionAcquisitionStart();
+		}
+	}
+
+	@Override
+	public void jdbcConnectionAcquisitionEnd() {
+		if (delegate != null) {
+			delegate.jdbcConnectionAcquisitionEnd();
+		}
+	}
+
+	@Override
+	public void jdbcConnectionReleaseStart() {
+		if (delegate != null) {
+			delegate.jdbcConnectionReleaseStart();
+		}
+	}
+
+	@Override
+	public void jdbcConnectionReleaseEnd() {
+		if (delegate != null) {
+			delegate.jdbcConnectionReleaseEnd();
+		}
+	}
+
+	@Override
+	public void jdbcPrepareStatementStart() {
+		if (delegate != null) {
+			delegate.jdbcPrepareStatementStart();
+		}
+	}
+
+	@Override
+	public void jdbcPrepareStatementEnd() {
+		if (delegate != null) {
+			delegate.jdbcPrepareStatementEnd();
+		}
+	}
+
+	@Override
+	public void cachePutStart() {
+		if (delegate != null) {
+			delegate.cachePutStart();
+		}
+	}
+
+	@Override
+	public void cachePutEnd() {
+		if (delegate != null) {
+			delegate.cachePutEnd();
+		}
+	}
+
+	@Override
+	public void cacheGetStart() {
+		if (delegate != null) {
+			delegate.cacheGetStart();
+		}
+	}
+
+	@Override
+	public void cacheGetEnd(boolean hit) {
+		if (delegate != null) {
+			delegate.cacheGetEnd(hit);
+		}
+	}
+
+	@Override
+	public void flushStart() {
+		if (delegate != null) {
+			delegate.flushStart();
+		}
+	}
+
+	@Override
+	public void flushEnd(int numberOfEntities, int numberOfCollections) {
+		if (delegate != null) {
+			delegate.flushEnd(numberOfEntities, numberOfCollections);
+		}
+	}
+
+	@Override
+	public void prePartialFlushStart() {
+		if (delegate != null) {
+			delegate.prePartialFlushStart();
+		}
+	}
+
+	@Override
+	public void prePartialFlushEnd() {
+		if (delegate != null) {
+			delegate.prePartialFlushEnd();
+		}
+	}
+
+	@Override
+	public void partialFlushStart() {
+		if (delegate != null) {
+			delegate.partialFlushStart();
+		}
+	}
+
+	@Override
+	public void partialFlushEnd(int numberOfEntities, int numberOfCollections) {
+		if (delegate != null) {
+			delegate.partialFlushEnd(numberOfEntities, numberOfCollections);
+		}
+	}
+
+	@Override
+	public void dirtyCalculationStart() {
+		if (delegate != null) {
+			delegate.dirtyCalculationStart();
+		}
+	}
+
+	@Override
+	public void dirtyCalculationEnd(boolean dirty) {
+		if (delegate != null) {
+			delegate.dirtyCalculationEnd(dirty);
+		}
+	}
+
+	@Override
+	public void end() {
+		if (delegate != null) {
+			delegate.end();
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.example.evolon.monitoring;
+
+/**
+ * 現在のスレッド（＝1リクエスト）で発行された SQL の件数・JDBC 実行時間
+ *
+ * start() 〜 stop() の間だけ数える。範囲外（起動時の Runner など）の SQL は無視する。
+ * 区切りは QueryCountInterceptor、カウントは QueryCountInspector / QueryCountSessionListener。
+ */
+public final class QueryCounter {
+
+	private static final ThreadLocal<Stats> CURRENT = new ThreadLocal<>();
+
+	/** 計測開始（前のリクエストの値が残っていても捨てて 0 から数える） */
+	public static void start() {
+		CURRENT.set(new Stats());
+	}
+
+	/** 計測終了。計測していなければ null */
+	public static Stats stop() {
+		Stats stats = CURRENT.get();
+		CURRENT.remove();
+		return stats;
+	}
+
+	/** 計測中の値（計測していなければ null） */
+	public static Stats current() {
+		return CURRENT.get();
+	}
+
+	static void countStatement() {
+		Stats stats = CURRENT.get();
+		if (stats != null) {
+			stats.statements++;
+		}
+	}
+
+	static void addExecutionNanos(long nanos) {
+		Stats stats = CURRENT.get();
+		if (stats != null) {
+			stats.executionNanos += nanos;
+		}
+	}
+
+	/**
+	 * 1リクエスト分の集計（同じスレッドからしか触らない）
+	 */
+	public static final class Stats {
+
+		private int statements;
+		private long executionNanos;
+
+		public int getStatements() {
+			return statements;
+		}
+
+		public long getExecutionNanos() {
+			return executionNanos;
+		}
+	}
+
+	// インスタンス化させない（ユーティリティクラス）
+	private QueryCounter() {
+	}
+}
@@ -3,7 +3,10 @@ package com.example.evolon.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.evolon.entity.AppOrder;
@@ -25,7 +28,62 @@ public interface AppOrderRepository extends JpaRepository<AppOrder, Long> {
 
 	Optional<AppOrder> findByPaymentIntentId(String paymentIntentId);
 
+	// 管理ダッシュボード：最近の注文（商品名・購入者名を表示）
+	@EntityGraph(attributePaths = { "item", "item.cardInfo", "buyer" })
 	List<AppOrder> findTop5ByOrderByCreatedAtDesc();
 
 	List<AppOrder> findByBuyerAndOrderStatusIn(User buyer, List<OrderStatus> statuses);
+
+	/* =========================
+	 * ★ 画面ごとの取得（関連は LAZY なので、表示する関連だけ JOIN FETCH）
+	 *
+	 * mappedBy 側の Item.cardInfo は遅延できず1件ずつ SELECT されるので、
+	 * Item を読むときは i.cardInfo も一緒に fetch する。
+	 * ========================= */
+
+	// 取引詳細・レビュー入力・発送/到着/評価の更新系
+	@Query("""
+			SELECT o
+			FROM AppOrder o
+			JOIN FETCH o.item i
+			JOIN FETCH i.seller
+			LEFT JOIN FETCH i.cardInfo
+			JOIN FETCH o.buyer
+			WHERE o.id = :id
+			""")
+	Optional<AppOrder> findWithDetailsById(@Param("id") Long id);
+
+	// 決済完了（出品者への通知まで行う）
+	@Query("""
+			SELECT o
+			FROM AppOrder o
+			JOIN FETCH o.item i
+			JOIN FETCH i.seller
+			LEFT JOIN FETCH i.cardInfo
+			JOIN FETCH o.buyer
+			WHERE o.paymentIntentId = :paymentIntentId
+			""")
+	Optional<AppOrder> findWithDetailsByPaymentIntentId(@Param("paymentIntentId") String paymentIntentId);
+
+	// 購入履歴（商品名・出品者名を表示）
+	@Query("""
+			SELECT o
+			FROM AppOrder o
+			JOIN FETCH o.item i
+			JOIN FETCH i.seller
+			LEFT JOIN FETCH i.cardInfo
+			WHERE o.buyer = :buyer
+			""")
+	List<AppOrder> findWithItemByBuyer(@Param("buyer") User buyer);
+
+	// 販売履歴（商品名・購入者名を表示）
+	@Query("""
+			SELECT o
+			FROM AppOrder o
+			JOIN FETCH o.item i
+			LEFT JOIN FETCH i.cardInfo
+			JOIN FETCH o.buyer
+			WHERE i.seller = :seller
+			""")
+	List<AppOrder> findWithItemAndBuyerBySeller(@Param("seller") User seller);
 }
@@ -1,5 +1,6 @@
 package com.example.evolon.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -15,4 +16,7 @@ public interface CardMasterRepository extends JpaRepository<CardMaster, Long> {
 			String cardNumber);
 
 	boolean existsBySetCodeAndCardNumber(String setCode, String cardNumber);
+
+	// カード名（正規化済みキー）の部分一致
+	List<CardMaster> findTop20ByCardNameKeyContainingOrderByCardNameKey(String cardNameKey);
 }
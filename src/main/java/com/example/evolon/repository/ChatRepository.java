@@ -5,6 +5,8 @@ import java.util.List;
 
 //Spring Data JPA
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 //リポジトリ・ステレオタイプ
 import org.springframework.stereotype.Repository;
 
@@ -17,4 +19,14 @@ import com.example.evolon.entity.Item;
 public interface ChatRepository extends JpaRepository<Chat, Long> {
 	//指定商品のチャット履歴を作成日時昇順で取得
 	List<Chat> findByItemOrderByCreatedAtAsc(Item item);
+
+	//★ 商品詳細のチャット表示用：送信者を JOIN FETCH（商品の再取得もしない）
+	@Query("""
+			SELECT c
+			FROM Chat c
+			JOIN FETCH c.sender
+			WHERE c.item.id = :itemId
+			ORDER BY c.createdAt ASC
+			""")
+	List<Chat> findWithSenderByItemId(@Param("itemId") Long itemId);
 }
@@ -25,4 +25,7 @@ public interface FavoriteItemRepository extends JpaRepository<FavoriteItem, Long
 
 	//既にお気に入り済みか存在チェック（二重登録防止用）
 	boolean existsByUserAndItem(User user, Item item);
+
+	//商品IDで存在チェック（商品エンティティを読まずに判定）
+	boolean existsByUserAndItem_Id(User user, Long itemId);
 }
@@ -0,0 +1,25 @@
+package com.example.evolon.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.evolon.dto.ItemCardView;
+import com.example.evolon.entity.Item;
+
+/**
+ * 一覧用の軽量ビュー（ItemCardView）取得（ItemRepository のカスタム部分）
+ *
+ * ItemSpecifications の条件をそのまま使い、SELECT 句だけ必要な列に絞る。
+ */
+public interface ItemCardViewRepository {
+
+	/** ページング（件数付き）一覧 */
+	Page<ItemCardView> findCardViews(Specification<Item> spec, Pageable pageable);
+
+	/** 先頭 limit 件（キーセットページング用、count なし） */
+	List<ItemCardView> findCardViews(Specification<Item> spec, Sort sort, int limit);
+}
@@ -0,0 +1,126 @@
+package com.example.evolon.repository;
+
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import com.example.evolon.dto.ItemCardView;
+import com.example.evolon.entity.Category;
+import com.example.evolon.entity.Item;
+import com.example.evolon.entity.ItemImage;
+import com.example.evolon.entity.User;
+
+/**
+ * ItemCardViewRepository の実装（Spring Data が ItemRepository に合成する）
+ */
+public class ItemCardViewRepositoryImpl implements ItemCardViewRepository {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public Page<ItemCardView> findCardViews(Specification<Item> spec, Pageable pageable) {
+
+		TypedQuery<ItemCardView> query = createQuery(spec, pageable.getSort());
+
+		if (pageable.isPaged()) {
+			query.setFirstResult((int) pageable.getOffset());
+			query.setMaxResults(pageable.getPageSize());
+		}
+
+		// 1ページ目で件数未満なら count は発行しない（SimpleJpaRepository と同じ）
+		return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(spec));
+	}
+
+	@Override
+	public List<ItemCardView> findCardViews(Specification<Item> spec, Sort sort, int limit) {
+		return createQuery(spec, sort)
+				.setMaxResults(limit)
+				.getResultList();
+	}
+
+	private TypedQuery<ItemCardView> createQuery(Specification<Item> spec, Sort sort) {
+
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<ItemCardView> query = cb.createQuery(ItemCardView.class);
+		Root<Item> root = query.from(Item.class);
+
+		// 条件側で JOIN されたもの（cardFilters の INNER JOIN 等）はそのまま使う
+		applySpec(spec, root, query, cb);
+
+		Join<Item, ?> ci = findOrJoin(root, "cardInfo");
+		Join<Item, User> seller = root.join("seller");
+		Join<Item, Category> category = root.join("category", JoinType.LEFT);
+
+		// ★ 画像は1枚目（position 0）だけ（(item_id, position) は一意なので行は増えない）
+		Join<Item, ItemImage> cover = root.join("images", JoinType.LEFT);
+		cover.on(cb.equal(cover.get("position"), 0));
+
+		query.select(cb.construct(
+				ItemCardView.class,
+				root.get("id"),
+				root.get("name"),
+				root.get("price"),
+				root.get("status"),
+				root.get("createdAt"),
+				cover.get("url"),
+				cover.get("thumbnailUrl"),
+				category.get("name"),
+				ci.get("rarity"),
+				ci.get("condition"),
+				cb.coalesce(seller.<String> get("nickname"), seller.<String> get("name"))));
+
+		// Sort 指定があればそれを優先（無ければ spec 側の orderBy＝関連度順 が残る）
+		if (sort.isSorted()) {
+			query.orderBy(QueryUtils.toOrders(sort, root, cb));
+		}
+
+		return entityManager.createQuery(query);
+	}
+
+	private long count(Specification<Item> spec) {
+
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = cb.createQuery(Long.class);
+		Root<Item> root = query.from(Item.class);
+
+		applySpec(spec, root, query, cb);
+		query.select(cb.count(root));
+
+		return entityManager.createQuery(query).getSingleResult();
+	}
+
+	private void applySpec(Specification<Item> spec, Root<Item> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+		if (spec == null) {
+			return;
+		}
+		Predicate where = spec.toPredicate(root, query, cb);
+		if (where != null) {
+			query.where(where);
+		}
+	}
+
+	private Join<Item, ?> findOrJoin(Root<Item> root, String attribute) {
+		for (Join<Item, ?> join : root.getJoins()) {
+			if (attribute.equals(join.getAttribute().getName())) {
+				return join;
+			}
+		}
+		return root.join(attribute, JoinType.LEFT);
+	}
+}
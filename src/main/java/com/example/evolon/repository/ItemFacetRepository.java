@@ -0,0 +1,20 @@
+package com.example.evolon.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.evolon.dto.ItemFacetRow;
+import com.example.evolon.entity.Item;
+
+/**
+ * ファセット集計（ItemRepository のカスタム部分）
+ */
+public interface ItemFacetRepository {
+
+	/**
+	 * spec に一致する商品を rarity × regulation × condition × status で GROUP BY した件数
+	 * （1クエリ）
+	 */
+	List<ItemFacetRow> countFacets(Specification<Item> spec);
+}
@@ -0,0 +1,61 @@
+package com.example.evolon.repository;
+
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.evolon.dto.ItemFacetRow;
+import com.example.evolon.entity.CardInfo;
+import com.example.evolon.entity.Item;
+
+/**
+ * ItemFacetRepository の実装（Spring Data が ItemRepository に合成する）
+ */
+public class ItemFacetRepositoryImpl implements ItemFacetRepository {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<ItemFacetRow> countFacets(Specification<Item> spec) {
+
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<ItemFacetRow> query = cb.createQuery(ItemFacetRow.class);
+		Root<Item> root = query.from(Item.class);
+
+		// ★ カード以外の商品もステータス件数に含めたいので LEFT JOIN
+		//   （spec 側の cardFilters はこの JOIN を使い回す）
+		Join<Item, CardInfo> ci = root.join("cardInfo", JoinType.LEFT);
+
+		if (spec != null) {
+			Predicate where = spec.toPredicate(root, query, cb);
+			if (where != null) {
+				query.where(where);
+			}
+		}
+
+		query.select(cb.construct(
+				ItemFacetRow.class,
+				ci.get("rarity"),
+				ci.get("regulation"),
+				ci.get("condition"),
+				root.get("status"),
+				cb.count(root)))
+				.groupBy(
+						ci.get("rarity"),
+						ci.get("regulation"),
+						ci.get("condition"),
+						root.get("status"));
+
+		return entityManager.createQuery(query).getResultList();
+	}
+}
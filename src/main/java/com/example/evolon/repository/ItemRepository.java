@@ -1,82 +1,81 @@
 package com.example.evolon.repository;
 
-import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-import com.example.evolon.domain.enums.CardCondition;
-import com.example.evolon.domain.enums.Rarity;
-import com.example.evolon.domain.enums.Regulation;
+import com.example.evolon.dto.ItemCardView;
+import com.example.evolon.entity.ImageStatus;
 import com.example.evolon.entity.Item;
 import com.example.evolon.entity.ItemStatus;
 import com.example.evolon.entity.User;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
+/**
+ * 商品リポジトリ
+ *
+ * 動的な検索条件は ItemSpecifications で組み立てて JpaSpecificationExecutor に渡す。
+ * 一覧画面は Item ではなく軽量ビュー ItemCardView を返す（ItemCardViewRepository / 下の @Query）。
+ * キーセットページング（/items?cursor=...）は findCardViews(spec, sort, limit) を使う（count クエリを発行しない）。
+ * 絞り込み検索のファセット件数は ItemFacetRepository#countFacets（GROUP BY 1クエリ）。
+ *
+ * 関連（seller / category）は LAZY。画面で関連を表示する取得は findWith〜 の fetch join を使う
+ * （open-in-view は無効なので、View で未ロードの関連に触ると LazyInitializationException になる）。
+ */
+public interface ItemRepository
+		extends JpaRepository<Item, Long>, JpaSpecificationExecutor<Item>,
+		ItemFacetRepository, ItemCardViewRepository {
+
+	/*
+	 * ★ 公開中一覧・商品名・カード条件での検索は ItemSpecifications で組み立てて
+	 *   findCardViews(spec, ...)（一覧用の軽量ビュー）/ findAll(spec, pageable) を使う。
+	 *
+	 * - 「(:x IS NULL OR col = :x)」の JPQL 1本だと全組み合わせ共通の汎用プランになり
+	 *   インデックスが効かないため、指定された条件だけの SQL にする
+	 * - 商品名・カード名・封入パックの部分一致は正規化済みの *_key 列
+	 *   （SearchKeyNormalizer）の pg_trgm GIN インデックスで引く（schema.sql）
+	 */
 
 	/* =========================
-	 * 公開中（出品中）検索
+	 * 詳細・編集画面
 	 * ========================= */
 
-	// ステータス複数（一覧用）
-	Page<Item> findByStatusIn(List<ItemStatus> statuses, Pageable pageable);
-
-	// 名前 + ステータス複数
-	Page<Item> findByNameContainingIgnoreCaseAndStatusIn(
-	        String name,
-	        List<ItemStatus> statuses,
-	        Pageable pageable);
-
-	// カテゴリ + ステータス複数
-	Page<Item> findByCategory_IdAndStatusIn(
-	        Long categoryId,
-	        List<ItemStatus> statuses,
-	        Pageable pageable);
-
-	// 名前 + カテゴリ + ステータス複数
-	Page<Item> findByNameContainingIgnoreCaseAndCategory_IdAndStatusIn(
-	        String name,
-	        Long categoryId,
-	        List<ItemStatus> statuses,
-	        Pageable pageable);
-
-	/* =========================
-	 * ★ カード条件検索（null は条件に入れない）
-	 *
-	 * - LEFT JOIN にしている理由：
-	 *   cardInfo が null の商品が存在しても落ちないようにするため
-	 * - cardName/rarity/condition... を指定した場合は、
-	 *   実質 cardInfo がある商品がヒットする
-	 * ========================= */
+	// ★ 出品者・カテゴリ・カード情報・画像を1クエリで取得（商品詳細 / 編集 / 管理者詳細 / チャット）
 	@Query("""
-		    SELECT i
-		    FROM Item i
-		    LEFT JOIN i.cardInfo ci
-		    WHERE i.status IN :statuses
-		      AND (:cardName IS NULL OR ci.cardName LIKE %:cardName%)
-		      AND (:rarity IS NULL OR ci.rarity = :rarity)
-		      AND (:regulation IS NULL OR ci.regulation = :regulation)
-		      AND (:condition IS NULL OR ci.condition = :condition)
-		      AND (:packName IS NULL OR ci.packName LIKE %:packName%)
-		      AND (:minPrice IS NULL OR i.price >= :minPrice)
-		      AND (:maxPrice IS NULL OR i.price <= :maxPrice)
-		""")
-		Page<Item> searchByCardFilters(
-		    @Param("statuses") List<ItemStatus> statuses,
-		    @Param("cardName") String cardName,
-		    @Param("rarity") Rarity rarity,
-		    @Param("regulation") Regulation regulation,
-		    @Param("condition") CardCondition condition,
-		    @Param("packName") String packName,
-		    @Param("minPrice") BigDecimal minPrice,
-		    @Param("maxPrice") BigDecimal maxPrice,
-		    Pageable pageable);
-
-
+			SELECT i
+			FROM Item i
+			JOIN FETCH i.seller
+			LEFT JOIN FETCH i.category
+			LEFT JOIN FETCH i.cardInfo
+			LEFT JOIN FETCH i.images
+			WHERE i.id = :id
+			""")
+	Optional<Item> findWithDetailsById(@Param("id") Long id);
+
+	// ★ 画像アップロードの状態だけ（詳細画面のポーリング用。商品本体は読まない）
+	@Query("SELECT i.imageStatus FROM Item i WHERE i.id = :id")
+	Optional<ImageStatus> findImageStatusById(@Param("id") Long id);
+
+	// ★ 画像の状態が status の商品 id（起動時に、前回のプロセスで処理中だった PENDING を探す）
+	@Query("SELECT i.id FROM Item i WHERE i.imageStatus = :status")
+	List<Long> findIdsByImageStatus(@Param("status") ImageStatus status);
+
+	// ★ 画像の状態だけを from → to に（Item#version も進める：古い編集フォームで戻されないように）
+	@Modifying
+	@Query("""
+			UPDATE Item i
+			SET i.imageStatus = :to, i.version = i.version + 1
+			WHERE i.id IN :ids AND i.imageStatus = :from
+			""")
+	int updateImageStatus(
+			@Param("ids") List<Long> ids,
+			@Param("from") ImageStatus from,
+			@Param("to") ImageStatus to);
 
 	/* =========================
 	 * 出品者
@@ -90,11 +89,57 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
 			User seller,
 			ItemStatus status);
 
+	// 出品管理（/my-page/selling）用の軽量ビュー
+	@Query("""
+			SELECT new com.example.evolon.dto.ItemCardView(
+			    i.id, i.name, i.price, i.status, i.createdAt, img.url, img.thumbnailUrl,
+			    c.name, ci.rarity, ci.condition, COALESCE(s.nickname, s.name))
+			FROM Item i
+			JOIN i.seller s
+			LEFT JOIN i.category c
+			LEFT JOIN i.cardInfo ci
+			LEFT JOIN i.images img ON img.position = 0
+			WHERE s = :seller
+			ORDER BY i.createdAt DESC, i.id DESC
+			""")
+	List<ItemCardView> findCardViewsBySeller(@Param("seller") User seller);
+
+	/* =========================
+	 * お気に入り
+	 * ========================= */
+
+	// お気に入り一覧（/my-page/favorites）用の軽量ビュー（登録が新しい順）
+	@Query("""
+			SELECT new com.example.evolon.dto.ItemCardView(
+			    i.id, i.name, i.price, i.status, i.createdAt, img.url, img.thumbnailUrl,
+			    c.name, ci.rarity, ci.condition, COALESCE(s.nickname, s.name))
+			FROM FavoriteItem f
+			JOIN f.item i
+			JOIN i.seller s
+			LEFT JOIN i.category c
+			LEFT JOIN i.cardInfo ci
+			LEFT JOIN i.images img ON img.position = 0
+			WHERE f.user = :user
+			ORDER BY f.createdAt DESC, f.id DESC
+			""")
+	List<ItemCardView> findFavoriteCardViewsByUser(@Param("user") User user);
+
 	/* =========================
 	 * 管理・ダッシュボード用
 	 * ========================= */
 
+	// 管理者用：商品一覧（出品者・カテゴリ・カード情報を JOIN FETCH）
+	@Query("""
+			SELECT i
+			FROM Item i
+			JOIN FETCH i.seller
+			LEFT JOIN FETCH i.category
+			LEFT JOIN FETCH i.cardInfo
+			""")
+	List<Item> findAllWithDetails();
+
 	// 最近の出品商品
+	@EntityGraph(attributePaths = { "seller", "category", "cardInfo" })
 	List<Item> findTop5ByOrderByCreatedAtDesc();
 
 }
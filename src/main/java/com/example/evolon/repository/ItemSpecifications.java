@@ -0,0 +1,239 @@
+package com.example.evolon.repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.evolon.domain.SearchKeyNormalizer;
+import com.example.evolon.domain.enums.CardCondition;
+import com.example.evolon.domain.enums.Rarity;
+import com.example.evolon.domain.enums.Regulation;
+import com.example.evolon.dto.ItemCursor;
+import com.example.evolon.entity.CardInfo;
+import com.example.evolon.entity.Item;
+import com.example.evolon.entity.ItemStatus;
+
+/**
+ * Item 検索条件（Specification）の部品集
+ *
+ * 値が null / 空の条件は null を返すので、
+ * Specification.where(...).and(...) で繋げると「指定された条件だけ」の SQL になる。
+ */
+public class ItemSpecifications {
+
+	// LIKE のエスケープ文字
+	private static final char ESCAPE = '\\';
+
+	/** ステータス複数 */
+	public static Specification<Item> statusIn(List<ItemStatus> statuses) {
+		return (root, query, cb) -> root.get("status").in(statuses);
+	}
+
+	/** 商品名（部分一致・全角/半角・かな/カナ・大文字小文字を区別しない） */
+	public static Specification<Item> nameContains(String keyword) {
+		if (!hasText(keyword)) {
+			return null;
+		}
+		return (root, query, cb) -> cb.like(
+				root.get("nameKey"),
+				containsPattern(keyword), ESCAPE);
+	}
+
+	/** カテゴリ */
+	public static Specification<Item> categoryIs(Long categoryId) {
+		if (categoryId == null) {
+			return null;
+		}
+		return (root, query, cb) -> cb.equal(root.get("category").get("id"), categoryId);
+	}
+
+	/**
+	 * ★ カード条件検索（/items/search）の条件一式
+	 *
+	 * 指定された条件の述語・JOIN だけを出すので、
+	 * 「rarity だけ」等の組み合わせごとに PostgreSQL が専用のプランを選べる。
+	 */
+	public static Specification<Item> cardSearch(
+			List<ItemStatus> statuses,
+			String cardName,
+			Rarity rarity,
+			Regulation regulation,
+			CardCondition condition,
+			String packName,
+			BigDecimal minPrice,
+			BigDecimal maxPrice) {
+
+		return Specification
+				.where(statusIn(statuses))
+				.and(cardFilters(cardName, rarity, regulation, condition, packName))
+				.and(priceBetween(minPrice, maxPrice));
+	}
+
+	/**
+	 * カード条件（card_info）
+	 *
+	 * - JOIN は1回だけにしたいので、カード系の条件はまとめて1つの Specification にする
+	 * - 条件が1つでもあれば card_info は必須なので INNER JOIN
+	 *   （LEFT JOIN だと card_info 側のインデックスから item を引くプランが選ばれにくい）
+	 * - 条件が無ければ JOIN 自体しない
+	 */
+	public static Specification<Item> cardFilters(
+			String cardName,
+			Rarity rarity,
+			Regulation regulation,
+			CardCondition condition,
+			String packName) {
+
+		if (!hasText(cardName) && rarity == null && regulation == null
+				&& condition == null && !hasText(packName)) {
+			return null;
+		}
+
+		return (root, query, cb) -> {
+			Join<Item, CardInfo> ci = cardInfoJoin(root);
+
+			List<Predicate> predicates = new ArrayList<>();
+			if (hasText(cardName)) {
+				predicates.add(cb.like(ci.get("cardNameKey"), containsPattern(cardName), ESCAPE));
+			}
+			if (rarity != null) {
+				predicates.add(cb.equal(ci.get("rarity"), rarity));
+			}
+			if (regulation != null) {
+				predicates.add(cb.equal(ci.get("regulation"), regulation));
+			}
+			if (condition != null) {
+				predicates.add(cb.equal(ci.get("condition"), condition));
+			}
+			if (hasText(packName)) {
+				predicates.add(cb.like(ci.get("packNameKey"), containsPattern(packName), ESCAPE));
+			}
+			return cb.and(predicates.toArray(Predicate[]::new));
+		};
+	}
+
+	/** 価格帯 */
+	public static Specification<Item> priceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+		if (minPrice == null && maxPrice == null) {
+			return null;
+		}
+		return (root, query, cb) -> {
+			if (minPrice != null && maxPrice != null) {
+				return cb.between(root.get("price"), minPrice, maxPrice);
+			}
+			return minPrice != null
+					? cb.greaterThanOrEqualTo(root.get("price"), minPrice)
+					: cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+		};
+	}
+
+	/**
+	 * キーセット（シーク）条件：カーソルより「後ろ」の行だけに絞る
+	 *
+	 * ItemSortHelper.toKeysetSort と同じ (キー, id) の順序で比較する。
+	 *   new       : createdAt DESC, id DESC
+	 *   priceAsc  : price ASC,     id ASC
+	 *   priceDesc : price DESC,    id DESC
+	 */
+	public static Specification<Item> seekAfter(ItemCursor cursor) {
+		if (cursor == null) {
+			return null;
+		}
+
+		return (root, query, cb) -> {
+			switch (cursor.getSort()) {
+			case "priceAsc":
+				return cb.or(
+						cb.greaterThan(root.get("price"), cursor.getPrice()),
+						cb.and(
+								cb.equal(root.get("price"), cursor.getPrice()),
+								cb.greaterThan(root.get("id"), cursor.getId())));
+			case "priceDesc":
+				return cb.or(
+						cb.lessThan(root.get("price"), cursor.getPrice()),
+						cb.and(
+								cb.equal(root.get("price"), cursor.getPrice()),
+								cb.lessThan(root.get("id"), cursor.getId())));
+			default:
+				return cb.or(
+						cb.lessThan(root.get("createdAt"), cursor.getCreatedAt()),
+						cb.and(
+								cb.equal(root.get("createdAt"), cursor.getCreatedAt()),
+								cb.lessThan(root.get("id"), cursor.getId())));
+			}
+		};
+	}
+
+	/**
+	 * ★ 関連度順（sort=relevance）
+	 *
+	 * pg_trgm の similarity() が高い順に並べる。
+	 * カード名が指定されていればカード名、なければ商品名のキーワードで採点する。
+	 * 絞り込み自体は nameContains / cardFilters の LIKE（GIN trigram インデックス）で行う。
+	 */
+	public static Specification<Item> orderByRelevance(String keyword, String cardName) {
+
+		if (!hasText(keyword) && !hasText(cardName)) {
+			return null;
+		}
+
+		return (root, query, cb) -> {
+
+			// count クエリには並び順を付けない
+			if (Long.class.equals(query.getResultType())) {
+				return null;
+			}
+
+			Expression<String> target = hasText(cardName)
+					? cardInfoJoin(root).get("cardNameKey")
+					: root.get("nameKey");
+			String term = SearchKeyNormalizer.normalize(hasText(cardName) ? cardName : keyword);
+
+			Expression<Double> score = cb.function("similarity", Double.class, target, cb.literal(term));
+			query.orderBy(cb.desc(score), cb.desc(root.get("id")));
+			return null;
+		};
+	}
+
+	/**
+	 * card_info への JOIN（既に JOIN 済みならそれを使い回す）
+	 */
+	@SuppressWarnings("unchecked")
+	private static Join<Item, CardInfo> cardInfoJoin(Root<Item> root) {
+		for (Join<Item, ?> join : root.getJoins()) {
+			if ("cardInfo".equals(join.getAttribute().getName())) {
+				return (Join<Item, CardInfo>) join;
+			}
+		}
+		return root.join("cardInfo", JoinType.INNER);
+	}
+
+	/**
+	 * 部分一致用の LIKE パターン
+	 *
+	 * *_key 列と同じ SearchKeyNormalizer を通し、ワイルドカード文字はエスケープする。
+	 */
+	private static String containsPattern(String value) {
+		String escaped = SearchKeyNormalizer.normalize(value)
+				.replace("\\", "\\\\")
+				.replace("%", "\\%")
+				.replace("_", "\\_");
+		return "%" + escaped + "%";
+	}
+
+	private static boolean hasText(String value) {
+		return value != null && !value.isBlank();
+	}
+
+	// インスタンス化させない（ユーティリティクラス）
+	private ItemSpecifications() {
+	}
+}
@@ -38,10 +38,11 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
 	 * - order ごとに reviewer が2人いる（購入者 & 出品者）ことを条件にする
 	 * ========================= */
 
-	//  一覧：公開対象だけ（2者レビュー揃った注文のみ）
+	//  一覧：公開対象だけ（2者レビュー揃った注文のみ）。表示する評価者は JOIN FETCH
 	@Query("""
 				SELECT r
 				FROM Review r
+				JOIN FETCH r.reviewer
 				WHERE r.reviewee = :user
 				  AND r.order.id IN (
 				    SELECT r2.order.id
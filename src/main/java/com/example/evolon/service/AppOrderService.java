@@ -95,7 +95,7 @@ public class AppOrderService {
 			throw new IllegalStateException("決済が完了していません");
 		}
 
-		AppOrder order = appOrderRepository.findByPaymentIntentId(paymentIntentId)
+		AppOrder order = appOrderRepository.findWithDetailsByPaymentIntentId(paymentIntentId)
 				.orElseThrow(() -> new IllegalStateException("注文が見つかりません"));
 
 		if (order.getOrderStatus() != OrderStatus.PAYMENT_PENDING) {
@@ -203,18 +203,19 @@ public class AppOrderService {
 
 	/* =====================
 	 * 取得系（既存Controller互換）
+	 * - 画面で表示する関連（商品・出品者・購入者）は JOIN FETCH 済みで返す
 	 * ===================== */
 
 	public Optional<AppOrder> getOrderById(Long id) {
-		return appOrderRepository.findById(id);
+		return appOrderRepository.findWithDetailsById(id);
 	}
 
 	public List<AppOrder> findPurchasedOrdersByBuyer(User buyer) {
-		return appOrderRepository.findByBuyer(buyer);
+		return appOrderRepository.findWithItemByBuyer(buyer);
 	}
 
 	public List<AppOrder> findOrdersBySeller(User seller) {
-		return appOrderRepository.findByItem_Seller(seller);
+		return appOrderRepository.findWithItemAndBuyerBySeller(seller);
 	}
 
 	public List<AppOrder> getAllOrders() {
@@ -247,7 +248,7 @@ public class AppOrderService {
 	 * ===================== */
 
 	private AppOrder findOrder(Long id) {
-		return appOrderRepository.findById(id)
+		return appOrderRepository.findWithDetailsById(id)
 				.orElseThrow(() -> new IllegalArgumentException("注文が見つかりません"));
 	}
 
@@ -0,0 +1,357 @@
+package com.example.evolon.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.evolon.domain.SearchKeyNormalizer;
+import com.example.evolon.domain.enums.PrintedRegulation;
+import com.example.evolon.domain.enums.Rarity;
+import com.example.evolon.dto.CardMasterImportResult;
+import com.example.evolon.entity.CardMasterListener;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * card_master の一括取り込み（セットリストの CSV / JSON）
+ *
+ * - ファイルは1行（1オブジェクト）ずつ読む（全件をメモリに載せない）
+ * - 検証 NG の行は飛ばして理由を返す
+ * - JDBC バッチの INSERT ... ON CONFLICT (set_code, card_number) DO UPDATE で upsert
+ *   （1行ごとの exists + save の往復をしない）
+ * - ファイル1つを1トランザクションで取り込み、コミット後に CardMasterIndex を作り直させる
+ *
+ * CSV：1行目がヘッダ。set_code, card_number, card_name, rarity, printed_regulation は必須、pack_name は任意
+ * JSON：上記をキーに持つオブジェクトの配列（setCode のようなキャメルケースも可）
+ */
+@Slf4j
+@Service
+public class CardMasterImportService {
+
+	static final String UPSERT_SQL = """
+			INSERT INTO card_master
+			    (set_code, card_number, card_name, card_name_key, pack_name, rarity, printed_regulation)
+			VALUES (?, ?, ?, ?, ?, ?, ?)
+			ON CONFLICT (set_code, card_number) DO UPDATE SET
+			    card_name = EXCLUDED.card_name,
+			    card_name_key = EXCLUDED.card_name_key,
+			    pack_name = EXCLUDED.pack_name,
+			    rarity = EXCLUDED.rarity,
+			    printed_regulation = EXCLUDED.printed_regulation
+			""";
+
+	private static final int MAX_ERRORS = 20;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final ObjectMapper objectMapper;
+	private final int batchSize;
+
+	public CardMasterImportService(
+			JdbcTemplate jdbcTemplate,
+			PlatformTransactionManager transactionManager,
+			ObjectMapper objectMapper,
+			@Value("${evolon.card-master.import.batch-size:1000}") int batchSize) {
+
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.objectMapper = objectMapper;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * ディスク上のファイルから取り込む（CLI 用）
+	 */
+	public CardMasterImportResult importFile(Path file) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			return importStream(in, file.getFileName().toString());
+		}
+	}
+
+	/**
+	 * ストリームから取り込む（拡張子 .json なら JSON、それ以外は CSV）
+	 */
+	public CardMasterImportResult importStream(InputStream in, String fileName) throws IOException {
+
+		boolean json = fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(".json");
+		long started = System.nanoTime();
+
+		Importer importer = new Importer();
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				try {
+					if (json) {
+						readJson(in, importer);
+					} else {
+						readCsv(in, importer);
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				importer.flush();
+
+				// JPA を通らないので、コミット後にインデックスを作り直させる
+				CardMasterListener.markChanged();
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+		CardMasterImportResult result = new CardMasterImportResult(
+				fileName,
+				importer.rowsRead,
+				importer.rowsWritten,
+				importer.rowsSkipped,
+				List.copyOf(importer.errors),
+				elapsedMillis);
+
+		log.info("card_master import {}: read={}, written={}, skipped={}, {} ms ({} rows/s)",
+				fileName, result.getRowsRead(), result.getRowsWritten(), result.getRowsSkipped(),
+				elapsedMillis, result.getRowsPerSecond());
+		return result;
+	}
+
+	/* =========================
+	 * 読み込み
+	 * ========================= */
+
+	private void readCsv(InputStream in, Importer importer) throws IOException {
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+		String headerLine = reader.readLine();
+		if (headerLine == null) {
+			return;
+		}
+		if (!headerLine.isEmpty() && headerLine.charAt(0) == '\uFEFF') {
+			headerLine = headerLine.substring(1); // Excel 出力の BOM
+		}
+
+		List<String> header = splitCsvLine(headerLine);
+		for (int i = 0; i < header.size(); i++) {
+			header.set(i, normalizeKey(header.get(i)));
+		}
+
+		String line;
+		int lineNo = 1;
+		while ((line = reader.readLine()) != null) {
+			lineNo++;
+			if (line.isBlank()) {
+				continue;
+			}
+
+			List<String> cells = splitCsvLine(line);
+			Map<String, String> row = new HashMap<>();
+			for (int i = 0; i < header.size() && i < cells.size(); i++) {
+				row.put(header.get(i), cells.get(i));
+			}
+			importer.accept(lineNo + "行目", row);
+		}
+	}
+
+	private void readJson(InputStream in, Importer importer) throws IOException {
+
+		try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+
+			if (parser.nextToken() != JsonToken.START_ARRAY) {
+				throw new IOException("JSON はオブジェクトの配列にしてください");
+			}
+
+			int index = 0;
+			while (parser.nextToken() == JsonToken.START_OBJECT) {
+				index++;
+				Map<String, String> row = new HashMap<>();
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String key = normalizeKey(parser.currentName());
+					JsonToken value = parser.nextToken();
+					if (value.isStructStart()) {
+						parser.skipChildren();
+					} else if (value != JsonToken.VALUE_NULL) {
+						row.put(key, parser.getText());
+					}
+				}
+				importer.accept(index + "件目", row);
+			}
+		}
+	}
+
+	/**
+	 * CSV 1行の分割（"..." の中のカンマ・"" のエスケープに対応。改行を含むセルは非対応）
+	 */
+	static List<String> splitCsvLine(String line) {
+
+		List<String> cells = new ArrayList<>();
+		StringBuilder cell = new StringBuilder();
+		boolean quoted = false;
+
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"') {
+					if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+						cell.append('"');
+						i++;
+					} else {
+						quoted = false;
+					}
+				} else {
+					cell.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				cells.add(cell.toString());
+				cell.setLength(0);
+			} else {
+				cell.append(c);
+			}
+		}
+		cells.add(cell.toString());
+		return cells;
+	}
+
+	// set_code / setCode / SET_CODE → setcode
+	private static String normalizeKey(String key) {
+		return key.trim().replace("_", "").toLowerCase(Locale.ROOT);
+	}
+
+	/* =========================
+	 * 検証・バッチ書き込み
+	 * ========================= */
+
+	/**
+	 * 1ファイル分の状態（検証 → バッチにためる → batchSize ごとに upsert）
+	 */
+	private final class Importer {
+
+		// 同じバッチ内に同じキーが2回あると ON CONFLICT DO UPDATE がエラーになるので、後勝ちで1行にまとめる
+		private final Map<String, Row> pending = new LinkedHashMap<>();
+		private final List<String> errors = new ArrayList<>();
+
+		private int rowsRead;
+		private int rowsWritten;
+		private int rowsSkipped;
+
+		void accept(String position, Map<String, String> values) {
+
+			rowsRead++;
+
+			Row row;
+			try {
+				row = Row.of(values);
+			} catch (IllegalArgumentException e) {
+				rowsSkipped++;
+				if (errors.size() < MAX_ERRORS) {
+					errors.add(position + ": " + e.getMessage());
+				}
+				return;
+			}
+
+			pending.put(row.setCode() + '\u0000' + row.cardNumber(), row);
+			if (pending.size() >= batchSize) {
+				flush();
+			}
+		}
+
+		void flush() {
+
+			if (pending.isEmpty()) {
+				return;
+			}
+
+			List<Row> rows = new ArrayList<>(pending.values());
+			jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, r) -> {
+				ps.setString(1, r.setCode());
+				ps.setString(2, r.cardNumber());
+				ps.setString(3, r.cardName());
+				ps.setString(4, SearchKeyNormalizer.normalize(r.cardName()));
+				ps.setString(5, r.packName());
+				ps.setString(6, r.rarity().name());
+				ps.setString(7, r.printedRegulation().name());
+			});
+
+			rowsWritten += rows.size();
+			pending.clear();
+		}
+	}
+
+	/**
+	 * 検証済みの1行
+	 */
+	record Row(
+			String setCode,
+			String cardNumber,
+			String cardName,
+			String packName,
+			Rarity rarity,
+			PrintedRegulation printedRegulation) {
+
+		static Row of(Map<String, String> values) {
+
+			// スキャナ（CardNumberScanner）と同じく全角 → 半角・小文字に揃える（「ＳＶ８ａ」「SV8a」→ sv8a）
+			String setCode = SearchKeyNormalizer.normalize(required(values, "setcode", "set_code"));
+			String cardNumber = CardMasterIndex.stripWhitespace(required(values, "cardnumber", "card_number"));
+			String cardName = required(values, "cardname", "card_name");
+			String packName = trimToNull(values.get("packname"));
+
+			Rarity rarity = parseEnum(Rarity.class, required(values, "rarity", "rarity"), "rarity");
+			PrintedRegulation regulation = parseEnum(PrintedRegulation.class,
+					required(values, "printedregulation", "printed_regulation"), "printed_regulation");
+
+			// card_master の列長（schema.sql）
+			if (setCode.length() > 20 || cardNumber.length() > 20) {
+				throw new IllegalArgumentException("set_code / card_number は20文字以内です");
+			}
+			if (cardName.length() > 255 || (packName != null && packName.length() > 255)) {
+				throw new IllegalArgumentException("card_name / pack_name は255文字以内です");
+			}
+
+			return new Row(setCode, cardNumber, cardName, packName, rarity, regulation);
+		}
+
+		private static String required(Map<String, String> values, String key, String label) {
+			String value = trimToNull(values.get(key));
+			if (value == null) {
+				throw new IllegalArgumentException(label + " がありません");
+			}
+			return value;
+		}
+
+		private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String label) {
+			try {
+				return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException(label + " が不正です: " + value);
+			}
+		}
+
+		private static String trimToNull(String value) {
+			if (value == null) {
+				return null;
+			}
+			String trimmed = value.trim();
+			return trimmed.isEmpty() ? null : trimmed;
+		}
+	}
+}
@@ -0,0 +1,244 @@
+package com.example.evolon.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.evolon.domain.BkTree;
+import com.example.evolon.domain.OcrEditDistance;
+import com.example.evolon.dto.CardMasterCandidate;
+import com.example.evolon.entity.CardMaster;
+import com.example.evolon.entity.CardMasterListener;
+import com.example.evolon.repository.CardMasterRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * card_master のメモリ上インデックス（読み取り専用スナップショット）
+ *
+ * - (setCode, cardNumber) → CardMaster、setCode → 一覧 の2つのハッシュ表
+ * - 起動完了時に全件読み込み、card_master が変わったら（CardMasterListener の世代番号）
+ *   次の検索時に作り直して参照を差し替える（検索側はロック不要）
+ * - 返す CardMaster は全スレッドで共有するので変更しないこと
+ * - ★ あいまい検索（findSimilar）用に、セットコードの BK-tree と
+ *   セットコードごとのカード番号の BK-tree も同じスナップショットに持つ（OcrEditDistance）
+ *
+ * メトリクス：evolon.cardmaster.index.lookups（result=hit/miss/similar_hit/similar_miss）、
+ *            evolon.cardmaster.index.size
+ */
+@Component
+public class CardMasterIndex {
+
+	private final CardMasterRepository cardMasterRepository;
+
+	private final Counter hits;
+	private final Counter misses;
+	private final Counter similarHits;
+	private final Counter similarMisses;
+
+	// 世代 -1 = 未読み込み（最初の検索か起動完了時に読み込む）
+	private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+	public CardMasterIndex(CardMasterRepository cardMasterRepository, MeterRegistry meterRegistry) {
+		this.cardMasterRepository = cardMasterRepository;
+
+		this.hits = Counter.builder("evolon.cardmaster.index.lookups")
+				.tag("result", "hit")
+				.register(meterRegistry);
+		this.misses = Counter.builder("evolon.cardmaster.index.lookups")
+				.tag("result", "miss")
+				.register(meterRegistry);
+		this.similarHits = Counter.builder("evolon.cardmaster.index.lookups")
+				.tag("result", "similar_hit")
+				.register(meterRegistry);
+		this.similarMisses = Counter.builder("evolon.cardmaster.index.lookups")
+				.tag("result", "similar_miss")
+				.register(meterRegistry);
+		Gauge.builder("evolon.cardmaster.index.size", this, index -> index.snapshot.byNumber().size())
+				.register(meterRegistry);
+	}
+
+	/**
+	 * (setCode, cardNumber) で検索（setCode の大文字小文字・cardNumber の空白は無視）
+	 */
+	public Optional<CardMaster> find(String setCode, String cardNumber) {
+
+		CardMaster found = current().byNumber().get(key(setCode, stripWhitespace(cardNumber)));
+
+		(found != null ? hits : misses).increment();
+		return Optional.ofNullable(found);
+	}
+
+	/**
+	 * ★ あいまい検索：OCR の読み間違い（sv8e / 2l2/187 等）を含む (setCode, cardNumber) に近いカード
+	 *
+	 * 距離（セットコード分＋カード番号分）が maxDistance 以内のものを近い順に最大 limit 件。
+	 * セットコードが近いセットだけ、残りの距離の範囲でカード番号の木を引く。
+	 * 半径 0 から1ずつ広げ、limit 件そろうか、最も近い候補より1つ遠い半径まで見た時点で打ち切る
+	 * （読み間違い1〜2文字なら狭い半径で済み、遠い候補のために全セットを見ることはない）
+	 */
+	public List<CardMasterCandidate> findSimilar(String setCode, String cardNumber, int maxDistance, int limit) {
+
+		if (setCode == null || cardNumber == null) {
+			return List.of();
+		}
+
+		Snapshot s = current();
+		String set = foldSetCode(setCode);
+		String number = foldNumber(cardNumber);
+
+		List<CardMasterCandidate> candidates = new ArrayList<>();
+		int stopAt = maxDistance;
+		for (int radius = 0; radius <= stopAt && candidates.size() < limit; radius++) {
+			candidates.clear();
+			for (BkTree.Match<String> setMatch : s.setCodeTree().search(set, radius)) {
+				BkTree<CardMaster> numbers = s.numberTrees().get(setMatch.value());
+				for (BkTree.Match<CardMaster> m : numbers.search(number, radius - setMatch.distance())) {
+					int distance = setMatch.distance() + m.distance();
+					candidates.add(new CardMasterCandidate(m.value(), distance));
+					stopAt = Math.min(stopAt, distance + 1);
+				}
+			}
+		}
+
+		candidates.sort(Comparator.comparingInt(CardMasterCandidate::getDistance)
+				.thenComparing(c -> c.getCard().getSetCode())
+				.thenComparing(c -> c.getCard().getCardNumber()));
+
+		(candidates.isEmpty() ? similarMisses : similarHits).increment();
+		return candidates.size() > limit ? List.copyOf(candidates.subList(0, limit)) : candidates;
+	}
+
+	/**
+	 * setCode のカード一覧（無ければ空）
+	 */
+	public List<CardMaster> findBySetCode(String setCode) {
+		return current().bySetCode().getOrDefault(foldSetCode(setCode), List.of());
+	}
+
+	/**
+	 * 全件
+	 */
+	public Collection<CardMaster> all() {
+		return current().byNumber().values();
+	}
+
+	/**
+	 * 起動完了時に読み込んでおく（Init*Runner の投入後）
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUp() {
+		reload();
+	}
+
+	/**
+	 * 強制的に作り直す
+	 */
+	public synchronized void reload() {
+
+		// 読み込み中に変更がコミットされた場合は、次の検索でもう一度作り直す
+		long generation = CardMasterListener.generation();
+
+		Map<String, CardMaster> byNumber = new HashMap<>();
+		Map<String, List<CardMaster>> bySetCode = new HashMap<>();
+		Map<String, BkTree<CardMaster>> numberTrees = new HashMap<>();
+
+		for (CardMaster cm : cardMasterRepository.findAll()) {
+			String setCode = foldSetCode(cm.getSetCode());
+			byNumber.put(key(cm.getSetCode(), stripWhitespace(cm.getCardNumber())), cm);
+			bySetCode.computeIfAbsent(setCode, k -> new ArrayList<>()).add(cm);
+			numberTrees.computeIfAbsent(setCode, k -> new BkTree<>(OcrEditDistance::distance))
+					.add(foldNumber(cm.getCardNumber()), cm);
+		}
+		bySetCode.replaceAll((k, v) -> List.copyOf(v));
+
+		BkTree<String> setCodeTree = new BkTree<>(OcrEditDistance::distance);
+		numberTrees.keySet().forEach(setCode -> setCodeTree.add(setCode, setCode));
+
+		snapshot = new Snapshot(generation, Map.copyOf(byNumber), Map.copyOf(bySetCode),
+				setCodeTree, Map.copyOf(numberTrees));
+	}
+
+	private Snapshot current() {
+		Snapshot s = snapshot;
+		if (s.generation() != CardMasterListener.generation()) {
+			synchronized (this) {
+				s = snapshot;
+				if (s.generation() != CardMasterListener.generation()) {
+					reload();
+					s = snapshot;
+				}
+			}
+		}
+		return s;
+	}
+
+	private static String key(String setCode, String cardNumber) {
+		return foldSetCode(setCode) + '\u0000' + cardNumber;
+	}
+
+	/**
+	 * あいまい検索用のカード番号（空白除去・小文字）
+	 */
+	private static String foldNumber(String cardNumber) {
+		return stripWhitespace(cardNumber).toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * セットコードは大文字小文字を区別しない（"m1L" と OCR / 手入力の "m1l" を同じにする）
+	 */
+	private static String foldSetCode(String setCode) {
+		return setCode == null ? null : setCode.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * 空白除去（正規表現を使わず、空白が無ければ同じインスタンスを返す）
+	 */
+	static String stripWhitespace(String value) {
+
+		if (value == null) {
+			return null;
+		}
+
+		int length = value.length();
+		int i = 0;
+		while (i < length && !Character.isWhitespace(value.charAt(i))) {
+			i++;
+		}
+		if (i == length) {
+			return value;
+		}
+
+		StringBuilder sb = new StringBuilder(length);
+		sb.append(value, 0, i);
+		for (; i < length; i++) {
+			char c = value.charAt(i);
+			if (!Character.isWhitespace(c)) {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	private record Snapshot(
+			long generation,
+			Map<String, CardMaster> byNumber,
+			Map<String, List<CardMaster>> bySetCode,
+			BkTree<String> setCodeTree,
+			Map<String, BkTree<CardMaster>> numberTrees) {
+
+		static final Snapshot EMPTY = new Snapshot(-1, Map.of(), Map.of(),
+				new BkTree<>(OcrEditDistance::distance), Map.of());
+	}
+}
@@ -1,9 +1,13 @@
 package com.example.evolon.service;
 
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.example.evolon.domain.SearchKeyNormalizer;
+import com.example.evolon.dto.CardMasterCandidate;
 import com.example.evolon.dto.ParsedCardNumber;
 import com.example.evolon.entity.CardMaster;
 import com.example.evolon.repository.CardMasterRepository;
@@ -12,13 +16,29 @@ import com.example.evolon.repository.CardMasterRepository;
 public class CardMasterService {
 
 	private final CardMasterRepository cardMasterRepository;
+	private final CardMasterIndex cardMasterIndex;
 
-	public CardMasterService(CardMasterRepository cardMasterRepository) {
+	// あいまい検索で候補に出す距離の上限 / 候補が1件に絞れたとき自動で採用する距離の上限
+	private final int similarMaxDistance;
+	private final int similarAcceptDistance;
+
+	public CardMasterService(
+			CardMasterRepository cardMasterRepository,
+			CardMasterIndex cardMasterIndex,
+			@Value("${evolon.card-master.similar.max-distance:4}") int similarMaxDistance,
+			@Value("${evolon.card-master.similar.accept-distance:2}") int similarAcceptDistance) {
 		this.cardMasterRepository = cardMasterRepository;
+		this.cardMasterIndex = cardMasterIndex;
+		this.similarMaxDistance = similarMaxDistance;
+		this.similarAcceptDistance = similarAcceptDistance;
 	}
 
 	/**
-	 * ParsedCardNumber から card_master を検索
+	 * ParsedCardNumber から card_master を検索（完全一致のみ：手入力の auto-fill 用）
+	 *
+	 * auto-fill（入力のたび）・OCR から呼ばれるので DB ではなくメモリ上のインデックスを引く。
+	 * カード番号の空白はインデックス側で除去する。
+	 * 手入力の打ち間違い（212 → 213）は別のカードなので、近いカードに置き換えない
 	 */
 	public Optional<CardMaster> findByParsedNumber(ParsedCardNumber parsed) {
 
@@ -26,12 +46,58 @@ public class CardMasterService {
 			return Optional.empty();
 		}
 
-		// カード番号を正規化（空白削除）
-		String cardNumberNormalized = parsed.getCardNumber().replaceAll("\\s+", "");
-
-		return cardMasterRepository.findBySetCodeAndCardNumber(
+		return cardMasterIndex.find(
 				parsed.getSetCode(),
-				cardNumberNormalized);
+				parsed.getCardNumber());
+	}
+
+	/**
+	 * OCR 結果から card_master を検索
+	 *
+	 * ★ 完全一致が無いときは OCR の読み間違い（sv8e / 2l2/187 等）とみなしてあいまい検索し、
+	 *   距離 similarAcceptDistance 以内で一番近い候補が1件に決まる場合だけそれを返す
+	 *   （同じ距離の候補が複数あるときは誤ったカードを入れないよう返さない）
+	 */
+	public Optional<CardMaster> findByOcrNumber(ParsedCardNumber parsed) {
+
+		Optional<CardMaster> exact = findByParsedNumber(parsed);
+		if (exact.isPresent() || parsed == null || !parsed.isValid()) {
+			return exact;
+		}
+
+		List<CardMasterCandidate> candidates = cardMasterIndex.findSimilar(
+				parsed.getSetCode(), parsed.getCardNumber(), similarAcceptDistance, 2);
+
+		boolean unique = candidates.size() == 1
+				|| (candidates.size() > 1 && candidates.get(0).getDistance() < candidates.get(1).getDistance());
+
+		return unique ? Optional.of(candidates.get(0).getCard()) : Optional.empty();
+	}
+
+	/**
+	 * 近いカードの候補（近い順、最大 limit 件）：自動で決まらなかったときに画面で選ばせる用
+	 */
+	public List<CardMasterCandidate> findCandidates(ParsedCardNumber parsed, int limit) {
+
+		if (parsed == null || !parsed.isValid()) {
+			return List.of();
+		}
+
+		return cardMasterIndex.findSimilar(
+				parsed.getSetCode(), parsed.getCardNumber(), similarMaxDistance, limit);
+	}
+
+	/**
+	 * カード名で card_master を検索（全角/半角・かな/カナの揺れを吸収）
+	 */
+	public List<CardMaster> searchByCardName(String cardName) {
+
+		String key = SearchKeyNormalizer.normalize(cardName);
+		if (key == null || key.isEmpty()) {
+			return List.of();
+		}
+
+		return cardMasterRepository.findTop20ByCardNameKeyContainingOrderByCardNameKey(key);
 	}
 
 }
@@ -1,38 +1,32 @@
 package com.example.evolon.service;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.example.evolon.domain.CardNumberScanner;
 import com.example.evolon.dto.ParsedCardNumber;
 
+/**
+ * テキスト → setCode / cardNumber
+ *
+ * 手入力の自動入力（/items/auto-fill）と OCR 結果（OcrService）の両方がここを通る。
+ * セットコードの文法は evolon.card-number.* で変更できる（CardNumberScanner 参照）
+ */
 @Service
 public class CardNumberParserService {
 
-	private static final Pattern SET_CODE_PATTERN = Pattern.compile("sv[0-9]+[a-z]");
+	private final CardNumberScanner scanner;
 
-	private static final Pattern CARD_NUMBER_PATTERN = Pattern.compile("\\d{1,3}\\s*/\\s*\\d{1,3}");
-
-	public ParsedCardNumber parse(String text) {
-
-		String normalized = normalize(text);
-
-		String setCode = extract(SET_CODE_PATTERN, normalized);
-		String cardNumber = extract(CARD_NUMBER_PATTERN, normalized);
-
-		return new ParsedCardNumber(setCode, cardNumber);
-	}
-
-	private String normalize(String text) {
-		return text
-				.toLowerCase()
-				.replaceAll("[\\s　]+", "") // 半角・全角スペースをまとめて削除
-				.replace("／", "/"); // 全角スラッシュを半角に
+	public CardNumberParserService(
+			@Value("${evolon.card-number.set-code-prefixes:sv,m}") List<String> setCodePrefixes,
+			@Value("${evolon.card-number.set-code-max-length:6}") int maxSetCodeLength,
+			@Value("${evolon.card-number.regulation-marks:DEFGHIJK}") String regulationMarks) {
+		this.scanner = new CardNumberScanner(setCodePrefixes, maxSetCodeLength, regulationMarks);
 	}
 
-	private String extract(Pattern pattern, String text) {
-		Matcher matcher = pattern.matcher(text);
-		return matcher.find() ? matcher.group() : null;
+	public ParsedCardNumber parse(String text) {
+		return scanner.scan(text);
 	}
 }
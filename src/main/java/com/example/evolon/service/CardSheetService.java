@@ -0,0 +1,155 @@
+package com.example.evolon.service;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.evolon.domain.CardGridDetector;
+import com.example.evolon.domain.CardGridDetector.Cell;
+import com.example.evolon.dto.DetectedCard;
+import com.example.evolon.dto.ParsedCardNumber;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ★ バインダー1ページ（9枚など）の写真から、カードごとのカード番号をまとめて読む
+ *
+ * ① 写真は1回だけデコード（OcrImagePreprocessor.decode）
+ * ② カードの矩形を検出（CardGridDetector、ローカル処理）
+ * ③ カードごとの番号帯（下部 28%）の切り出し・グレー化を専用の ForkJoinPool で並列に
+ * ④ 全カード分の番号帯を OcrService.extractCardNumbersFromGray で1回の batchAnnotateImages に載せる
+ *    （images-per-call 以下の枚数なら Vision の往復は1回、キャッシュ済みの番号帯は送らない）
+ *
+ * メトリクス：evolon.ocr.sheet.cells（result=detected / fallback：検出できたか、均等割りか）
+ */
+@Slf4j
+@Service
+public class CardSheetService {
+
+	private final OcrService ocrService;
+	private final OcrImagePreprocessor preprocessor;
+
+	private final ForkJoinPool pool;
+
+	// これより大きい写真はデコード時に間引く
+	private final int maxPhotoWidth;
+
+	// 検出できなかったときの均等割り
+	private final int fallbackRows;
+	private final int fallbackCols;
+
+	private final Counter detectedCells;
+	private final Counter fallbackCells;
+
+	public CardSheetService(
+			OcrService ocrService,
+			OcrImagePreprocessor preprocessor,
+			MeterRegistry meterRegistry,
+			@Value("${evolon.ocr.sheet.parallelism:0}") int parallelism,
+			@Value("${evolon.ocr.sheet.max-photo-width:4800}") int maxPhotoWidth,
+			@Value("${evolon.ocr.sheet.fallback-rows:3}") int fallbackRows,
+			@Value("${evolon.ocr.sheet.fallback-cols:3}") int fallbackCols) {
+		this.ocrService = ocrService;
+		this.preprocessor = preprocessor;
+		this.maxPhotoWidth = maxPhotoWidth;
+		this.fallbackRows = fallbackRows;
+		this.fallbackCols = fallbackCols;
+
+		// 0 以下 = CPU 数
+		int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+		this.pool = new ForkJoinPool(threads, CardSheetService::newWorker, null, false);
+
+		this.detectedCells = Counter.builder("evolon.ocr.sheet.cells")
+				.tag("result", "detected")
+				.register(meterRegistry);
+		this.fallbackCells = Counter.builder("evolon.ocr.sheet.cells")
+				.tag("result", "fallback")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * 写真1枚 → 見つかったカードごとの番号（左上から行順）
+	 *
+	 * 番号が読めなかったカードも ParsedCardNumber.invalid() で返す（位置は分かるので画面で手入力できる）
+	 */
+	public List<DetectedCard> extract(MultipartFile photo) throws IOException {
+
+		BufferedImage image;
+		try (InputStream in = photo.getInputStream()) {
+			image = preprocessor.decode(in, maxPhotoWidth);
+		}
+
+		CardGridDetector.Result grid = CardGridDetector.detect(image, fallbackRows, fallbackCols);
+		(grid.detected() ? detectedCells : fallbackCells).increment(grid.cells().size());
+		log.info("バインダー写真 {}x{} → {}行 × {}列（{}）",
+				image.getWidth(), image.getHeight(), grid.rows(), grid.cols(),
+				grid.detected() ? "検出" : "均等割り");
+
+		List<ParsedCardNumber> parsed = ocrService.extractCardNumbersFromGray(cropStrips(image, grid.cells()));
+
+		List<DetectedCard> cards = new ArrayList<>(grid.cells().size());
+		for (int i = 0; i < grid.cells().size(); i++) {
+			Cell cell = grid.cells().get(i);
+			Rectangle b = cell.bounds();
+			cards.add(new DetectedCard(cell.row(), cell.col(), b.x, b.y, b.width, b.height, parsed.get(i)));
+		}
+		return cards;
+	}
+
+	/* =========================
+	 * ③ 番号帯の切り出し（カードごとに並列）
+	 * 元画像は読むだけなので共有してよい。失敗したカードは null（→ invalid）
+	 * ========================= */
+	List<BufferedImage> cropStrips(BufferedImage image, List<Cell> cells) {
+
+		List<ForkJoinTask<BufferedImage>> tasks = new ArrayList<>(cells.size());
+		for (Cell cell : cells) {
+			tasks.add(pool.submit(() -> numberStrip(image, cell.bounds())));
+		}
+
+		List<BufferedImage> strips = new ArrayList<>(cells.size());
+		for (int i = 0; i < tasks.size(); i++) {
+			try {
+				strips.add(tasks.get(i).join());
+			} catch (RuntimeException ex) {
+				log.warn("番号帯の切り出し失敗 (#{}): {}", i, ex.getMessage());
+				strips.add(null);
+			}
+		}
+		return strips;
+	}
+
+	private BufferedImage numberStrip(BufferedImage image, Rectangle card) {
+
+		int top = card.y + (int) (card.height * OcrImagePreprocessor.CROP_FROM);
+		Rectangle strip = new Rectangle(card.x, top, card.width, card.y + card.height - top);
+
+		return OcrImagePreprocessor.toGray(image, strip, preprocessor.stepFor(strip.width));
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		pool.shutdownNow();
+	}
+
+	private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+		ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+		thread.setName("ocr-sheet-" + thread.getPoolIndex());
+		thread.setDaemon(true);
+		return thread;
+	}
+}
@@ -32,9 +32,8 @@ public class ChatService {
 	 * 商品に紐づくチャット一覧を取得（古い順）
 	 */
 	public List<Chat> getChatMessagesByItem(Long itemId) {
-		Item item = itemRepository.findById(itemId)
-				.orElseThrow(() -> new IllegalArgumentException("Item not found"));
-		return chatRepository.findByItemOrderByCreatedAtAsc(item);
+		// 送信者は JOIN FETCH 済み（商品の存在チェックは呼び出し側で商品を取得済み）
+		return chatRepository.findWithSenderByItemId(itemId);
 	}
 
 	/**
@@ -43,8 +42,8 @@ public class ChatService {
 	 */
 	public Chat sendMessage(Long itemId, User sender, String message) {
 
-		// 商品存在チェック
-		Item item = itemRepository.findById(itemId)
+		// 商品存在チェック（通知先の出品者も一緒に取得）
+		Item item = itemRepository.findWithDetailsById(itemId)
 				.orElseThrow(() -> new IllegalArgumentException("Item not found"));
 
 		// ===== 購入済みガード（最重要） =====
@@ -1,22 +1,64 @@
 package com.example.evolon.service;
 
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.annotation.PreDestroy;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
 /**
- * Cloudinary 画像アップロード用サービス
- * 
- * ・同時アップロードを1件に制限
- * ・短時間の連続アップロードを抑制（レート制限対策）
+ * Cloudinary 画像アップロード用サービス（ImageStorage の既定：evolon.images.storage=cloudinary）
+ *
+ * ・アップロードは専用のスレッドプール（cloudinary.upload.threads / queue-capacity）で並列に行う
+ *   → 1出品の複数画像は同時に送り、リクエストは自分の画像の完了だけを待つ
+ * ・Cloudinary のレート制限はトークンバケットで守る
+ *   （cloudinary.upload.rate 件/秒、cloudinary.upload.burst 件まで連続可。契約プランに合わせて設定）
+ * ・行列が満杯・トークン待ちが cloudinary.upload.max-wait を超える場合は待たずに
+ *   「画像アップロードが集中しています」（IllegalStateException）
+ * ・★ 画像はヒープに載せない：ディスク上のファイル（File）を渡し、SDK（Apache HttpClient の FileBody）が
+ *   固定長バッファでストリーム送信する（multipart のパートは ItemImagePipeline が一時ファイルへ退避済み）
+ *
+ * メトリクス：evolon.cloudinary.upload（outcome=success/failed）、
+ *            evolon.cloudinary.upload.throttle（トークン待ち時間）、evolon.cloudinary.upload.queue.depth、
+ *            evolon.cloudinary.upload.size（画像サイズ）、evolon.cloudinary.upload.allocated（1枚あたりのヒープ割り当て量）
  */
+@Slf4j
 @Service
-public class CloudinaryService {
+@ConditionalOnProperty(name = "evolon.images.storage", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryService implements ImageStorage {
+
+	private static final String BUSY_MESSAGE = "画像アップロードが集中しています。少し時間を置いて再度お試しください。";
+
+	// delete_resources 1回あたりの上限
+	private static final int DELETE_BATCH = 100;
+
+	// スレッドごとのヒープ割り当て量（HotSpot 以外で取れない場合は null）
+	private static final com.sun.management.ThreadMXBean THREAD_MX = threadMxBean();
 
 	// Cloudinary クライアント
 	private final Cloudinary cloudinary;
@@ -24,21 +66,35 @@ public class CloudinaryService {
 	// Cloudinary 有効/無効フラグ
 	private final boolean enabled;
 
-	// アップロード間隔（ミリ秒）
-	// Free プラン対策：500ms 推奨
-	private static final long UPLOAD_INTERVAL_MS = 500;
+	// レート制限
+	private final TokenBucket rateLimiter;
+	private final Duration maxWait;
+
+	// アップロード用スレッドプールと、1リクエストが自分の画像を待つ上限
+	private final ThreadPoolExecutor executor;
+	private final Duration timeout;
 
-	// 前回アップロード時刻
-	private long lastUploadTime = 0L;
+	private final Timer successTimer;
+	private final Timer failedTimer;
+	private final Timer throttleTimer;
+	private final DistributionSummary uploadSize;
+	private final DistributionSummary uploadAllocated;
 
 	/**
 	 * Cloudinary 設定を application.properties から注入
 	 */
 	public CloudinaryService(
+			MeterRegistry meterRegistry,
 			@Value("${cloudinary.cloud_name:}") String cloudName,
 			@Value("${cloudinary.api_key:}") String apiKey,
 			@Value("${cloudinary.api_secret:}") String apiSecret,
-			@Value("${cloudinary.enabled:false}") boolean enabled) {
+			@Value("${cloudinary.enabled:false}") boolean enabled,
+			@Value("${cloudinary.upload.rate:2}") double ratePerSecond,
+			@Value("${cloudinary.upload.burst:8}") int burst,
+			@Value("${cloudinary.upload.max-wait:10s}") Duration maxWait,
+			@Value("${cloudinary.upload.threads:8}") int threads,
+			@Value("${cloudinary.upload.queue-capacity:64}") int queueCapacity,
+			@Value("${cloudinary.upload.timeout:60s}") Duration timeout) {
 
 		this.enabled = enabled;
 
@@ -50,55 +106,207 @@ public class CloudinaryService {
 		} else {
 			this.cloudinary = null;
 		}
+
+		this.rateLimiter = new TokenBucket(ratePerSecond, burst);
+		this.maxWait = maxWait;
+		this.timeout = timeout;
+
+		this.executor = new ThreadPoolExecutor(
+				threads, threads,
+				60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(queueCapacity),
+				new NamedThreadFactory("cloudinary-upload-"),
+				new ThreadPoolExecutor.AbortPolicy());
+		this.executor.allowCoreThreadTimeOut(true);
+
+		Gauge.builder("evolon.cloudinary.upload.queue.depth", executor, e -> e.getQueue().size())
+				.register(meterRegistry);
+		this.successTimer = Timer.builder("evolon.cloudinary.upload")
+				.tag("outcome", "success")
+				.register(meterRegistry);
+		this.failedTimer = Timer.builder("evolon.cloudinary.upload")
+				.tag("outcome", "failed")
+				.register(meterRegistry);
+		this.throttleTimer = Timer.builder("evolon.cloudinary.upload.throttle")
+				.description("レート制限のトークン待ち時間")
+				.register(meterRegistry);
+		this.uploadSize = DistributionSummary.builder("evolon.cloudinary.upload.size")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+		this.uploadAllocated = DistributionSummary.builder("evolon.cloudinary.upload.allocated")
+				.description("1枚のアップロード中にアップロード用スレッドが割り当てたヒープ量（画像サイズに比例しないこと）")
+				.baseUnit("bytes")
+				.register(meterRegistry);
 	}
 
 	/**
-	 * 画像を Cloudinary にアップロードし、公開 URL を返す
-	 * 
-	 * ・synchronized により同時アップロードを防止
-	 * ・アップロード間隔を制御し、レート制限を回避
+	 * ★ 一時ファイルから並列にアップロードし、引数と同じ順番で公開 URL を返す（ItemImagePipeline 用）
+	 *
+	 * null の要素（と無効時）は null。
+	 * 1枚でも失敗したら、このリクエストで上がった分は消してから例外（中途半端な画像を残さない）
 	 */
-	public synchronized String uploadFile(MultipartFile file) {
+	@Override
+	public List<String> store(List<Path> files) {
+		return uploadAll(files);
+	}
 
-		// 無効時・空ファイルはアップロードしない
-		if (!enabled || file == null || file.isEmpty()) {
-			return null;
+	@Override
+	public void delete(String url) {
+		deleteFile(url);
+	}
+
+	/**
+	 * ★ まとめて削除（Admin API の delete_resources：1回 100件まで）
+	 */
+	@Override
+	public void deleteAll(List<String> urls) {
+
+		if (!enabled) {
+			return;
+		}
+
+		List<String> publicIds = new ArrayList<>(urls.size());
+		for (String url : urls) {
+			String publicId = publicIdOf(url);
+			if (publicId != null) {
+				publicIds.add(publicId);
+			}
 		}
 
+		for (int from = 0; from < publicIds.size(); from += DELETE_BATCH) {
+			List<String> batch = publicIds.subList(from, Math.min(from + DELETE_BATCH, publicIds.size()));
+			try {
+				cloudinary.api().deleteResources(batch, ObjectUtils.emptyMap());
+			} catch (Exception e) {
+				// 消し残しは手で消せるよう public_id も残す
+				log.warn("Cloudinary 一括削除失敗（{}件）: {}", batch.size(), batch, e);
+			}
+		}
+	}
+
+	private List<String> uploadAll(List<Path> files) {
+
+		// 失敗・タイムアウトしたら立てる（まだ始まっていない分は送らない）
+		AtomicBoolean abandoned = new AtomicBoolean();
+
+		List<CompletableFuture<String>> futures = new ArrayList<>(files.size());
 		try {
-			// 前回アップロードから一定時間経過するまで待機
-			long now = System.currentTimeMillis();
-			long waitTime = UPLOAD_INTERVAL_MS - (now - lastUploadTime);
-			if (waitTime > 0) {
-				Thread.sleep(waitTime);
+			for (Path file : files) {
+				futures.add(enabled && file != null
+						? CompletableFuture.supplyAsync(() -> abandoned.get() ? null : upload(file), executor)
+						: CompletableFuture.completedFuture(null));
 			}
+		} catch (RejectedExecutionException ex) {
+			discard(futures, abandoned);
+			throw new IllegalStateException(BUSY_MESSAGE, ex);
+		}
+
+		try {
+			CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+					.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+		} catch (ExecutionException ex) {
+			discard(futures, abandoned);
+			throw ex.getCause() instanceof IllegalStateException ise
+					? ise
+					: new IllegalStateException("画像アップロードに失敗しました", ex.getCause());
 
-			// Cloudinary へアップロード
+		} catch (TimeoutException ex) {
+			discard(futures, abandoned);
+			throw new IllegalStateException(BUSY_MESSAGE, ex);
+
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			discard(futures, abandoned);
+			throw new IllegalStateException("画像アップロードが中断されました", ex);
+		}
+
+		return futures.stream().map(CompletableFuture::join).toList();
+	}
+
+	/* =========================
+	 * 1枚分（アップロード用スレッドで実行）
+	 * ========================= */
+	private String upload(Path path) {
+
+		long start = System.nanoTime();
+		long allocatedBefore = allocatedBytes();
+		try {
+			// レート制限：トークンが取れるまで待つ（待ちすぎるなら諦める）
+			if (!rateLimiter.acquire(maxWait)) {
+				throw new IllegalStateException(BUSY_MESSAGE);
+			}
+			long uploadStart = System.nanoTime();
+			throttleTimer.record(uploadStart - start, TimeUnit.NANOSECONDS);
+
+			uploadSize.record(Files.size(path));
+
+			// Cloudinary へアップロード（File を渡すとバイト列に読み込まずにストリーム送信される）
 			Map uploadResult = cloudinary.uploader().upload(
-					file.getBytes(),
+					path.toFile(),
 					ObjectUtils.emptyMap());
 
-			// アップロード完了時刻を更新
-			lastUploadTime = System.currentTimeMillis();
+			successTimer.record(System.nanoTime() - uploadStart, TimeUnit.NANOSECONDS);
 
 			// 公開 URL を返却
 			return uploadResult.get("secure_url").toString();
 
+		} catch (IllegalStateException e) {
+			failedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			throw e;
+
 		} catch (Exception e) {
+			failedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
 
 			// Cloudinary のレート制限エラー対策
 			if (e.getMessage() != null && e.getMessage().contains("Too many")) {
-				throw new IllegalStateException(
-						"画像アップロードが集中しています。少し時間を置いて再度お試しください。", e);
+				throw new IllegalStateException(BUSY_MESSAGE, e);
 			}
 
 			throw new IllegalStateException("画像アップロードに失敗しました", e);
+
+		} finally {
+			long allocatedAfter = allocatedBytes();
+			if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+				uploadAllocated.record(allocatedAfter - allocatedBefore);
+			}
+		}
+	}
+
+	/* =========================
+	 * 現在のスレッドがこれまでに割り当てたヒープ量（取れなければ -1）
+	 * ========================= */
+	private static long allocatedBytes() {
+		return THREAD_MX == null ? -1 : THREAD_MX.getCurrentThreadAllocatedBytes();
+	}
+
+	private static com.sun.management.ThreadMXBean threadMxBean() {
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+				&& bean.isThreadAllocatedMemorySupported()) {
+			bean.setThreadAllocatedMemoryEnabled(true);
+			return bean;
+		}
+		return null;
+	}
+
+	/* =========================
+	 * 失敗時の後始末：未着手は送らず、上がった分（これから上がる分も）は削除
+	 * ========================= */
+	private void discard(List<CompletableFuture<String>> futures, AtomicBoolean abandoned) {
+
+		abandoned.set(true);
+		for (CompletableFuture<String> future : futures) {
+			future.thenAccept(this::deleteFile);
 		}
 	}
 
 	/**
 	 * Cloudinary 上の画像を削除
-	 * 
+	 *
 	 * @param imageUrl Cloudinary の画像URL
 	 */
 	public void deleteFile(String imageUrl) {
@@ -107,15 +315,30 @@ public class CloudinaryService {
 			return;
 
 		try {
-			// URL から public_id を抽出
-			String[] parts = imageUrl.split("/");
-			String fileName = parts[parts.length - 1];
-			String publicId = fileName.substring(0, fileName.lastIndexOf('.'));
-
-			cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
+			String publicId = publicIdOf(imageUrl);
+			if (publicId != null) {
+				cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
+			}
 
 		} catch (Exception e) {
-			System.err.println("Cloudinary delete failed: " + e.getMessage());
+			log.warn("Cloudinary 削除失敗: {}", imageUrl, e);
 		}
 	}
+
+	// URL から public_id を抽出（末尾のファイル名から拡張子を除いたもの。取れなければ null）
+	private static String publicIdOf(String imageUrl) {
+
+		if (imageUrl == null) {
+			return null;
+		}
+		String[] parts = imageUrl.split("/");
+		String fileName = parts[parts.length - 1];
+		int dot = fileName.lastIndexOf('.');
+		return dot > 0 ? fileName.substring(0, dot) : null;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
 }
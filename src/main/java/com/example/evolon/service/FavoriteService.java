@@ -2,14 +2,13 @@ package com.example.evolon.service;
 
 // コレクション操作のための import
 import java.util.List;
-// Stream で変換するための import
-import java.util.stream.Collectors;
 
 // サービスアノテーションの import
 import org.springframework.stereotype.Service;
 // トランザクション境界を宣言するための import
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.evolon.dto.ItemCardView;
 import com.example.evolon.entity.FavoriteItem;
 import com.example.evolon.entity.Item;
 import com.example.evolon.entity.User;
@@ -95,22 +94,14 @@ public class FavoriteService {
 	 */
 	public boolean isFavorited(User user, Long itemId) {
 
-		// 商品存在チェック
-		Item item = itemRepository.findById(itemId)
-				.orElseThrow(() -> new IllegalArgumentException("Item not found"));
-
-		// お気に入り存在判定
-		return favoriteItemRepository.existsByUserAndItem(user, item);
+		// お気に入り存在判定（商品詳細で取得済みなので商品は読み直さない）
+		return favoriteItemRepository.existsByUserAndItem_Id(user, itemId);
 	}
 
 	/**
-	 * ユーザのお気に入り商品一覧を返す
+	 * ユーザのお気に入り商品一覧を返す（一覧用の軽量ビュー、1クエリ）
 	 */
-	public List<Item> getFavoriteItemsByUser(User user) {
-
-		// FavoriteItem → Item にマッピングして返却
-		return favoriteItemRepository.findByUser(user).stream()
-				.map(FavoriteItem::getItem)
-				.collect(Collectors.toList());
+	public List<ItemCardView> getFavoriteItemsByUser(User user) {
+		return itemRepository.findFavoriteCardViewsByUser(user);
 	}
 }
@@ -0,0 +1,149 @@
+package com.example.evolon.service;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ★ オフラインの OcrEngine（evolon.ocr.engine=fixture）
+ *
+ * Vision を呼ばず、前処理済み画像のハッシュ（OcrResultCache.keyOf と同じ SHA-256）ごとに
+ * フィクスチャの文字列を返す。ネットワーク・認証情報なしで OCR 周りのテストや負荷試験ができる。
+ *
+ * フィクスチャ（evolon.ocr.fixture.location、TSV）：
+ *   ハッシュ <TAB> 文字列（\n = 改行）    … その画像の OCR 結果
+ *   *        <TAB> 文字列                  … 登録の無い画像用の候補（ハッシュから1つ選ぶ＝同じ画像なら毎回同じ）
+ *   # で始まる行・空行は無視
+ * 登録も候補も無い画像は空文字（＝カード番号なし）。登録の無い画像のハッシュは DEBUG ログに出す。
+ *
+ * Vision の往復の代わりに、1回の呼び出しごとに latency + latency-per-image × 枚数 だけ待つ。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "evolon.ocr.engine", havingValue = "fixture")
+public class FixtureOcrEngine implements OcrEngine {
+
+	// 登録の無い画像用の候補を表すキー
+	static final String ANY = "*";
+
+	private final Map<String, String> textByKey;
+	private final List<String> fallbackTexts;
+	private final Duration latency;
+	private final Duration latencyPerImage;
+
+	public FixtureOcrEngine(
+			ResourceLoader resourceLoader,
+			@Value("${evolon.ocr.fixture.location:classpath:ocr/ocr-fixtures.tsv}") String location,
+			@Value("${evolon.ocr.fixture.latency:0ms}") Duration latency,
+			@Value("${evolon.ocr.fixture.latency-per-image:0ms}") Duration latencyPerImage) throws IOException {
+		this(new HashMap<>(), new ArrayList<>(), latency, latencyPerImage);
+
+		Resource resource = resourceLoader.getResource(location);
+		if (!resource.exists()) {
+			log.warn("OCR フィクスチャがありません: {}（すべて空文字を返します）", location);
+			return;
+		}
+		try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+			load(reader);
+		}
+		log.info("OCR フィクスチャ読み込み: {} 件 + 候補 {} 件（{}）",
+				textByKey.size(), fallbackTexts.size(), location);
+	}
+
+	FixtureOcrEngine(
+			Map<String, String> textByKey,
+			List<String> fallbackTexts,
+			Duration latency,
+			Duration latencyPerImage) {
+		this.textByKey = textByKey;
+		this.fallbackTexts = fallbackTexts;
+		this.latency = latency;
+		this.latencyPerImage = latencyPerImage;
+	}
+
+	@Override
+	public List<Text> detectText(List<BufferedImage> images) {
+
+		pause(latency.plus(latencyPerImage.multipliedBy(images.size())));
+
+		List<Text> results = new ArrayList<>(images.size());
+		for (BufferedImage image : images) {
+			results.add(Text.of(textFor(OcrResultCache.keyOf(image))));
+		}
+		return results;
+	}
+
+	private String textFor(String key) {
+
+		String text = textByKey.get(key);
+		if (text != null) {
+			return text;
+		}
+
+		log.debug("OCR フィクスチャ未登録 key={}", key);
+		if (fallbackTexts.isEmpty()) {
+			return "";
+		}
+		return fallbackTexts.get(Math.floorMod(key.hashCode(), fallbackTexts.size()));
+	}
+
+	/* =========================
+	 * TSV 読み込み
+	 * ========================= */
+	void load(Reader reader) throws IOException {
+
+		BufferedReader lines = new BufferedReader(reader);
+		String line;
+		int lineNo = 0;
+
+		while ((line = lines.readLine()) != null) {
+			lineNo++;
+			if (line.isBlank() || line.startsWith("#")) {
+				continue;
+			}
+
+			int tab = line.indexOf('\t');
+			if (tab < 0) {
+				throw new IllegalArgumentException("OCR フィクスチャ " + lineNo + " 行目：TAB 区切りではありません");
+			}
+
+			String key = line.substring(0, tab).trim();
+			String text = line.substring(tab + 1).replace("\\n", "\n");
+
+			if (ANY.equals(key)) {
+				fallbackTexts.add(text);
+			} else {
+				textByKey.put(key, text);
+			}
+		}
+	}
+
+	private static void pause(Duration duration) {
+
+		if (duration.isZero() || duration.isNegative()) {
+			return;
+		}
+		try {
+			Thread.sleep(duration.toMillis());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("OCR（フィクスチャ）の待機が中断されました", ex);
+		}
+	}
+}
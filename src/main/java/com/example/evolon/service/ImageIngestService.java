@@ -0,0 +1,378 @@
+package com.example.evolon.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.Node;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * ★ 商品画像の取り込み（アップロード前の正規化）
+ *
+ * 出品者のスマホ写真（4000px・数MB・EXIF 付き）をそのまま置かず、
+ *   ① EXIF の向き（Orientation）どおりに回転
+ *   ② 長辺 evolon.images.max-edge 以下に縮小（デコード時に間引いてから高品質に縮小：巨大な画像をヒープに展開しない）
+ *   ③ JPEG で書き直す（EXIF・位置情報などのメタデータは持ち越さない）
+ * 一覧用には長辺 evolon.images.thumbnail-edge のサムネイルも作る。
+ *
+ * 出力は一時ファイル（呼び出し側が消す）。
+ *
+ * メトリクス：evolon.images.ingest（処理時間）、evolon.images.ingest.bytes（stage=in/out/thumbnail）
+ */
+@Service
+public class ImageIngestService {
+
+	// EXIF の Orientation タグ
+	private static final int TAG_ORIENTATION = 0x0112;
+
+	private final int maxEdge;
+	private final int thumbnailEdge;
+	private final float quality;
+
+	private final Timer ingestTimer;
+	private final DistributionSummary bytesIn;
+	private final DistributionSummary bytesOut;
+	private final DistributionSummary bytesThumbnail;
+
+	public ImageIngestService(
+			MeterRegistry meterRegistry,
+			@Value("${evolon.images.max-edge:1600}") int maxEdge,
+			@Value("${evolon.images.thumbnail-edge:320}") int thumbnailEdge,
+			@Value("${evolon.images.jpeg-quality:0.85}") float quality) {
+		this.maxEdge = Math.max(1, maxEdge);
+		this.thumbnailEdge = Math.max(1, thumbnailEdge);
+		this.quality = quality;
+
+		this.ingestTimer = Timer.builder("evolon.images.ingest").register(meterRegistry);
+		this.bytesIn = bytes(meterRegistry, "in");
+		this.bytesOut = bytes(meterRegistry, "out");
+		this.bytesThumbnail = bytes(meterRegistry, "thumbnail");
+	}
+
+	private static DistributionSummary bytes(MeterRegistry meterRegistry, String stage) {
+		return DistributionSummary.builder("evolon.images.ingest.bytes")
+				.tag("stage", stage)
+				.baseUnit("bytes")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * 取り込み結果（image・thumbnail は一時ファイル。thumbnail は要求しなければ null）
+	 */
+	public record Ingested(Path image, Path thumbnail, int width, int height) {
+	}
+
+	/**
+	 * 画像ファイルを正規化する
+	 *
+	 * @param withThumbnail 一覧用サムネイルも作るか
+	 * @throws IllegalArgumentException 画像として読めない
+	 */
+	public Ingested ingest(Path source, boolean withThumbnail) throws IOException {
+
+		long start = System.nanoTime();
+		Path image = null;
+		Path thumbnail = null;
+		try {
+			bytesIn.record(Files.size(source));
+
+			BufferedImage normalized = orient(decode(source, maxEdge), readOrientation(source));
+			normalized = toRgb(scaleDown(normalized, maxEdge));
+
+			image = Files.createTempFile("evolon-ingest-", ".jpg");
+			bytesOut.record(writeJpeg(normalized, image));
+
+			if (withThumbnail) {
+				thumbnail = Files.createTempFile("evolon-thumb-", ".jpg");
+				bytesThumbnail.record(writeJpeg(scaleDown(normalized, thumbnailEdge), thumbnail));
+			}
+			return new Ingested(image, thumbnail, normalized.getWidth(), normalized.getHeight());
+
+		} catch (IOException | RuntimeException ex) {
+			deleteIfExists(image);
+			deleteIfExists(thumbnail);
+			throw ex;
+
+		} finally {
+			ingestTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/* =========================
+	 * ① デコード：長辺が limit の2倍以上ある写真はデコード時に間引く
+	 *   （間引き後も長辺 limit 以上は残す → 仕上げは scaleDown）
+	 * ========================= */
+	private static BufferedImage decode(Path source, int limit) throws IOException {
+
+		try (ImageInputStream iis = ImageIO.createImageInputStream(source.toFile())) {
+
+			ImageReader reader = firstReader(iis);
+			try {
+				reader.setInput(iis, true, true);
+
+				ImageReadParam param = reader.getDefaultReadParam();
+				int longEdge = Math.max(reader.getWidth(0), reader.getHeight(0));
+				int step = Math.max(1, longEdge / limit);
+				if (step > 1) {
+					param.setSourceSubsampling(step, step, 0, 0);
+				}
+				return reader.read(0, param);
+
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	/* =========================
+	 * EXIF の Orientation（1〜8。無い・読めない場合は 1）
+	 * ========================= */
+	private static int readOrientation(Path source) throws IOException {
+
+		try (ImageInputStream iis = ImageIO.createImageInputStream(source.toFile())) {
+
+			ImageReader reader = firstReader(iis);
+			try {
+				reader.setInput(iis, true, false);
+				IIOMetadata metadata = reader.getImageMetadata(0);
+				if (metadata == null || !"javax_imageio_jpeg_image_1.0".equals(metadata.getNativeMetadataFormatName())) {
+					return 1;
+				}
+
+				// markerSequence の APP1（MarkerTag=225）が Exif
+				Node root = metadata.getAsTree("javax_imageio_jpeg_image_1.0");
+				for (Node n = root.getFirstChild(); n != null; n = n.getNextSibling()) {
+					if (!"markerSequence".equals(n.getNodeName())) {
+						continue;
+					}
+					for (Node m = n.getFirstChild(); m != null; m = m.getNextSibling()) {
+						Node tag = m.getAttributes() == null ? null : m.getAttributes().getNamedItem("MarkerTag");
+						if ("unknown".equals(m.getNodeName()) && tag != null && "225".equals(tag.getNodeValue())
+								&& ((IIOMetadataNode) m).getUserObject() instanceof byte[] app1) {
+							return exifOrientation(app1);
+						}
+					}
+				}
+				return 1;
+
+			} catch (IOException | RuntimeException ex) {
+				// メタデータが壊れていても画像自体は使える
+				return 1;
+
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	/**
+	 * APP1 セグメント（"Exif\0\0" + TIFF）から Orientation を読む
+	 */
+	static int exifOrientation(byte[] app1) {
+
+		if (app1.length < 14 || app1[0] != 'E' || app1[1] != 'x' || app1[2] != 'i' || app1[3] != 'f') {
+			return 1;
+		}
+
+		// TIFF ヘッダ："II"（リトルエンディアン）/ "MM"（ビッグエンディアン）
+		ByteBuffer tiff = ByteBuffer.wrap(app1, 6, app1.length - 6).slice();
+		if (tiff.get(0) == 'I' && tiff.get(1) == 'I') {
+			tiff.order(ByteOrder.LITTLE_ENDIAN);
+		} else if (tiff.get(0) != 'M' || tiff.get(1) != 'M') {
+			return 1;
+		}
+
+		try {
+			int ifd0 = tiff.getInt(4);
+			int entries = Short.toUnsignedInt(tiff.getShort(ifd0));
+			for (int i = 0; i < entries; i++) {
+				int entry = ifd0 + 2 + i * 12;
+				if (Short.toUnsignedInt(tiff.getShort(entry)) == TAG_ORIENTATION) {
+					int value = Short.toUnsignedInt(tiff.getShort(entry + 8));
+					return value >= 1 && value <= 8 ? value : 1;
+				}
+			}
+		} catch (IndexOutOfBoundsException ex) {
+			// 壊れた EXIF は無視
+		}
+		return 1;
+	}
+
+	/* =========================
+	 * ② Orientation どおりに回転・反転（2〜8）
+	 * ========================= */
+	static BufferedImage orient(BufferedImage src, int orientation) {
+
+		if (orientation <= 1 || orientation > 8) {
+			return src;
+		}
+
+		int w = src.getWidth();
+		int h = src.getHeight();
+		boolean swap = orientation >= 5;
+
+		AffineTransform t = new AffineTransform();
+		switch (orientation) {
+		case 2 -> { t.translate(w, 0); t.scale(-1, 1); }
+		case 3 -> { t.translate(w, h); t.rotate(Math.PI); }
+		case 4 -> { t.translate(0, h); t.scale(1, -1); }
+		case 5 -> { t.rotate(-Math.PI / 2); t.scale(-1, 1); }
+		case 6 -> { t.translate(h, 0); t.rotate(Math.PI / 2); }
+		case 7 -> { t.translate(h, w); t.rotate(Math.PI / 2); t.scale(-1, 1); }
+		case 8 -> { t.translate(0, w); t.rotate(3 * Math.PI / 2); }
+		default -> { }
+		}
+
+		BufferedImage dst = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = dst.createGraphics();
+		try {
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, dst.getWidth(), dst.getHeight());
+			g.drawImage(src, t, null);
+		} finally {
+			g.dispose();
+		}
+		return dst;
+	}
+
+	/* =========================
+	 * 長辺 limit 以下に縮小（半分ずつ縮めてから最後に合わせる：一気に縮めるとギザギザになる）
+	 * ========================= */
+	static BufferedImage scaleDown(BufferedImage src, int limit) {
+
+		BufferedImage current = src;
+		while (Math.max(current.getWidth(), current.getHeight()) > limit) {
+
+			int longEdge = Math.max(current.getWidth(), current.getHeight());
+			double ratio = Math.max(0.5, (double) limit / longEdge);
+			int w = Math.max(1, (int) Math.round(current.getWidth() * ratio));
+			int h = Math.max(1, (int) Math.round(current.getHeight() * ratio));
+
+			BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = next.createGraphics();
+			try {
+				g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.setColor(Color.WHITE);
+				g.fillRect(0, 0, w, h);
+				g.drawImage(current, 0, 0, w, h, null);
+			} finally {
+				g.dispose();
+			}
+			current = next;
+		}
+		return current;
+	}
+
+	/* =========================
+	 * JPEG は透過を持てないので白背景の RGB にする
+	 * ========================= */
+	private static BufferedImage toRgb(BufferedImage src) {
+
+		if (src.getType() == BufferedImage.TYPE_INT_RGB) {
+			return src;
+		}
+		BufferedImage rgb = new BufferedImage(src.getWidth(), src.getHeight(), BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = rgb.createGraphics();
+		try {
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, rgb.getWidth(), rgb.getHeight());
+			g.drawImage(src, 0, 0, null);
+		} finally {
+			g.dispose();
+		}
+		return rgb;
+	}
+
+	/* =========================
+	 * ③ JPEG で書き出す（メタデータは渡さない＝EXIF は残らない）。書いたバイト数を返す
+	 * ========================= */
+	private long writeJpeg(BufferedImage image, Path target) throws IOException {
+
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		try (ImageOutputStream ios = ImageIO.createImageOutputStream(target.toFile())) {
+			writer.setOutput(ios);
+
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionQuality(quality);
+			param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		return Files.size(target);
+	}
+
+	/**
+	 * ファイルの SHA-256（16進。固定長バッファで読むのでファイルサイズに関係なくヒープは一定）
+	 */
+	public static String sha256(Path file) throws IOException {
+
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+
+		byte[] buffer = new byte[8192];
+		try (InputStream in = Files.newInputStream(file)) {
+			int n;
+			while ((n = in.read(buffer)) > 0) {
+				digest.update(buffer, 0, n);
+			}
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static ImageReader firstReader(ImageInputStream iis) {
+
+		Iterator<ImageReader> readers = iis == null ? null : ImageIO.getImageReaders(iis);
+		if (readers == null || !readers.hasNext()) {
+			throw new IllegalArgumentException("画像の読み込みに失敗しました");
+		}
+		return readers.next();
+	}
+
+	private static void deleteIfExists(Path path) {
+		if (path == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException ignored) {
+			// 一時ディレクトリの掃除に任せる
+		}
+	}
+}
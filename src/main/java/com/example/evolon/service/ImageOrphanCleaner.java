@@ -0,0 +1,115 @@
+package com.example.evolon.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ★ 不要になった画像（差し替え・削除された画像とサムネイル）の非同期一括削除
+ *
+ * 商品の編集・削除のリクエストでは URL を行列に積むだけで、保存先（Cloudinary 等）は待たない。
+ * evolon.images.orphans.flush-interval ごとに batch-size 件ずつ ImageStorage#deleteAll でまとめて消す
+ * （Cloudinary は delete_resources 1回で最大100件）。
+ *
+ * - 行列が満杯（queue-capacity）のときは積めなかった分をその場で消す（取りこぼさない）
+ * - 行列はメモリ上のみ。停止時には残りを消してから終わる
+ *
+ * メトリクス：evolon.images.orphans.queue.depth、evolon.images.orphans.deleted
+ */
+@Slf4j
+@Service
+public class ImageOrphanCleaner {
+
+	private final ImageStorage imageStorage;
+	private final LinkedBlockingQueue<String> queue;
+	private final int batchSize;
+	private final ScheduledExecutorService scheduler;
+
+	private final Counter deleted;
+
+	public ImageOrphanCleaner(
+			ImageStorage imageStorage,
+			MeterRegistry meterRegistry,
+			@Value("${evolon.images.orphans.batch-size:100}") int batchSize,
+			@Value("${evolon.images.orphans.queue-capacity:10000}") int queueCapacity,
+			@Value("${evolon.images.orphans.flush-interval:5s}") Duration flushInterval) {
+		this.imageStorage = imageStorage;
+		this.queue = new LinkedBlockingQueue<>(queueCapacity);
+		this.batchSize = Math.max(1, batchSize);
+
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("image-orphan-cleaner-"));
+		long interval = Math.max(1, flushInterval.toMillis());
+		this.scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+
+		Gauge.builder("evolon.images.orphans.queue.depth", queue, LinkedBlockingQueue::size)
+				.register(meterRegistry);
+		this.deleted = Counter.builder("evolon.images.orphans.deleted")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * 削除予約（null は無視）。コミット後に呼ぶ
+	 */
+	public void enqueue(Collection<String> urls) {
+
+		List<String> overflow = new ArrayList<>();
+		for (String url : urls) {
+			if (url != null && !queue.offer(url)) {
+				overflow.add(url);
+			}
+		}
+
+		if (!overflow.isEmpty()) {
+			log.warn("画像の削除予約が満杯のため、その場で削除します（{}件）", overflow.size());
+			delete(overflow);
+		}
+	}
+
+	/**
+	 * 行列を空になるまで batch-size 件ずつ削除
+	 */
+	void flush() {
+
+		// 渡したリストは使い回さない（ストレージ側で保持されても中身が変わらないように）
+		List<String> batch = new ArrayList<>(batchSize);
+		while (queue.drainTo(batch, batchSize) > 0) {
+			delete(batch);
+			batch = new ArrayList<>(batchSize);
+		}
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (RuntimeException ex) {
+			// 次回に持ち越すと同じ URL で失敗し続けるので、ログだけ残して捨てる
+			log.error("不要画像の削除に失敗", ex);
+		}
+	}
+
+	private void delete(List<String> urls) {
+		imageStorage.deleteAll(urls);
+		deleted.increment(urls.size());
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		scheduler.shutdown();
+		flushQuietly();
+	}
+}
@@ -0,0 +1,36 @@
+package com.example.evolon.service;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 商品画像の保存先の差し替え口
+ *
+ * evolon.images.storage で選ぶ：
+ *   cloudinary（既定） … Cloudinary（CloudinaryService。cloudinary.enabled=false なら保存せず null）
+ *   local              … ローカルディスク（LocalImageStorage）。/media/** で配信（MediaController）。
+ *                        自前ホスティングや、外部サービスなしでのステージング・負荷試験用
+ *
+ * 入力は ImageIngestService で正規化済みの一時ファイル（呼び出し側が消す）。
+ */
+public interface ImageStorage {
+
+	/**
+	 * ファイルを保存して、画面に出す URL を返す（引数と同じ順番。null の要素は null）
+	 *
+	 * 1つでも失敗したら、この呼び出しで保存した分は消してから IllegalStateException
+	 */
+	List<String> store(List<Path> files);
+
+	/**
+	 * store が返した URL の画像を削除（null・このストレージのものでない URL は無視。失敗はログのみ）
+	 */
+	void delete(String url);
+
+	/**
+	 * まとめて削除（ImageOrphanCleaner 用。まとめて消せるストレージは1回の呼び出しで消す）
+	 */
+	default void deleteAll(List<String> urls) {
+		urls.forEach(this::delete);
+	}
+}
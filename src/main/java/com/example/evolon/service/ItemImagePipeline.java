@@ -0,0 +1,412 @@
+package com.example.evolon.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.evolon.entity.ImageStatus;
+import com.example.evolon.entity.Item;
+import com.example.evolon.entity.ItemImage;
+import com.example.evolon.repository.ItemRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ★ 商品画像の非同期アップロード
+ *
+ * 出品・編集のリクエストでは
+ *   ① アップロード画像を1枚ずつ一時ファイルに退避してハッシュを取る（spool：トランザクションの外）
+ *   ② 商品を image_status = PENDING で保存（短いトランザクション）
+ *   ③ コミット後に submit → ここのスレッドプールで ImageStorage（Cloudinary 等）へ
+ * とし、DB コネクションを握ったまま外部ストレージを待つことがないようにする。
+ *
+ * - アップロード前に ImageIngestService で正規化（向き補正・縮小・EXIF 除去）し、サムネイルも作る
+ *   （並べ替えでどの画像が1枚目になっても一覧はサムネイルで出せるように、全画像分）
+ * - 失敗したら evolon.images.pipeline.backoff から倍々に待ってリトライ（max-attempts 回まで）
+ * - 全部上がったら item_image（URL・大きさ・ハッシュ・サムネイル）を書いて READY、諦めたら FAILED（どちらも短いトランザクション1回）
+ *   差し替えで不要になった画像は ImageOrphanCleaner に渡す
+ *   同時に編集が保存されていたら（Item#version の競合）読み直して当て直す
+ *   （読めない画像はリトライせずに FAILED）
+ * - 行列が満杯のときは呼び出し元スレッドで実行（CallerRunsPolicy：コミット後なのでコネクションは握っていない）
+ * - 一時ファイルは成否にかかわらず消す
+ * - 行列はメモリ上のみ。停止時は shutdown-timeout まで待ち、残った PENDING は次回起動時に FAILED にする
+ *
+ * メトリクス：evolon.images.pipeline.queue.depth、evolon.images.pipeline.jobs（outcome=ready/failed）、
+ *            evolon.images.pipeline.retries、evolon.images.pipeline.conflicts
+ */
+@Slf4j
+@Service
+public class ItemImagePipeline {
+
+	// 同時更新（@Version）の競合で読み直す回数の上限
+	private static final int MAX_CONFLICT_ATTEMPTS = 3;
+
+	private final ImageStorage imageStorage;
+	private final ImageIngestService imageIngestService;
+	private final ImageOrphanCleaner imageOrphanCleaner;
+	private final ItemRepository itemRepository;
+	private final TransactionTemplate transactionTemplate;
+
+	private final ThreadPoolExecutor executor;
+	private final int maxAttempts;
+	private final Duration backoff;
+	private final Duration shutdownTimeout;
+
+	// このプロセスで受け付けた（行列にある・処理中の）商品
+	private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+	private final Counter readyJobs;
+	private final Counter failedJobs;
+	private final Counter retries;
+	private final Counter conflicts;
+
+	public ItemImagePipeline(
+			ImageStorage imageStorage,
+			ImageIngestService imageIngestService,
+			ImageOrphanCleaner imageOrphanCleaner,
+			ItemRepository itemRepository,
+			PlatformTransactionManager transactionManager,
+			MeterRegistry meterRegistry,
+			@Value("${evolon.images.pipeline.threads:4}") int threads,
+			@Value("${evolon.images.pipeline.queue-capacity:100}") int queueCapacity,
+			@Value("${evolon.images.pipeline.max-attempts:3}") int maxAttempts,
+			@Value("${evolon.images.pipeline.backoff:2s}") Duration backoff,
+			@Value("${evolon.images.pipeline.shutdown-timeout:30s}") Duration shutdownTimeout) {
+		this.imageStorage = imageStorage;
+		this.imageIngestService = imageIngestService;
+		this.imageOrphanCleaner = imageOrphanCleaner;
+		this.itemRepository = itemRepository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.backoff = backoff;
+		this.shutdownTimeout = shutdownTimeout;
+
+		this.executor = new ThreadPoolExecutor(
+				threads, threads,
+				60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(queueCapacity),
+				new NamedThreadFactory("item-image-"),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+		this.executor.allowCoreThreadTimeOut(true);
+
+		Gauge.builder("evolon.images.pipeline.queue.depth", executor, e -> e.getQueue().size())
+				.register(meterRegistry);
+		this.readyJobs = Counter.builder("evolon.images.pipeline.jobs")
+				.tag("outcome", "ready")
+				.register(meterRegistry);
+		this.failedJobs = Counter.builder("evolon.images.pipeline.jobs")
+				.tag("outcome", "failed")
+				.register(meterRegistry);
+		this.retries = Counter.builder("evolon.images.pipeline.retries")
+				.register(meterRegistry);
+		this.conflicts = Counter.builder("evolon.images.pipeline.conflicts")
+				.description("画像の反映が商品の同時更新（@Version）と競合して読み直した回数")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * 1枚分のアップロード
+	 *
+	 * @param replaceImageId 差し替える item_image の id（null なら末尾に追加）
+	 * @param file           退避した一時ファイル
+	 * @param contentHash    元ファイルの SHA-256（16進）。同じ画像の上げ直しを省くのに使う
+	 */
+	public record Upload(Long replaceImageId, Path file, String contentHash) {
+	}
+
+	/**
+	 * ① アップロード画像 → 一時ファイル（null・空ファイルなら null）
+	 *
+	 * リクエストが終わるとアップロードの一時ファイルは消えるので、ここでコピーしておく。
+	 * ハッシュもここで取る（変わっていない画像はアップロードせずに捨てられるように）
+	 */
+	public Upload spool(MultipartFile file, Long replaceImageId) throws IOException {
+
+		if (file == null || file.isEmpty()) {
+			return null;
+		}
+
+		Path tmp = Files.createTempFile("evolon-item-image-", ".tmp");
+		try {
+			file.transferTo(tmp);
+			return new Upload(replaceImageId, tmp, ImageIngestService.sha256(tmp));
+		} catch (IOException | RuntimeException ex) {
+			Files.deleteIfExists(tmp);
+			throw ex;
+		}
+	}
+
+	/**
+	 * ③ 商品（PENDING で保存済み・コミット済み）の画像をアップロードする
+	 */
+	public void submit(Long itemId, List<Upload> uploads) {
+
+		// 停止中（CallerRunsPolicy は停止後のジョブを黙って捨てる）：PENDING のまま残さない
+		if (executor.isShutdown()) {
+			discard(uploads);
+			fail(itemId);
+			return;
+		}
+
+		inFlight.add(itemId);
+		executor.execute(() -> {
+			try {
+				process(itemId, uploads);
+			} finally {
+				inFlight.remove(itemId);
+			}
+		});
+	}
+
+	/**
+	 * ★ 起動時：前回のプロセスで行列にあった・処理中だったジョブは行列ごと消えているので FAILED にする
+	 * （再編集で画像を選び直せる。このプロセスで受け付けた分は除く）
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void failInterruptedJobs() {
+
+		try {
+			Integer failed = transactionTemplate.execute(status -> {
+				List<Long> stale = new ArrayList<>(itemRepository.findIdsByImageStatus(ImageStatus.PENDING));
+				stale.removeAll(inFlight);
+				return stale.isEmpty()
+						? 0
+						: itemRepository.updateImageStatus(stale, ImageStatus.PENDING, ImageStatus.FAILED);
+			});
+			if (failed != null && failed > 0) {
+				log.warn("前回の停止で中断された商品画像のジョブを FAILED にしました（{}件）", failed);
+			}
+		} catch (RuntimeException ex) {
+			log.error("中断された商品画像のジョブの確認に失敗", ex);
+		}
+	}
+
+	/**
+	 * 一時ファイルを消す（保存に失敗したときや、上げ直し不要だったときなど、submit しない場合の後始末）
+	 */
+	public void discard(List<Upload> uploads) {
+		deleteFiles(uploads.stream().map(Upload::file).toList());
+	}
+
+	private static void deleteFiles(List<Path> paths) {
+		for (Path path : paths) {
+			if (path == null) {
+				continue;
+			}
+			try {
+				Files.deleteIfExists(path);
+			} catch (IOException ex) {
+				log.warn("一時ファイルを削除できません: {}", path, ex);
+			}
+		}
+	}
+
+	/* =========================
+	 * 正規化 → アップロード（リトライ付き）→ 結果を保存
+	 * ========================= */
+	void process(Long itemId, List<Upload> spooled) {
+
+		// 正規化した画像（順番どおり）とサムネイル（その後ろに同じ順番）をまとめて送る
+		int n = spooled.size();
+		List<ImageIngestService.Ingested> ingested = new ArrayList<>(Collections.nCopies(n, null));
+		List<Path> uploads = new ArrayList<>(Collections.nCopies(n * 2, null));
+
+		// 保存先に上がった URL（商品に書けなかったら不要画像として消す）
+		List<String> stored = null;
+		List<String> orphans;
+		try {
+			for (int i = 0; i < n; i++) {
+				ImageIngestService.Ingested result = imageIngestService.ingest(spooled.get(i).file(), true);
+				ingested.set(i, result);
+				uploads.set(i, result.image());
+				uploads.set(n + i, result.thumbnail());
+			}
+
+			stored = store(itemId, uploads);
+			if (stored == null) {
+				fail(itemId);
+				return;
+			}
+			orphans = complete(itemId, spooled, ingested, stored.subList(0, n), stored.subList(n, n * 2));
+
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			abandon(itemId, stored);
+			return;
+
+		} catch (IOException | RuntimeException ex) {
+			log.error("商品画像の処理に失敗 itemId={}", itemId, ex);
+			abandon(itemId, stored);
+			return;
+
+		} finally {
+			discard(spooled);
+			deleteFiles(uploads);
+		}
+
+		readyJobs.increment();
+		// 保存先からの削除はコミット後にまとめて（ImageOrphanCleaner）
+		imageOrphanCleaner.enqueue(orphans);
+	}
+
+	/**
+	 * 保存先へアップロード（リトライするのはここだけ。商品への書き込みは上げ直さない）
+	 *
+	 * @return 引数と同じ順番の URL。max-attempts 回失敗したら null
+	 */
+	private List<String> store(Long itemId, List<Path> uploads) throws InterruptedException {
+
+		for (int attempt = 1;; attempt++) {
+			try {
+				return imageStorage.store(uploads);
+
+			} catch (IllegalStateException ex) {
+				if (attempt >= maxAttempts) {
+					log.warn("商品画像のアップロードを断念 itemId={} ({}回): {}", itemId, attempt, ex.getMessage());
+					return null;
+				}
+				retries.increment();
+				log.info("商品画像のアップロードをリトライ itemId={} ({}回目失敗): {}", itemId, attempt, ex.getMessage());
+				Thread.sleep(backoff.toMillis() << (attempt - 1));
+			}
+		}
+	}
+
+	/**
+	 * アップロード後に商品へ書けなかった：上がった画像は不要画像として消し、FAILED にする
+	 */
+	private void abandon(Long itemId, List<String> stored) {
+		if (stored != null) {
+			imageOrphanCleaner.enqueue(stored);
+		}
+		fail(itemId);
+	}
+
+	/**
+	 * 上がった画像を item_image に書いて READY（置き換わった画像を返す。削除予約は呼び出し側でコミット後に）
+	 */
+	private List<String> complete(Long itemId, List<Upload> spooled, List<ImageIngestService.Ingested> ingested,
+			List<String> urls, List<String> thumbnailUrls) {
+
+		// 差し替えは item_image の id で（編集中に並べ替え・削除があっても別の画像を上書きしない）。
+		// item_image の行だけを書き、置き換わった画像は不要画像として返す
+		return writeItem(() -> itemRepository.findById(itemId)
+				.map(item -> {
+					List<String> replaced = new ArrayList<>();
+					for (int i = 0; i < urls.size(); i++) {
+						// 保存されなかった（cloudinary.enabled=false 等で URL が null）：そのまま残す
+						if (urls.get(i) == null) {
+							continue;
+						}
+						Upload upload = spooled.get(i);
+						ItemImage image = (upload.replaceImageId() == null)
+								? null
+								: item.getImageById(upload.replaceImageId());
+
+						if (image != null) {
+							replaced.add(image.getUrl());
+							replaced.add(image.getThumbnailUrl());
+						} else if (item.getImages().size() < Item.MAX_IMAGES) {
+							// 追加（差し替え先が先に外されていた場合も末尾に追加）
+							image = item.putImage(item.getImages().size(), urls.get(i));
+						} else {
+							// 別の編集で枠が埋まった
+							replaced.add(urls.get(i));
+							replaced.add(thumbnailUrls.get(i));
+							continue;
+						}
+
+						image.setUrl(urls.get(i));
+						image.setWidth(ingested.get(i).width());
+						image.setHeight(ingested.get(i).height());
+						image.setContentHash(upload.contentHash());
+						image.setThumbnailUrl(thumbnailUrls.get(i));
+					}
+					item.setImageStatus(ImageStatus.READY);
+					return replaced;
+				})
+				// アップロード中に商品が削除された：上げた画像は全部不要
+				.orElseGet(() -> {
+					List<String> all = new ArrayList<>(urls);
+					all.addAll(thumbnailUrls);
+					return all;
+				}));
+	}
+
+	private void fail(Long itemId) {
+
+		failedJobs.increment();
+		// ここで投げてもジョブは終わり。残った PENDING は次回起動時に failInterruptedJobs が FAILED にする
+		try {
+			writeItem(() -> itemRepository.findById(itemId)
+					.map(item -> {
+						item.setImageStatus(ImageStatus.FAILED);
+						return item;
+					}));
+		} catch (RuntimeException ex) {
+			log.error("商品画像の状態を FAILED にできません itemId={}", itemId, ex);
+		}
+	}
+
+	/**
+	 * 商品への書き込み（短いトランザクション）
+	 *
+	 * Item は @Version 付き。同時に編集が保存されて版が進んでいたら、読み直して当て直す
+	 * （編集側の値を古い値で上書きしない）
+	 */
+	private <T> T writeItem(Supplier<T> write) {
+
+		for (int attempt = 1;; attempt++) {
+			try {
+				return transactionTemplate.execute(status -> write.get());
+			} catch (OptimisticLockingFailureException ex) {
+				if (attempt >= MAX_CONFLICT_ATTEMPTS) {
+					throw ex;
+				}
+				conflicts.increment();
+				log.info("商品の同時更新と競合したため読み直し ({}回目)", attempt);
+			}
+		}
+	}
+
+	/**
+	 * 受け付け済みのジョブは shutdown-timeout まで待って終わらせる（間に合わない分は次回起動時に FAILED）
+	 */
+	@PreDestroy
+	public void shutdown() {
+
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+				log.warn("商品画像のジョブが停止までに終わりませんでした（行列に残り {}件）", executor.shutdownNow().size());
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			executor.shutdownNow();
+		}
+	}
+}
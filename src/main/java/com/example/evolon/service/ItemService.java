@@ -2,68 +2,117 @@ package com.example.evolon.service;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.example.evolon.domain.enums.CardCondition;
 import com.example.evolon.domain.enums.Rarity;
 import com.example.evolon.domain.enums.Regulation;
+import com.example.evolon.dto.ItemCardView;
+import com.example.evolon.dto.ItemCursor;
+import com.example.evolon.dto.ItemCursorSlice;
+import com.example.evolon.dto.ItemFacetRow;
+import com.example.evolon.dto.ItemFacets;
+import com.example.evolon.dto.ItemImageEdit;
+import com.example.evolon.entity.ImageStatus;
 import com.example.evolon.entity.Item;
+import com.example.evolon.entity.ItemImage;
 import com.example.evolon.entity.ItemStatus;
 import com.example.evolon.entity.User;
 import com.example.evolon.repository.ItemRepository;
+import com.example.evolon.repository.ItemSpecifications;
 
 @Service
 public class ItemService {
 
+	private static final String CONFLICT_MESSAGE = "商品が他の画面で更新されました。もう一度編集してください。";
+
 	private final ItemRepository itemRepository;
-	private final CloudinaryService cloudinaryService;
+	private final ImageOrphanCleaner imageOrphanCleaner;
+	private final ItemImagePipeline itemImagePipeline;
+	private final TransactionTemplate transactionTemplate;
 
 	public ItemService(
 			ItemRepository itemRepository,
-			CloudinaryService cloudinaryService) {
+			ImageOrphanCleaner imageOrphanCleaner,
+			ItemImagePipeline itemImagePipeline,
+			PlatformTransactionManager transactionManager) {
 		this.itemRepository = itemRepository;
-		this.cloudinaryService = cloudinaryService;
+		this.imageOrphanCleaner = imageOrphanCleaner;
+		this.itemImagePipeline = itemImagePipeline;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * ページ番号（OFFSET + count）で引くのは先頭から何ページまでか
+	 *
+	 * 一覧・検索は通常キーセット（searchItemsByCursor 等）で引く。
+	 * ページ番号で引くのはカーソルにできない関連度順だけで、深いページは出さない。
+	 */
+	public static final int MAX_OFFSET_PAGES = 5;
+
+	/**
+	 * 関連度順で表示するか（キーワード / カード名があり、sort 未指定または relevance）
+	 *
+	 * 関連度順はスコアが同点だらけでカーソルにできないので、ページ番号で MAX_OFFSET_PAGES まで。
+	 */
+	public static boolean isRelevanceOrder(String term, String sort) {
+		return term != null && !term.isBlank() && (sort == null || ItemSortHelper.isRelevance(sort));
 	}
 
 	/* =========================
 	 * 商品一覧検索
 	 * SELLING + SOLD を表示する
+	 *
+	 * - 一覧は軽量ビュー（ItemCardView）で返す
+	 * - キーワードありは pg_trgm（GIN）インデックスで部分一致し、既定は関連度順
+	 * - キーワードなしは従来どおり（sort 未指定なら並び順指定なし）
 	 * ========================= */
-	public Page<Item> searchItems(String keyword, Long categoryId, int page, int size) {
+	public Page<ItemCardView> searchItems(String keyword, Long categoryId, int page, int size) {
+		return searchItems(keyword, categoryId, null, page, size);
+	}
+
+	public Page<ItemCardView> searchItems(String keyword, Long categoryId, String sort, int page, int size) {
 
-		Pageable pageable = PageRequest.of(page, size);
+		page = Math.min(page, MAX_OFFSET_PAGES - 1);
 
 		// ★ 表示対象ステータス（ここが重要）
 		List<ItemStatus> statuses = List.of(
 				ItemStatus.SELLING,
 				ItemStatus.SOLD);
 
-		if (hasText(keyword) && categoryId != null) {
-			return itemRepository
-					.findByNameContainingIgnoreCaseAndCategory_IdAndStatusIn(
-							keyword, categoryId, statuses, pageable);
-
-		} else if (hasText(keyword)) {
-			return itemRepository
-					.findByNameContainingIgnoreCaseAndStatusIn(
-							keyword, statuses, pageable);
-
-		} else if (categoryId != null) {
-			return itemRepository
-					.findByCategory_IdAndStatusIn(
-							categoryId, statuses, pageable);
+		Specification<Item> spec = Specification
+				.where(ItemSpecifications.statusIn(statuses))
+				.and(ItemSpecifications.nameContains(keyword))
+				.and(ItemSpecifications.categoryIs(categoryId));
 
+		Sort order;
+		if (hasText(keyword) && (sort == null || ItemSortHelper.isRelevance(sort))) {
+			spec = spec.and(ItemSpecifications.orderByRelevance(keyword, null));
+			order = Sort.unsorted();
 		} else {
-			return itemRepository.findByStatusIn(statuses, pageable);
+			order = (sort == null) ? Sort.unsorted() : ItemSortHelper.toSort(sort);
 		}
+
+		return itemRepository.findCardViews(spec, PageRequest.of(page, size, order));
 	}
 
 	/* =========================
@@ -71,8 +120,9 @@ public class ItemService {
 	 *
 	 * - status が null の場合：SELLING + SOLD（＝全て）
 	 * - status が指定されている場合：指定されたものだけ
+	 * - sort=relevance はカード名の類似度順（カード名未入力なら新着順）
 	 * ========================= */
-	public Page<Item> searchByCardFilters(
+	public Page<ItemCardView> searchByCardFilters(
 			String cardName,
 			Rarity rarity,
 			Regulation regulation,
@@ -85,44 +135,192 @@ public class ItemService {
 			int page,
 			int size) {
 
-		Pageable pageable = PageRequest.of(page, size, ItemSortHelper.toSort(sort));
+		page = Math.min(page, MAX_OFFSET_PAGES - 1);
 
 		// ★ status が未指定なら「全て（SELLING + SOLD）」にする
 		List<ItemStatus> statuses = (status == null)
 				? List.of(ItemStatus.SELLING, ItemStatus.SOLD)
 				: List.of(status);
 
-		return itemRepository.searchByCardFilters(
-				statuses, // ★Listで渡す（Repository 側は IN :statuses）
+		// ★ 指定された条件だけの SQL を組み立てる（ItemSpecifications）
+		Specification<Item> spec = ItemSpecifications.cardSearch(
+				statuses,
 				hasText(cardName) ? cardName : null,
 				rarity,
 				regulation,
 				condition,
 				hasText(packName) ? packName : null,
 				minPrice,
-				maxPrice,
-				pageable);
+				maxPrice);
+
+		Sort order;
+		if (ItemSortHelper.isRelevance(sort) && hasText(cardName)) {
+			spec = spec.and(ItemSpecifications.orderByRelevance(null, cardName));
+			order = Sort.unsorted();
+		} else {
+			order = ItemSortHelper.toSort(sort);
+		}
+
+		return itemRepository.findCardViews(spec, PageRequest.of(page, size, order));
+	}
+
+	/* =========================
+	 * ★ ファセット件数（絞り込み検索の選択肢ごとのヒット件数）
+	 *
+	 * - rarity × regulation × condition × status の GROUP BY を1回だけ発行
+	 *   （カード名・パック・価格の条件は SQL 側で適用）
+	 * - 各ファセットの件数は「自分以外の選択」を反映してメモリ上で合算する
+	 *   （組み合わせは高々 数百行なので軽い）
+	 * ========================= */
+	public ItemFacets countFacets(
+			String cardName,
+			Rarity rarity,
+			Regulation regulation,
+			CardCondition condition,
+			String packName,
+			BigDecimal minPrice,
+			BigDecimal maxPrice,
+			ItemStatus status) {
+
+		Specification<Item> spec = ItemSpecifications.cardSearch(
+				List.of(ItemStatus.SELLING, ItemStatus.SOLD),
+				hasText(cardName) ? cardName : null,
+				null,
+				null,
+				null,
+				hasText(packName) ? packName : null,
+				minPrice,
+				maxPrice);
+
+		Map<Rarity, Long> rarityCounts = new EnumMap<>(Rarity.class);
+		Map<Regulation, Long> regulationCounts = new EnumMap<>(Regulation.class);
+		Map<CardCondition, Long> conditionCounts = new EnumMap<>(CardCondition.class);
+		Map<ItemStatus, Long> statusCounts = new EnumMap<>(ItemStatus.class);
+
+		for (ItemFacetRow row : itemRepository.countFacets(spec)) {
+
+			boolean rarityOk = rarity == null || rarity == row.getRarity();
+			boolean regulationOk = regulation == null || regulation == row.getRegulation();
+			boolean conditionOk = condition == null || condition == row.getCondition();
+			boolean statusOk = status == null || status == row.getStatus();
+
+			if (row.getRarity() != null && regulationOk && conditionOk && statusOk) {
+				rarityCounts.merge(row.getRarity(), row.getCount(), Long::sum);
+			}
+			if (row.getRegulation() != null && rarityOk && conditionOk && statusOk) {
+				regulationCounts.merge(row.getRegulation(), row.getCount(), Long::sum);
+			}
+			if (row.getCondition() != null && rarityOk && regulationOk && statusOk) {
+				conditionCounts.merge(row.getCondition(), row.getCount(), Long::sum);
+			}
+			if (rarityOk && regulationOk && conditionOk) {
+				statusCounts.merge(row.getStatus(), row.getCount(), Long::sum);
+			}
+		}
+
+		return new ItemFacets(rarityCounts, regulationCounts, conditionCounts, statusCounts);
+	}
+
+	/* =========================
+	 * ★ キーセット（シーク）ページング版
+	 *
+	 * - OFFSET を使わず「前ページ最後の (createdAt,id) / (price,id) より後ろ」を取る
+	 * - count(*) を発行しないので、深いページでも速度が一定
+	 * - cursor が null / 不正なら先頭ページ
+	 * ========================= */
+	public ItemCursorSlice searchItemsByCursor(
+			String keyword,
+			Long categoryId,
+			String sort,
+			String cursor,
+			int size) {
+
+		Specification<Item> spec = Specification
+				.where(ItemSpecifications.statusIn(List.of(ItemStatus.SELLING, ItemStatus.SOLD)))
+				.and(ItemSpecifications.nameContains(keyword))
+				.and(ItemSpecifications.categoryIs(categoryId));
+
+		return scroll(spec, sort, cursor, size);
+	}
+
+	public ItemCursorSlice searchByCardFiltersByCursor(
+			String cardName,
+			Rarity rarity,
+			Regulation regulation,
+			CardCondition condition,
+			String packName,
+			BigDecimal minPrice,
+			BigDecimal maxPrice,
+			String sort,
+			ItemStatus status,
+			String cursor,
+			int size) {
+
+		List<ItemStatus> statuses = (status == null)
+				? List.of(ItemStatus.SELLING, ItemStatus.SOLD)
+				: List.of(status);
+
+		Specification<Item> spec = ItemSpecifications.cardSearch(
+				statuses, cardName, rarity, regulation, condition,
+				packName, minPrice, maxPrice);
+
+		return scroll(spec, sort, cursor, size);
+	}
+
+	/**
+	 * size + 1 件取って「次があるか」を判定する（count クエリの代わり）
+	 */
+	private ItemCursorSlice scroll(Specification<Item> spec, String sort, String cursor, int size) {
+
+		String sortKey = ItemSortHelper.normalize(sort);
+		Sort keysetSort = ItemSortHelper.toKeysetSort(sortKey);
+
+		Specification<Item> seek = spec.and(
+				ItemSpecifications.seekAfter(ItemCursor.decode(cursor, sortKey)));
+
+		List<ItemCardView> rows = itemRepository.findCardViews(seek, keysetSort, size + 1);
+
+		boolean hasNext = rows.size() > size;
+		List<ItemCardView> content = hasNext ? rows.subList(0, size) : rows;
+
+		Slice<ItemCardView> slice = new SliceImpl<>(content, PageRequest.of(0, size, keysetSort), hasNext);
+		String nextCursor = hasNext
+				? ItemCursor.of(sortKey, content.get(size - 1)).encode()
+				: null;
+
+		return new ItemCursorSlice(slice, nextCursor);
 	}
 
 	/* =========================
 	 * 取得系
+	 * - 画面に出す関連（出品者・カテゴリ・カード情報）は JOIN FETCH 済みで返す
 	 * ========================= */
 	public List<Item> getAllItems() {
-		return itemRepository.findAll();
+		return itemRepository.findAllWithDetails();
 	}
 
 	public Optional<Item> getItemById(Long id) {
-		return itemRepository.findById(id);
+		return itemRepository.findWithDetailsById(id);
 	}
 
 	public Optional<Item> findById(Long id) {
-		return itemRepository.findById(id);
+		return itemRepository.findWithDetailsById(id);
+	}
+
+	/** 画像アップロードの状態（ItemImagePipeline が PENDING → READY / FAILED に更新する） */
+	public Optional<ImageStatus> getImageStatus(Long id) {
+		return itemRepository.findImageStatusById(id);
 	}
 
 	public List<Item> getItemsBySeller(User seller) {
 		return itemRepository.findBySeller(seller);
 	}
 
+	/** 出品管理（/my-page/selling）用の軽量ビュー */
+	public List<ItemCardView> getItemCardsBySeller(User seller) {
+		return itemRepository.findCardViewsBySeller(seller);
+	}
+
 	public List<Item> getRecentItems() {
 		return itemRepository.findTop5ByOrderByCreatedAtDesc();
 	}
@@ -130,48 +328,173 @@ public class ItemService {
 	/* =========================
 	 * 保存・削除
 	 * ========================= */
-	@Transactional
+
+	/**
+	 * ★ 出品（画像はコミット後に ItemImagePipeline が非同期にアップロード）
+	 *
+	 * 画像があれば image_status = PENDING で保存して、すぐ戻る。
+	 * ImageStorage への保存はトランザクションの外（DB コネクションを握ったまま待たない）。
+	 */
 	public Item saveItem(Item item, MultipartFile[] imageFiles) throws IOException {
 
-		if (imageFiles == null || imageFiles.length == 0) {
-			return itemRepository.save(item);
+		ItemImageEdit edit = new ItemImageEdit();
+		if (imageFiles != null) {
+			edit.setAdditions(imageFiles);
 		}
+		return save(item, edit);
+	}
 
-		int max = Math.min(imageFiles.length, 8);
+	/**
+	 * ★ 商品の編集（画像は差分だけ：外す・差し替える・足す）
+	 *
+	 * - 触れていない画像はそのまま（価格だけの編集なら画像の I/O はゼロ）
+	 * - 中身が同じ画像（SHA-256 が一致）は上げ直さない
+	 * - 外した画像・差し替えで置き換わった画像は ImageOrphanCleaner がまとめて保存先から消す
+	 * - item の version が無い・DB と違う（別の編集・画像の反映が先に入った）ときは保存せず IllegalStateException
+	 */
+	public Item updateItem(Item item, ItemImageEdit edit) throws IOException {
+		return save(item, edit);
+	}
 
-		for (int i = 0; i < max; i++) {
-			MultipartFile f = imageFiles[i];
-			if (f == null || f.isEmpty())
-				continue;
+	private Item save(Item item, ItemImageEdit edit) throws IOException {
+
+		// ① 一時ファイルへ退避・ハッシュ（トランザクションの外）
+		List<ItemImagePipeline.Upload> spooled = spool(edit);
+
+		List<ItemImagePipeline.Upload> accepted = new ArrayList<>();
+		List<String> orphans = new ArrayList<>();
+
+		// ② 保存（短いトランザクション）
+		Item saved;
+		try {
+			saved = transactionTemplate.execute(status -> {
+				// 画像はパイプラインが書き換えるので、DB 上の現在値に差分を当てる
+				if (item.getId() != null) {
+					// 版の無い編集（古いフォーム・手作りの POST）は、間の更新を上書きしうるので受け付けない
+					if (item.getVersion() == null) {
+						throw new IllegalStateException(CONFLICT_MESSAGE);
+					}
+					itemRepository.findById(item.getId()).ifPresent(item::copyImagesFrom);
+				}
+
+				for (Long id : edit.getRemovals()) {
+					ItemImage image = item.getImageById(id);
+					if (image != null) {
+						item.removeImage(image.getPosition());
+						addUrls(orphans, image);
+					}
+				}
+
+				accepted.addAll(changedUploads(item, spooled));
+				if (!accepted.isEmpty()) {
+					item.setImageStatus(ImageStatus.PENDING);
+				}
+				return itemRepository.save(item);
+			});
+		} catch (OptimisticLockingFailureException ex) {
+			// 別の編集・画像の反映と競合（古い値で上書きしない）
+			itemImagePipeline.discard(spooled);
+			throw new IllegalStateException(CONFLICT_MESSAGE, ex);
+		} catch (RuntimeException ex) {
+			itemImagePipeline.discard(spooled);
+			throw ex;
+		}
 
-			String url = cloudinaryService.uploadFile(f);
+		// 上げ直し不要だった分の一時ファイル
+		List<ItemImagePipeline.Upload> skipped = new ArrayList<>(spooled);
+		skipped.removeIf(upload -> accepted.stream().anyMatch(a -> a == upload));
+		itemImagePipeline.discard(skipped);
 
-			switch (i) {
-			case 0 -> item.setImageUrl(url);
-			case 1 -> item.setImageUrl2(url);
-			case 2 -> item.setImageUrl3(url);
-			case 3 -> item.setImageUrl4(url);
-			case 4 -> item.setImageUrl5(url);
-			case 5 -> item.setImageUrl6(url);
-			case 6 -> item.setImageUrl7(url);
-			case 7 -> item.setImageUrl8(url);
+		// ③ コミット後に不要画像の削除予約・アップロード開始
+		imageOrphanCleaner.enqueue(orphans);
+		if (!accepted.isEmpty()) {
+			itemImagePipeline.submit(saved.getId(), accepted);
+		}
+		return saved;
+	}
+
+	/**
+	 * 差し替え（id 指定）→ 追加 の順に退避する
+	 */
+	private List<ItemImagePipeline.Upload> spool(ItemImageEdit edit) throws IOException {
+
+		List<ItemImagePipeline.Upload> spooled = new ArrayList<>();
+		try {
+			for (Map.Entry<Long, MultipartFile> entry : edit.getReplacements().entrySet()) {
+				addIfPresent(spooled, itemImagePipeline.spool(entry.getValue(), entry.getKey()));
+			}
+			int additions = 0;
+			for (MultipartFile file : edit.getAdditions()) {
+				if (additions < Item.MAX_IMAGES && addIfPresent(spooled, itemImagePipeline.spool(file, null))) {
+					additions++;
+				}
 			}
+		} catch (IOException | RuntimeException ex) {
+			itemImagePipeline.discard(spooled);
+			throw ex;
 		}
+		return spooled;
+	}
 
-		return itemRepository.save(item);
+	private static boolean addIfPresent(List<ItemImagePipeline.Upload> uploads, ItemImagePipeline.Upload upload) {
+		return upload != null && uploads.add(upload);
 	}
 
-	@Transactional
+	/**
+	 * 実際にアップロードが要るものだけ返す
+	 *
+	 * - 差し替え：差し替え先が無い（外された）、または中身が同じなら不要
+	 * - 追加：既にある画像・同じリクエストの画像と中身が同じなら不要。空き枠を超えた分も不要
+	 */
+	private static List<ItemImagePipeline.Upload> changedUploads(Item item, List<ItemImagePipeline.Upload> spooled) {
+
+		Set<String> hashes = new HashSet<>();
+		item.getImages().forEach(image -> hashes.add(image.getContentHash()));
+		int room = Item.MAX_IMAGES - item.getImages().size();
+
+		List<ItemImagePipeline.Upload> changed = new ArrayList<>();
+		for (ItemImagePipeline.Upload upload : spooled) {
+			if (upload.replaceImageId() != null) {
+				ItemImage target = item.getImageById(upload.replaceImageId());
+				if (target == null || upload.contentHash().equals(target.getContentHash())) {
+					continue;
+				}
+			} else {
+				if (room == 0 || hashes.contains(upload.contentHash())) {
+					continue;
+				}
+				room--;
+			}
+			hashes.add(upload.contentHash());
+			changed.add(upload);
+		}
+		return changed;
+	}
+
+	/**
+	 * 商品の削除（item_image は一緒に消え、保存先の画像はコミット後に全部削除予約：サムネイルも）
+	 */
 	public void deleteItem(Long itemId) {
 
-		Item item = itemRepository.findById(itemId)
-				.orElseThrow(() -> new IllegalArgumentException("商品が見つかりません"));
+		List<String> urls = transactionTemplate.execute(status -> {
+			Item item = itemRepository.findById(itemId)
+					.orElseThrow(() -> new IllegalArgumentException("商品が見つかりません"));
 
-		if (item.getImageUrl() != null) {
-			cloudinaryService.deleteFile(item.getImageUrl());
-		}
+			List<String> stored = new ArrayList<>();
+			item.getImages().forEach(image -> addUrls(stored, image));
+
+			itemRepository.delete(item);
+			return stored;
+		});
 
-		itemRepository.delete(item);
+		imageOrphanCleaner.enqueue(urls);
+	}
+
+	private static void addUrls(List<String> urls, ItemImage image) {
+		urls.add(image.getUrl());
+		if (image.getThumbnailUrl() != null) {
+			urls.add(image.getThumbnailUrl());
+		}
 	}
 
 	/* =========================
@@ -6,15 +6,21 @@ import org.springframework.data.domain.Sort;
  * 並び替え（sort）文字列を Spring Data の Sort に変換するユーティリティ。
  *
  * item_list.html の select が
- *   new / priceAsc / priceDesc
+ *   new / priceAsc / priceDesc / relevance
  * を送る想定で対応している。
  */
 public class ItemSortHelper {
 
+	/** 関連度順（キーワード / カード名の類似度順） */
+	public static final String RELEVANCE = "relevance";
+
 	/**
 	 * sort文字列を Sort に変換する
 	 *
-	 * @param sort "new" / "priceAsc" / "priceDesc" など
+	 * relevance（関連度順）は式（similarity）で並べるので Sort では表現できない。
+	 * Sort.unsorted() を返し、並び順は ItemSpecifications.orderByRelevance 側で付ける。
+	 *
+	 * @param sort "new" / "priceAsc" / "priceDesc" / "relevance" など
 	 * @return Sort
 	 */
 	public static Sort toSort(String sort) {
@@ -29,6 +35,8 @@ public class ItemSortHelper {
 			return Sort.by(Sort.Direction.ASC, "price");
 		case "priceDesc":
 			return Sort.by(Sort.Direction.DESC, "price");
+		case RELEVANCE:
+			return Sort.unsorted();
 		case "new":
 		default:
 			// createdAt が無いなら "id" に変えてOK
@@ -36,6 +44,44 @@ public class ItemSortHelper {
 		}
 	}
 
+	/**
+	 * キーセットページング用の Sort
+	 *
+	 * 同じ createdAt / price の商品が並んでも順序が揺れないよう、
+	 * 第2キーに id を同じ向きで付ける。
+	 */
+	public static Sort toKeysetSort(String sort) {
+
+		switch (normalize(sort)) {
+		case "priceAsc":
+			return Sort.by(Sort.Direction.ASC, "price", "id");
+		case "priceDesc":
+			return Sort.by(Sort.Direction.DESC, "price", "id");
+		default:
+			return Sort.by(Sort.Direction.DESC, "createdAt", "id");
+		}
+	}
+
+	/**
+	 * 関連度順かどうか
+	 */
+	public static boolean isRelevance(String sort) {
+		return RELEVANCE.equals(sort);
+	}
+
+	/**
+	 * sort文字列を new / priceAsc / priceDesc のいずれかに揃える
+	 *
+	 * ※ relevance はスコアが小数で同点も多く、カーソルにできないので new に寄せる
+	 */
+	public static String normalize(String sort) {
+
+		if ("priceAsc".equals(sort) || "priceDesc".equals(sort)) {
+			return sort;
+		}
+		return "new";
+	}
+
 	// インスタンス化させない（ユーティリティクラス）
 	private ItemSortHelper() {
 	}
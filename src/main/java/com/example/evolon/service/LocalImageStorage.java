@@ -0,0 +1,130 @@
+package com.example.evolon.service;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ★ ローカルディスクの ImageStorage（evolon.images.storage=local）
+ *
+ * evolon.images.local.root の下に {先頭2文字}/{UUID}.jpg で置き、URL は /media/{先頭2文字}/{UUID}.jpg。
+ * - 書き込みは FileChannel.transferTo（カーネル内コピー）で同じディレクトリの一時名へ → ATOMIC_MOVE
+ *   （配信中のファイルが書きかけで見えることは無い）
+ * - 名前は毎回新しい UUID で、同じ名前のファイルを書き換えることは無い
+ *   → 名前をそのまま ETag にでき、長期キャッシュ（immutable）で配信できる（MediaController）
+ * - 先頭2文字でディレクトリを分けて、1ディレクトリのファイル数を抑える
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "evolon.images.storage", havingValue = "local")
+public class LocalImageStorage implements ImageStorage {
+
+	// 配信 URL の接頭辞（MediaController と SecurityConfig の /media/**）
+	public static final String URL_PREFIX = "/media/";
+
+	private static final Pattern SHARD = Pattern.compile("[0-9a-f]{2}");
+	private static final Pattern NAME = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}\\.jpg");
+
+	private final Path root;
+
+	public LocalImageStorage(@Value("${evolon.images.local.root:./data/images}") String root) throws IOException {
+		this(Paths.get(root));
+	}
+
+	LocalImageStorage(Path root) throws IOException {
+		this.root = root.toAbsolutePath().normalize();
+		Files.createDirectories(this.root);
+		log.info("画像の保存先（ローカル）: {}", this.root);
+	}
+
+	@Override
+	public List<String> store(List<Path> files) {
+
+		List<String> urls = new ArrayList<>(files.size());
+		try {
+			for (Path file : files) {
+				urls.add(file == null ? null : storeOne(file));
+			}
+			return urls;
+
+		} catch (IOException ex) {
+			urls.forEach(this::delete);
+			throw new IllegalStateException("画像の保存に失敗しました", ex);
+		}
+	}
+
+	private String storeOne(Path source) throws IOException {
+
+		String name = UUID.randomUUID() + ".jpg";
+		String shard = name.substring(0, 2);
+
+		Path dir = Files.createDirectories(root.resolve(shard));
+		Path tmp = dir.resolve(name + ".part");
+		try {
+			try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+					FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+				long size = in.size();
+				long position = 0;
+				while (position < size) {
+					position += in.transferTo(position, size - position, out);
+				}
+			}
+			Files.move(tmp, dir.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+
+		} catch (IOException ex) {
+			Files.deleteIfExists(tmp);
+			throw ex;
+		}
+
+		return URL_PREFIX + shard + "/" + name;
+	}
+
+	@Override
+	public void delete(String url) {
+
+		if (url == null || !url.startsWith(URL_PREFIX)) {
+			return;
+		}
+
+		String[] parts = url.substring(URL_PREFIX.length()).split("/");
+		if (parts.length != 2) {
+			return;
+		}
+		resolve(parts[0], parts[1]).ifPresent(path -> {
+			try {
+				Files.deleteIfExists(path);
+			} catch (IOException ex) {
+				log.warn("画像を削除できません: {}", path, ex);
+			}
+		});
+	}
+
+	/**
+	 * 配信用：/media/{shard}/{name} → 実ファイル（形式が違う・存在しない場合は empty）
+	 *
+	 * shard・name は形式を厳密に確認するので、../ などで root の外は指せない
+	 */
+	public Optional<Path> resolve(String shard, String name) {
+
+		if (!SHARD.matcher(shard).matches() || !NAME.matcher(name).matches() || !name.startsWith(shard)) {
+			return Optional.empty();
+		}
+		Path path = root.resolve(shard).resolve(name);
+		return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+	}
+}
@@ -0,0 +1,27 @@
+package com.example.evolon.service;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * サービスが持つスレッドプール用（prefix + 連番の名前、デーモンスレッド）
+ *
+ * スレッドダンプ・ログでどのプールのスレッドか分かるように名前を付ける。
+ * デーモンなので、停止処理（@PreDestroy）が終わればアプリの終了を妨げない。
+ */
+final class NamedThreadFactory implements ThreadFactory {
+
+	private final String prefix;
+	private final AtomicInteger count = new AtomicInteger();
+
+	NamedThreadFactory(String prefix) {
+		this.prefix = prefix;
+	}
+
+	@Override
+	public Thread newThread(Runnable r) {
+		Thread thread = new Thread(r, prefix + count.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	}
+}
@@ -0,0 +1,44 @@
+package com.example.evolon.service;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * OCR エンジン（前処理済み画像 → 文字列）の差し替え口
+ *
+ * evolon.ocr.engine で選ぶ：
+ *   vision（既定） … Google Cloud Vision（VisionOcrEngine）
+ *   fixture        … 画像ハッシュごとに用意した文字列を返すオフライン版（FixtureOcrEngine）。
+ *                    ネットワーク・認証情報なしでのテストや負荷試験用
+ *
+ * 入力は OcrImagePreprocessor で番号帯だけ・グレーにした画像。
+ * 文字列 → カード番号の解析（CardNumberParserService）とキャッシュは OcrService 側で行う。
+ */
+public interface OcrEngine {
+
+	/**
+	 * 画像ごとの全文（引数と同じ順番・同じ件数）
+	 *
+	 * 文字が無ければ空文字。画像単位の失敗は Text.failed（他の画像は続行）、
+	 * エンジン自体の失敗（通信エラー等）は例外
+	 */
+	List<Text> detectText(List<BufferedImage> images);
+
+	/**
+	 * 1画像分の結果（error が null なら成功）
+	 */
+	record Text(String text, String error) {
+
+		public static Text of(String text) {
+			return new Text(text == null ? "" : text, null);
+		}
+
+		public static Text failed(String error) {
+			return new Text("", error);
+		}
+
+		public boolean isFailed() {
+			return error != null;
+		}
+	}
+}
@@ -0,0 +1,253 @@
+package com.example.evolon.service;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * OCR 用の画像前処理（カード番号がある下部だけ・グレースケール・PNG）
+ *
+ * 12MP のスマホ写真を丸ごとデコード → getSubimage → drawImage でグレー化 → PNG を
+ * 伸びていく ByteArrayOutputStream に書き出し → ByteString にもう一度コピー、だと
+ * 1リクエストで数百 MB のゴミが出るので、
+ *
+ * ① デコード時に下部 28% だけ（setSourceRegion）を、幅 maxWidth 以下に間引いて（setSourceSubsampling）読む
+ * ② RGB → グレーは Graphics を使わずラスタの配列を直接変換
+ * ③ PNG はスレッドごとに使い回すバッファへ（ディスクキャッシュなし）書き、ByteString へのコピーは1回だけ
+ */
+@Component
+public class OcrImagePreprocessor {
+
+	// 下部何割を使うか（カード番号領域）
+	static final double CROP_FROM = 0.72;
+
+	// これ以上大きい PNG を書いたバッファはスレッドに残さない
+	private static final int MAX_RETAINED_BUFFER = 4 * 1024 * 1024;
+
+	private static final ThreadLocal<ReusableBuffer> BUFFERS =
+			ThreadLocal.withInitial(() -> new ReusableBuffer(256 * 1024));
+
+	// 切り出し後の幅の上限（これを超える画像はデコード時に間引く）
+	private final int maxWidth;
+
+	public OcrImagePreprocessor(@Value("${evolon.ocr.preprocess.max-width:1600}") int maxWidth) {
+		this.maxWidth = Math.max(1, maxWidth);
+	}
+
+	/**
+	 * 画像 → 下部切り出し・縮小済みのグレースケール画像（TYPE_BYTE_GRAY）
+	 */
+	public BufferedImage toGrayBottom(InputStream in) throws IOException {
+
+		try (ImageInputStream iis = new MemoryCacheImageInputStream(in)) {
+
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+			if (!readers.hasNext()) {
+				throw new IllegalArgumentException("画像の読み込みに失敗しました");
+			}
+
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(iis, true, true);
+
+				int w = reader.getWidth(0);
+				int h = reader.getHeight(0);
+				int cropY = (int) (h * CROP_FROM);
+
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setSourceRegion(new Rectangle(0, cropY, w, h - cropY));
+
+				int step = (w + maxWidth - 1) / maxWidth;
+				if (step > 1) {
+					param.setSourceSubsampling(step, step, 0, 0);
+				}
+
+				return toGray(reader.read(0, param));
+
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	/**
+	 * ★ 写真全体をデコード（CardSheetService 用）
+	 *
+	 * 幅 maxPhotoWidth を超える写真だけデコード時に間引く。変換はせず、デコード結果をそのまま返す。
+	 */
+	public BufferedImage decode(InputStream in, int maxPhotoWidth) throws IOException {
+
+		try (ImageInputStream iis = new MemoryCacheImageInputStream(in)) {
+
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+			if (!readers.hasNext()) {
+				throw new IllegalArgumentException("画像の読み込みに失敗しました");
+			}
+
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(iis, true, true);
+
+				ImageReadParam param = reader.getDefaultReadParam();
+				int limit = Math.max(1, maxPhotoWidth);
+				int step = (reader.getWidth(0) + limit - 1) / limit;
+				if (step > 1) {
+					param.setSourceSubsampling(step, step, 0, 0);
+				}
+				return reader.read(0, param);
+
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	/**
+	 * 番号帯の幅を maxWidth 以下にする間引き幅（toGrayBottom と同じ基準）
+	 */
+	int stepFor(int width) {
+		return Math.max(1, (width + maxWidth - 1) / maxWidth);
+	}
+
+	/**
+	 * グレースケール画像 → PNG の ByteString
+	 */
+	public ByteString encodePng(BufferedImage gray) throws IOException {
+
+		ReusableBuffer buffer = BUFFERS.get();
+		buffer.reset();
+
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+		try (ImageOutputStream ios = new MemoryCacheImageOutputStream(buffer)) {
+			writer.setOutput(ios);
+			writer.write(gray);
+		} finally {
+			writer.dispose();
+		}
+
+		ByteString bytes = buffer.toByteString();
+
+		if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+			BUFFERS.remove();
+		}
+		return bytes;
+	}
+
+	/* =========================
+	 * RGB → グレー（輝度 = 0.299R + 0.587G + 0.114B）
+	 * ========================= */
+	static BufferedImage toGray(BufferedImage src) {
+
+		if (src.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+			return src;
+		}
+		return toGray(src, new Rectangle(0, 0, src.getWidth(), src.getHeight()), 1);
+	}
+
+	/**
+	 * ★ 写真の一部（region）だけを step 画素おきにグレー化（CardSheetService：1枚の写真から複数カードを切り出す用）
+	 *
+	 * getSubimage したものを渡すと親ラスタ付きになり遅い経路に落ちるので、元画像と領域をそのまま受け取る。
+	 * 元画像は読むだけなので、別スレッドから同時に呼んでよい。
+	 */
+	static BufferedImage toGray(BufferedImage src, Rectangle region, int step) {
+
+		Rectangle r = region.intersection(new Rectangle(0, 0, src.getWidth(), src.getHeight()));
+		if (r.isEmpty()) {
+			throw new IllegalArgumentException("切り出し領域が画像の外です: " + region);
+		}
+
+		int s = Math.max(1, step);
+		int w = (r.width + s - 1) / s;
+		int h = (r.height + s - 1) / s;
+		BufferedImage gray = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_GRAY);
+		byte[] out = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+
+		WritableRaster raster = src.getRaster();
+
+		// ★ JPEG / PNG のデコード結果（byte 配列に RGB が並んでいる）は配列を直接読む
+		if (raster.getParent() == null
+				&& raster.getDataBuffer() instanceof DataBufferByte buffer
+				&& buffer.getNumBanks() == 1
+				&& raster.getSampleModel() instanceof PixelInterleavedSampleModel sm
+				&& src.getColorModel() instanceof ComponentColorModel cm
+				&& cm.getColorSpace().isCS_sRGB()
+				&& cm.getNumColorComponents() == 3) {
+
+			byte[] data = buffer.getData();
+			int[] offsets = sm.getBandOffsets();
+			int pixelStride = sm.getPixelStride();
+			int scanlineStride = sm.getScanlineStride();
+			int base = buffer.getOffset();
+			int red = offsets[0];
+			int green = offsets[1];
+			int blue = offsets[2];
+			int xStride = pixelStride * s;
+
+			int o = 0;
+			for (int y = 0; y < h; y++) {
+				int p = base + (r.y + y * s) * scanlineStride + r.x * pixelStride;
+				for (int x = 0; x < w; x++, p += xStride) {
+					out[o++] = (byte) luma(data[p + red] & 0xff, data[p + green] & 0xff, data[p + blue] & 0xff);
+				}
+			}
+			return gray;
+		}
+
+		// それ以外（パレット PNG・CMYK 等）は1行ずつ ARGB で
+		int[] row = new int[r.width];
+		int o = 0;
+		for (int y = 0; y < h; y++) {
+			src.getRGB(r.x, r.y + y * s, r.width, 1, row, 0, r.width);
+			for (int x = 0; x < w; x++) {
+				int argb = row[x * s];
+				out[o++] = (byte) luma((argb >> 16) & 0xff, (argb >> 8) & 0xff, argb & 0xff);
+			}
+		}
+		return gray;
+	}
+
+	private static int luma(int r, int g, int b) {
+		return (r * 77 + g * 150 + b * 29) >> 8;
+	}
+
+	/**
+	 * 内部配列をそのまま ByteString にコピーできる ByteArrayOutputStream
+	 * （toByteArray() の余分なコピーをしない）
+	 */
+	private static final class ReusableBuffer extends ByteArrayOutputStream {
+
+		ReusableBuffer(int size) {
+			super(size);
+		}
+
+		ByteString toByteString() {
+			return ByteString.copyFrom(buf, 0, count);
+		}
+
+		int capacity() {
+			return buf.length;
+		}
+	}
+}
@@ -0,0 +1,344 @@
+package com.example.evolon.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.evolon.dto.OcrJobStatus;
+import com.example.evolon.dto.ParsedCardNumber;
+import com.example.evolon.entity.CardMaster;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 非同期OCRジョブ
+ *
+ * Vision の往復（数百 ms〜）の間 Tomcat のスレッドを握らないよう、
+ * 受付（submit）は画像を受け取ってジョブIDを返すだけにし、OCR 自体は専用のスレッドプールで行う。
+ *
+ * - スレッド数・待ち行列の長さは固定（evolon.ocr.jobs.threads / queue-capacity）
+ *   → 行列が満杯なら RejectedExecutionException（呼び出し側で 503）。
+ *     OCR が混んでも商品一覧などの画面のスレッドは奪わない
+ * - 結果はポーリング（status）か SSE（subscribe）で受け取る
+ * - 同期で結果を返す OCR（一括・バインダー写真）は runBounded で同時実行数を
+ *   evolon.ocr.sync.max-concurrent に抑える。空きが無ければ待たずに RejectedExecutionException（503）
+ * - ジョブは投稿したユーザーからしか見えない
+ * - 画像は受付時に一時ファイルへ退避し、ジョブが終わったら消す
+ *   （待ち行列のジョブが画像をヒープに抱えない：最大 20MB × 行列の長さ になるため）
+ * - 終わったジョブ（SSE の購読ごと）は evolon.ocr.jobs.retention 経過後に捨てる
+ *   （受付のたびと、retention ごとの定期掃除の両方で。受付が途絶えてもメモリに残らない）
+ *
+ * メトリクス：evolon.ocr.jobs.queue.depth、evolon.ocr.jobs.active、
+ *            evolon.ocr.jobs.wait（受付→開始）、evolon.ocr.jobs.run（outcome=done/failed）、
+ *            evolon.ocr.jobs.rejected、evolon.ocr.sync.active、evolon.ocr.sync.rejected
+ */
+@Slf4j
+@Service
+public class OcrJobService {
+
+	private final OcrService ocrService;
+	private final CardMasterService cardMasterService;
+
+	private final ThreadPoolExecutor executor;
+	private final ScheduledExecutorService sweeper;
+	private final Duration retention;
+	private final Duration sseTimeout;
+
+	private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+	// 同期 OCR の同時実行枠
+	private final Semaphore syncPermits;
+	private final int maxSyncConcurrent;
+
+	private final Timer waitTimer;
+	private final Timer doneTimer;
+	private final Timer failedTimer;
+	private final Counter rejected;
+	private final Counter syncRejected;
+
+	public OcrJobService(
+			OcrService ocrService,
+			CardMasterService cardMasterService,
+			MeterRegistry meterRegistry,
+			@Value("${evolon.ocr.jobs.threads:4}") int threads,
+			@Value("${evolon.ocr.jobs.queue-capacity:50}") int queueCapacity,
+			@Value("${evolon.ocr.jobs.retention:10m}") Duration retention,
+			@Value("${evolon.ocr.jobs.sse-timeout:60s}") Duration sseTimeout,
+			@Value("${evolon.ocr.sync.max-concurrent:2}") int maxSyncConcurrent) {
+		this.ocrService = ocrService;
+		this.cardMasterService = cardMasterService;
+		this.retention = retention;
+		this.sseTimeout = sseTimeout;
+		this.maxSyncConcurrent = Math.max(1, maxSyncConcurrent);
+		this.syncPermits = new Semaphore(this.maxSyncConcurrent);
+
+		this.executor = new ThreadPoolExecutor(
+				threads, threads,
+				60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(queueCapacity),
+				new NamedThreadFactory("ocr-job-"),
+				new ThreadPoolExecutor.AbortPolicy());
+		this.executor.allowCoreThreadTimeOut(true);
+
+		// 終わったジョブの定期掃除
+		this.sweeper = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("ocr-job-sweeper-"));
+		long interval = Math.max(1, retention.toMillis());
+		this.sweeper.scheduleWithFixedDelay(this::evictExpired, interval, interval, TimeUnit.MILLISECONDS);
+
+		Gauge.builder("evolon.ocr.jobs.queue.depth", executor, e -> e.getQueue().size())
+				.register(meterRegistry);
+		Gauge.builder("evolon.ocr.jobs.active", executor, ThreadPoolExecutor::getActiveCount)
+				.register(meterRegistry);
+		this.waitTimer = Timer.builder("evolon.ocr.jobs.wait")
+				.description("OCR ジョブの受付から実行開始までの待ち時間")
+				.register(meterRegistry);
+		this.doneTimer = Timer.builder("evolon.ocr.jobs.run")
+				.tag("outcome", "done")
+				.register(meterRegistry);
+		this.failedTimer = Timer.builder("evolon.ocr.jobs.run")
+				.tag("outcome", "failed")
+				.register(meterRegistry);
+		this.rejected = Counter.builder("evolon.ocr.jobs.rejected")
+				.register(meterRegistry);
+
+		Gauge.builder("evolon.ocr.sync.active", this, s -> s.maxSyncConcurrent - s.syncPermits.availablePermits())
+				.register(meterRegistry);
+		this.syncRejected = Counter.builder("evolon.ocr.sync.rejected")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * ジョブ受付（画像はここで一時ファイルにコピーする。リクエスト後にアップロードの一時ファイルは消えるため）
+	 *
+	 * @throws RejectedExecutionException 待ち行列が満杯
+	 */
+	public OcrJobStatus submit(String owner, MultipartFile image) throws IOException {
+
+		evictExpired();
+
+		Path spooled = Files.createTempFile("evolon-ocr-job-", ".tmp");
+		try {
+			image.transferTo(spooled);
+		} catch (IOException | RuntimeException ex) {
+			deleteQuietly(spooled);
+			throw ex;
+		}
+
+		Job job = new Job(UUID.randomUUID().toString(), owner, spooled);
+		jobs.put(job.id, job);
+
+		try {
+			executor.execute(() -> run(job));
+		} catch (RejectedExecutionException ex) {
+			jobs.remove(job.id);
+			deleteQuietly(spooled);
+			rejected.increment();
+			throw ex;
+		}
+
+		return job.status;
+	}
+
+	/**
+	 * ★ 同期 OCR（呼び出し元のスレッドで実行）の同時実行数を抑える
+	 *
+	 * 写真のデコード・Vision の往復で Tomcat のスレッドを長く握るので、
+	 * 枠（evolon.ocr.sync.max-concurrent）が埋まっていたら待たずに断る。
+	 *
+	 * @throws RejectedExecutionException 枠が埋まっている
+	 */
+	public <T> T runBounded(OcrCall<T> call) throws IOException {
+
+		if (!syncPermits.tryAcquire()) {
+			syncRejected.increment();
+			throw new RejectedExecutionException("同期 OCR の同時実行数の上限");
+		}
+		try {
+			return call.call();
+		} finally {
+			syncPermits.release();
+		}
+	}
+
+	@FunctionalInterface
+	public interface OcrCall<T> {
+		T call() throws IOException;
+	}
+
+	/**
+	 * 現在の状態（無い・他人のジョブなら empty）
+	 */
+	public Optional<OcrJobStatus> status(String owner, String jobId) {
+		return find(owner, jobId).map(job -> job.status);
+	}
+
+	/**
+	 * SSE で状態を受け取る（無い・他人のジョブなら empty）
+	 *
+	 * 登録時に現在の状態を1回送り、以降は変化のたびに "status" イベントを送る。
+	 * 終わったら complete する。
+	 */
+	public Optional<SseEmitter> subscribe(String owner, String jobId) {
+
+		return find(owner, jobId).map(job -> {
+			SseEmitter emitter = new SseEmitter(sseTimeout.toMillis());
+			emitter.onCompletion(() -> job.emitters.remove(emitter));
+			emitter.onTimeout(() -> job.emitters.remove(emitter));
+			emitter.onError(ex -> job.emitters.remove(emitter));
+
+			synchronized (job) {
+				if (!send(emitter, job.status)) {
+					return emitter;
+				}
+				if (job.status.isFinished()) {
+					emitter.complete();
+				} else {
+					job.emitters.add(emitter);
+				}
+			}
+			return emitter;
+		});
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		sweeper.shutdownNow();
+		executor.shutdownNow();
+		// 実行されなかったジョブの一時ファイル
+		jobs.values().forEach(job -> deleteQuietly(job.image));
+	}
+
+	/* =========================
+	 * ワーカースレッド側
+	 * ========================= */
+	private void run(Job job) {
+
+		waitTimer.record(System.nanoTime() - job.submittedNanos, TimeUnit.NANOSECONDS);
+		update(job, new OcrJobStatus(job.id, "RUNNING", null, null, List.of(), null));
+
+		long start = System.nanoTime();
+
+		OcrJobStatus result;
+		try (InputStream in = Files.newInputStream(job.image)) {
+			ParsedCardNumber parsed = ocrService.extractCardNumber(in);
+			result = toResult(job.id, parsed);
+			doneTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+		} catch (Exception ex) {
+			log.warn("OCR ジョブ失敗 id={}: {}", job.id, ex.getMessage());
+			result = new OcrJobStatus(job.id, "FAILED", null, null, List.of(), "OCRに失敗しました");
+			failedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+		} finally {
+			deleteQuietly(job.image);
+		}
+
+		job.finishedNanos = System.nanoTime();
+		update(job, result);
+	}
+
+	private OcrJobStatus toResult(String jobId, ParsedCardNumber parsed) {
+
+		if (!parsed.isValid()) {
+			return new OcrJobStatus(jobId, "DONE", null, null, List.of(), "カード番号を検出できませんでした");
+		}
+
+		Optional<CardMaster> card = cardMasterService.findByOcrNumber(parsed);
+		if (card.isPresent()) {
+			return new OcrJobStatus(jobId, "DONE", parsed, card.get(), List.of(), null);
+		}
+		return new OcrJobStatus(jobId, "DONE", parsed, null,
+				cardMasterService.findCandidates(parsed, 5), "カードマスタ未登録");
+	}
+
+	private void update(Job job, OcrJobStatus status) {
+
+		synchronized (job) {
+			job.status = status;
+
+			for (SseEmitter emitter : job.emitters) {
+				if (send(emitter, status) && status.isFinished()) {
+					emitter.complete();
+				}
+			}
+			if (status.isFinished()) {
+				job.emitters.clear();
+			}
+		}
+	}
+
+	private static boolean send(SseEmitter emitter, OcrJobStatus status) {
+		try {
+			emitter.send(SseEmitter.event().name("status").data(status));
+			return true;
+		} catch (IOException | IllegalStateException ex) {
+			// 切断済み（ブラウザを閉じた等）
+			emitter.completeWithError(ex);
+			return false;
+		}
+	}
+
+	private static void deleteQuietly(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException ex) {
+			log.warn("一時ファイルを削除できません: {}", path, ex);
+		}
+	}
+
+	private Optional<Job> find(String owner, String jobId) {
+		Job job = jobs.get(jobId);
+		return job != null && job.owner.equals(owner) ? Optional.of(job) : Optional.empty();
+	}
+
+	private void evictExpired() {
+		long cutoff = System.nanoTime() - retention.toNanos();
+		jobs.values().removeIf(job -> job.status.isFinished() && job.finishedNanos - cutoff < 0);
+	}
+
+	private static final class Job {
+
+		final String id;
+		final String owner;
+		final long submittedNanos = System.nanoTime();
+		final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+		// 退避した画像（ジョブが終わったら消す）
+		final Path image;
+		volatile OcrJobStatus status;
+		volatile long finishedNanos;
+
+		Job(String id, String owner, Path image) {
+			this.id = id;
+			this.owner = owner;
+			this.image = image;
+			this.status = new OcrJobStatus(id, "QUEUED", null, null, List.of(), null);
+		}
+	}
+}
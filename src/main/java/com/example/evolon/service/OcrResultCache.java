@@ -0,0 +1,302 @@
+package com.example.evolon.service;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.evolon.dto.ParsedCardNumber;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * OCR 結果キャッシュ（同じ写真の再OCR＝有料の Vision 呼び出しを省く）
+ *
+ * - キー：前処理後（下部切り出し・グレースケール）画像の画素の SHA-256
+ *   → 同じ写真なら再アップロード・別の出品者でも同じキーになる
+ * - メモリ：件数上限つき LRU ＋ TTL
+ * - evolon.ocr.cache.persistent=true なら ocr_result_cache テーブルにも保存し、
+ *   再起動後・複数インスタンス間でも使い回す
+ * - 期限切れの行は evolon.ocr.cache.purge-interval ごとにテーブルから消す（読まれなくなった行を溜めない）
+ * - 「カード番号を検出できなかった」結果もキャッシュする（Vision のエラーは入れない）
+ *
+ * メトリクス：evolon.ocr.cache.lookups（result=hit/miss, tier=memory/table）、
+ *            evolon.ocr.cache.hit.ratio、evolon.ocr.cache.size
+ */
+@Slf4j
+@Component
+public class OcrResultCache {
+
+	private static final String SELECT_SQL = """
+			SELECT set_code, card_number FROM ocr_result_cache
+			WHERE content_hash = ? AND created_at > ?
+			""";
+
+	private static final String UPSERT_SQL = """
+			INSERT INTO ocr_result_cache (content_hash, set_code, card_number, created_at)
+			VALUES (?, ?, ?, ?)
+			ON CONFLICT (content_hash) DO UPDATE SET
+			    set_code = EXCLUDED.set_code,
+			    card_number = EXCLUDED.card_number,
+			    created_at = EXCLUDED.created_at
+			""";
+
+	private static final String PURGE_SQL = "DELETE FROM ocr_result_cache WHERE created_at <= ?";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final Clock clock;
+
+	private final int maxEntries;
+	private final Duration ttl;
+	private final boolean persistent;
+
+	// 期限切れの掃除（persistent=false なら null）
+	private final ScheduledExecutorService purger;
+
+	// アクセス順 LinkedHashMap（＝LRU）。読み書きとも this で同期
+	private final LinkedHashMap<String, Entry> entries;
+
+	private final Counter memoryHits;
+	private final Counter tableHits;
+	private final Counter misses;
+
+	@Autowired
+	public OcrResultCache(
+			JdbcTemplate jdbcTemplate,
+			MeterRegistry meterRegistry,
+			@Value("${evolon.ocr.cache.max-entries:10000}") int maxEntries,
+			@Value("${evolon.ocr.cache.ttl:7d}") Duration ttl,
+			@Value("${evolon.ocr.cache.persistent:false}") boolean persistent,
+			@Value("${evolon.ocr.cache.purge-interval:1h}") Duration purgeInterval) {
+		this(jdbcTemplate, meterRegistry, maxEntries, ttl, persistent, purgeInterval, Clock.systemUTC());
+	}
+
+	OcrResultCache(
+			JdbcTemplate jdbcTemplate,
+			MeterRegistry meterRegistry,
+			int maxEntries,
+			Duration ttl,
+			boolean persistent,
+			Duration purgeInterval,
+			Clock clock) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.clock = clock;
+		this.maxEntries = maxEntries;
+		this.ttl = ttl;
+		this.persistent = persistent;
+
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > OcrResultCache.this.maxEntries;
+			}
+		};
+
+		this.memoryHits = lookups(meterRegistry, "hit", "memory");
+		this.tableHits = lookups(meterRegistry, "hit", "table");
+		this.misses = lookups(meterRegistry, "miss", "none");
+		Gauge.builder("evolon.ocr.cache.hit.ratio", this, OcrResultCache::hitRatio)
+				.register(meterRegistry);
+		Gauge.builder("evolon.ocr.cache.size", this, OcrResultCache::size)
+				.register(meterRegistry);
+
+		// テーブルを使うときだけ定期掃除（メモリは LRU の件数上限で足りる）
+		if (persistent) {
+			this.purger = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("ocr-cache-purger-"));
+			long interval = Math.max(1, purgeInterval.toMillis());
+			this.purger.scheduleWithFixedDelay(this::purgeExpired, interval, interval, TimeUnit.MILLISECONDS);
+		} else {
+			this.purger = null;
+		}
+	}
+
+	/**
+	 * 前処理後の画像 → キャッシュキー（SHA-256 の16進）
+	 *
+	 * PNG にエンコードする前の画素をそのまま使うので、ヒット時はエンコードも省ける。
+	 */
+	public static String keyOf(BufferedImage image) {
+
+		MessageDigest sha256;
+		try {
+			sha256 = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+
+		sha256.update(ByteBuffer.allocate(12)
+				.putInt(image.getType())
+				.putInt(image.getWidth())
+				.putInt(image.getHeight())
+				.array());
+
+		if (image.getRaster().getDataBuffer() instanceof DataBufferByte bytes) {
+			for (byte[] bank : bytes.getBankData()) {
+				sha256.update(bank);
+			}
+		} else {
+			// グレースケール以外（通常は来ない）は RGB で
+			int[] rgb = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+			ByteBuffer buf = ByteBuffer.allocate(rgb.length * 4);
+			buf.asIntBuffer().put(rgb);
+			sha256.update(buf);
+		}
+
+		return HexFormat.of().formatHex(sha256.digest());
+	}
+
+	/**
+	 * キャッシュ済みの結果（無い・期限切れなら empty）
+	 */
+	public Optional<ParsedCardNumber> get(String key) {
+
+		Instant now = clock.instant();
+
+		synchronized (this) {
+			Entry entry = entries.get(key);
+			if (entry != null) {
+				if (entry.expiresAt().isAfter(now)) {
+					memoryHits.increment();
+					return Optional.of(copyOf(entry.value()));
+				}
+				entries.remove(key);
+			}
+		}
+
+		if (persistent) {
+			Optional<ParsedCardNumber> stored = selectFromTable(key, now);
+			if (stored.isPresent()) {
+				tableHits.increment();
+				putInMemory(key, stored.get(), now);
+				return stored;
+			}
+		}
+
+		misses.increment();
+		return Optional.empty();
+	}
+
+	public void put(String key, ParsedCardNumber value) {
+
+		Instant now = clock.instant();
+		putInMemory(key, value, now);
+
+		if (persistent) {
+			try {
+				jdbcTemplate.update(UPSERT_SQL,
+						key, value.getSetCode(), value.getCardNumber(), Timestamp.from(now));
+			} catch (DataAccessException ex) {
+				// キャッシュの保存失敗で OCR 自体は失敗させない
+				log.warn("OCR キャッシュ保存失敗: {}", ex.getMessage());
+			}
+		}
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * 全件削除（メモリのみ。テーブルは TTL で読まれなくなる）
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * 期限切れの削除（メモリとテーブル）。削除したテーブルの行数を返す
+	 */
+	int purgeExpired() {
+
+		Instant now = clock.instant();
+
+		synchronized (this) {
+			entries.values().removeIf(entry -> !entry.expiresAt().isAfter(now));
+		}
+
+		if (!persistent) {
+			return 0;
+		}
+
+		try {
+			// SELECT_SQL の「created_at > now - ttl」で読まれなくなった行
+			int purged = jdbcTemplate.update(PURGE_SQL, Timestamp.from(now.minus(ttl)));
+			if (purged > 0) {
+				log.info("期限切れの OCR キャッシュを削除しました（{}件）", purged);
+			}
+			return purged;
+		} catch (DataAccessException ex) {
+			// 次回にまた消せばよいので、ログだけ
+			log.warn("OCR キャッシュ掃除失敗: {}", ex.getMessage());
+			return 0;
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (purger != null) {
+			purger.shutdownNow();
+		}
+	}
+
+	private double hitRatio() {
+		double hits = memoryHits.count() + tableHits.count();
+		double total = hits + misses.count();
+		return total == 0 ? 0 : hits / total;
+	}
+
+	private synchronized void putInMemory(String key, ParsedCardNumber value, Instant now) {
+		// 共有するので呼び出し側が変更しても影響しないようコピーで持つ
+		entries.put(key, new Entry(copyOf(value), now.plus(ttl)));
+	}
+
+	private Optional<ParsedCardNumber> selectFromTable(String key, Instant now) {
+		try {
+			List<ParsedCardNumber> rows = jdbcTemplate.query(SELECT_SQL,
+					(rs, i) -> new ParsedCardNumber(rs.getString("set_code"), rs.getString("card_number")),
+					key, Timestamp.from(now.minus(ttl)));
+			return rows.stream().findFirst();
+		} catch (DataAccessException ex) {
+			log.warn("OCR キャッシュ参照失敗: {}", ex.getMessage());
+			return Optional.empty();
+		}
+	}
+
+	private static ParsedCardNumber copyOf(ParsedCardNumber value) {
+		return new ParsedCardNumber(value.getSetCode(), value.getCardNumber());
+	}
+
+	private static Counter lookups(MeterRegistry registry, String result, String tier) {
+		return Counter.builder("evolon.ocr.cache.lookups")
+				.tag("result", result)
+				.tag("tier", tier)
+				.register(registry);
+	}
+
+	private record Entry(ParsedCardNumber value, Instant expiresAt) {
+	}
+}
@@ -1,26 +1,19 @@
 package com.example.evolon.service;
 
-import java.awt.Graphics;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import javax.imageio.ImageIO;
+import java.util.Map;
+import java.util.Optional;
 
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.example.evolon.dto.ParsedCardNumber;
-import com.google.cloud.vision.v1.AnnotateImageRequest;
-import com.google.cloud.vision.v1.AnnotateImageResponse;
-import com.google.cloud.vision.v1.BatchAnnotateImagesResponse;
-import com.google.cloud.vision.v1.Feature;
-import com.google.cloud.vision.v1.Image;
-import com.google.cloud.vision.v1.ImageAnnotatorClient;
-import com.google.protobuf.ByteString;
+import com.example.evolon.service.OcrEngine.Text;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -28,125 +21,183 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class OcrService {
 
+	private final OcrEngine ocrEngine;
+	private final OcrResultCache ocrResultCache;
+	private final OcrImagePreprocessor preprocessor;
+	private final CardNumberParserService cardNumberParser;
+
+	public OcrService(
+			OcrEngine ocrEngine,
+			OcrResultCache ocrResultCache,
+			OcrImagePreprocessor preprocessor,
+			CardNumberParserService cardNumberParser) {
+		this.ocrEngine = ocrEngine;
+		this.ocrResultCache = ocrResultCache;
+		this.preprocessor = preprocessor;
+		this.cardNumberParser = cardNumberParser;
+	}
+
 	/**
 	 * カード番号専用OCR（下部領域のみ）
-	 * 例: HMC 299/742 → setCode=MC, cardNumber=299/742
+	 * 例: "H sv8a 212/187 SAR" → setCode=sv8a, cardNumber=212/187（読み取りは CardNumberScanner）
+	 *
+	 * ★ 同じ写真（前処理後の画素が同じ）は OcrResultCache から返し、OCR エンジンを呼ばない
 	 */
 	public ParsedCardNumber extractCardNumberOnly(MultipartFile imageFile) throws IOException {
 
-		BufferedImage original = ImageIO.read(imageFile.getInputStream());
-		if (original == null) {
-			throw new IllegalArgumentException("画像の読み込みに失敗しました");
+		try (InputStream in = imageFile.getInputStream()) {
+			return extractCardNumber(in);
 		}
+	}
 
-		// ① 下部領域を切り出し
-		BufferedImage cropped = cropBottomArea(original);
+	/**
+	 * カード番号専用OCR（アップロード済みのバイト列から：OcrJobService 用）
+	 */
+	public ParsedCardNumber extractCardNumber(InputStream in) throws IOException {
 
-		// ② グレースケール化
-		BufferedImage gray = new BufferedImage(
-				cropped.getWidth(),
-				cropped.getHeight(),
-				BufferedImage.TYPE_BYTE_GRAY);
+		BufferedImage gray = preprocessor.toGrayBottom(in);
+		String cacheKey = OcrResultCache.keyOf(gray);
 
-		Graphics g = gray.getGraphics();
-		g.drawImage(cropped, 0, 0, null);
-		g.dispose();
+		Optional<ParsedCardNumber> cached = ocrResultCache.get(cacheKey);
+		if (cached.isPresent()) {
+			return cached.get();
+		}
 
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		ImageIO.write(gray, "png", baos);
-		ByteString imgBytes = ByteString.copyFrom(baos.toByteArray());
+		Text text = ocrEngine.detectText(List.of(gray)).get(0);
 
-		// ③ Vision API（TEXT_DETECTION）
-		Image image = Image.newBuilder()
-				.setContent(imgBytes)
-				.build();
+		if (text.isFailed()) {
+			throw new RuntimeException(text.error());
+		}
 
-		Feature feature = Feature.newBuilder()
-				.setType(Feature.Type.TEXT_DETECTION)
-				.build();
+		ParsedCardNumber parsed = toParsedCardNumber(text.text());
+		ocrResultCache.put(cacheKey, parsed);
+		return parsed;
+	}
 
-		AnnotateImageRequest request = AnnotateImageRequest.newBuilder()
-				.setImage(image)
-				.addFeatures(feature)
-				.build();
+	/**
+	 * ★ 複数画像のカード番号OCR（バインダー一括出品用）
+	 *
+	 * 前処理した画像をまとめて OcrEngine に渡す（Vision なら images-per-call 枚ずつ1回の batchAnnotateImages）。
+	 * キャッシュ済みの画像（同じリクエスト内の重複も含む）は送らない。
+	 * 結果は引数と同じ順番・同じ件数で返す。
+	 * 読めない画像・OCR エンジン側で失敗した画像は ParsedCardNumber.invalid()（他の画像は続行）
+	 */
+	public List<ParsedCardNumber> extractCardNumbers(List<MultipartFile> imageFiles) {
+
+		List<BufferedImage> grays = new ArrayList<>(imageFiles.size());
+		for (MultipartFile file : imageFiles) {
+			try {
+				grays.add(preprocess(file));
+			} catch (IOException | IllegalArgumentException ex) {
+				log.warn("OCR 前処理失敗 file={}: {}", file.getOriginalFilename(), ex.getMessage());
+				grays.add(null);
+			}
+		}
+		return extractCardNumbersFromGray(grays);
+	}
 
-		try (ImageAnnotatorClient client = ImageAnnotatorClient.create()) {
+	/**
+	 * ★ 前処理済み（グレー・番号帯のみ）画像のカード番号OCR
+	 *
+	 * extractCardNumbers と CardSheetService（1枚の写真から切り出した番号帯）の共通部分。
+	 * null の要素は ParsedCardNumber.invalid() を返す。
+	 */
+	public List<ParsedCardNumber> extractCardNumbersFromGray(List<BufferedImage> grays) {
+
+		List<ParsedCardNumber> results = new ArrayList<>(grays.size());
+		List<BufferedImage> pending = new ArrayList<>();
+		List<Integer> pendingIndexes = new ArrayList<>();
+		List<String> pendingKeys = new ArrayList<>();
 
-			BatchAnnotateImagesResponse response = client.batchAnnotateImages(List.of(request));
+		// 同じ画像が複数枚あれば、最初の1枚の結果をコピーする（キャッシュキー → 最初の位置）
+		Map<String, Integer> firstIndexByKey = new HashMap<>();
+		List<int[]> duplicates = new ArrayList<>();
 
-			AnnotateImageResponse res = response.getResponses(0);
+		for (int i = 0; i < grays.size(); i++) {
+			results.add(ParsedCardNumber.invalid());
 
-			if (res.hasError()) {
-				throw new RuntimeException(
-						"Vision API Error: " + res.getError().getMessage());
+			BufferedImage gray = grays.get(i);
+			if (gray == null) {
+				continue;
 			}
 
-			if (res.getTextAnnotationsList().isEmpty()) {
-				log.warn("カード番号OCR結果なし");
-				return ParsedCardNumber.invalid();
+			String cacheKey = OcrResultCache.keyOf(gray);
+			Integer first = firstIndexByKey.putIfAbsent(cacheKey, i);
+			if (first != null) {
+				duplicates.add(new int[] { i, first });
+				continue;
 			}
 
-			String ocrText = res.getTextAnnotations(0).getDescription();
-			log.info("===== CARD NUMBER OCR =====\n{}", ocrText);
+			Optional<ParsedCardNumber> cached = ocrResultCache.get(cacheKey);
+			if (cached.isPresent()) {
+				results.set(i, cached.get());
+				continue;
+			}
 
-			return parseCardNumber(ocrText);
+			pending.add(gray);
+			pendingIndexes.add(i);
+			pendingKeys.add(cacheKey);
 		}
-	}
 
-	/* =========================
-	 * 下部約28%を切り出す（カード番号領域）
-	 * ========================= */
-	private BufferedImage cropBottomArea(BufferedImage original) {
+		if (!pending.isEmpty()) {
+			List<Text> texts = ocrEngine.detectText(pending);
+			for (int j = 0; j < texts.size(); j++) {
+				Text text = texts.get(j);
+				int index = pendingIndexes.get(j);
 
-		int w = original.getWidth();
-		int h = original.getHeight();
+				if (text.isFailed()) {
+					log.warn("OCR 失敗 (#{}): {}", index, text.error());
+					continue;
+				}
+				ParsedCardNumber parsed = toParsedCardNumber(text.text());
+				results.set(index, parsed);
+				ocrResultCache.put(pendingKeys.get(j), parsed);
+			}
+		}
 
-		int cropY = (int) (h * 0.72);
-		int cropHeight = h - cropY;
+		for (int[] dup : duplicates) {
+			ParsedCardNumber source = results.get(dup[1]);
+			results.set(dup[0], new ParsedCardNumber(source.getSetCode(), source.getCardNumber()));
+		}
 
-		return original.getSubimage(0, cropY, w, cropHeight);
+		return results;
 	}
 
 	/* =========================
-	 * OCR文字列 → setCode / cardNumber 抽出（安全版）
+	 * 画像 → 下部切り出し・グレースケール（OcrImagePreprocessor）
 	 * ========================= */
-	private ParsedCardNumber parseCardNumber(String text) {
-		if (text == null || text.isBlank()) {
-			log.warn("❌ カード番号抽出失敗: 空文字");
-			return ParsedCardNumber.invalid();
+	private BufferedImage preprocess(MultipartFile imageFile) throws IOException {
+
+		try (InputStream in = imageFile.getInputStream()) {
+			return preprocessor.toGrayBottom(in);
 		}
+	}
 
-		// 先頭の H/I/J を単語単位で削除（必要なら複数行対応）
-		String cleaned = text.replaceAll("(?m)^\\s*[HIJ]\\s+", "");
+	private ParsedCardNumber toParsedCardNumber(String ocrText) {
 
-		// sv/m で始まるセットコードを全体から検索
-		Pattern setCodePattern = Pattern.compile("\\b(sv|m)[a-z0-9]{1,4}\\b", Pattern.CASE_INSENSITIVE);
-		Matcher setCodeMatcher = setCodePattern.matcher(cleaned);
+		if (ocrText.isBlank()) {
+			log.warn("カード番号OCR結果なし");
+			return ParsedCardNumber.invalid();
+		}
 
-		if (setCodeMatcher.find()) {
-			String setCode = setCodeMatcher.group().toLowerCase();
+		log.info("===== CARD NUMBER OCR =====\n{}", ocrText);
 
-			// セットコードの後ろ 200文字以内にカード番号があるか探す
-			int start = setCodeMatcher.end();
-			String tail = cleaned.substring(start, Math.min(start + 200, cleaned.length()));
-			Pattern numberPattern = Pattern.compile("(\\d{1,3}/\\d{1,3})");
-			Matcher numberMatcher = numberPattern.matcher(tail);
+		return parseCardNumber(ocrText);
+	}
 
-			if (numberMatcher.find()) {
-				String cardNumber = numberMatcher.group();
+	/* =========================
+	 * OCR文字列 → setCode / cardNumber 抽出（CardNumberParserService）
+	 * ========================= */
+	private ParsedCardNumber parseCardNumber(String text) {
 
-				// v8a → sv8a 補正
-				if (setCode.matches("^v\\d")) {
-					setCode = "s" + setCode;
-				}
+		ParsedCardNumber parsed = cardNumberParser.parse(text);
 
-				log.info("🎯 抽出成功 setCode={}, cardNumber={}", setCode, cardNumber);
-				return new ParsedCardNumber(setCode, cardNumber);
-			}
+		if (parsed.isValid()) {
+			log.info("🎯 抽出成功 setCode={}, cardNumber={}", parsed.getSetCode(), parsed.getCardNumber());
+		} else {
+			log.warn("❌ カード番号抽出失敗");
 		}
-
-		log.warn("❌ カード番号抽出失敗");
-		return ParsedCardNumber.invalid();
+		return parsed;
 	}
 
 }
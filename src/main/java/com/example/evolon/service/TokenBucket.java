@@ -0,0 +1,77 @@
+package com.example.evolon.service;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * トークンバケット（外部 API 呼び出しのレート制限）
+ *
+ * ratePerSecond 個/秒で補充され、最大 burst 個まで貯まる。1回の呼び出しで1個使う。
+ *
+ * ★ 予約方式：トークンが足りないときは「残高をマイナスにして、自分の番が来るまでの時間」を返すだけで、
+ *   待機（sleep）はロックの外で呼び出し側が行う。同時に来た呼び出しは到着順に
+ *   1/rate 秒ずつずれた時刻に割り当てられ、互いの待機でブロックし合わない。
+ */
+public final class TokenBucket {
+
+	private final double ratePerNano;
+	private final double burst;
+	private final LongSupplier nanoTime;
+
+	// 現在のトークン残高（予約中はマイナスになる）
+	private double tokens;
+	private long lastRefill;
+
+	public TokenBucket(double ratePerSecond, int burst) {
+		this(ratePerSecond, burst, System::nanoTime);
+	}
+
+	TokenBucket(double ratePerSecond, int burst, LongSupplier nanoTime) {
+		if (ratePerSecond <= 0 || burst < 1) {
+			throw new IllegalArgumentException("rate > 0, burst >= 1 で指定してください");
+		}
+		this.ratePerNano = ratePerSecond / 1_000_000_000d;
+		this.burst = burst;
+		this.nanoTime = nanoTime;
+		this.tokens = burst;
+		this.lastRefill = nanoTime.getAsLong();
+	}
+
+	/**
+	 * 1個予約して、使ってよい時刻までの待ち時間（ns）を返す
+	 *
+	 * 待ち時間が maxWait を超える場合は予約せずに -1
+	 */
+	public synchronized long reserve(Duration maxWait) {
+
+		refill();
+
+		long wait = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / ratePerNano);
+		if (wait > maxWait.toNanos()) {
+			return -1;
+		}
+		tokens -= 1;
+		return wait;
+	}
+
+	/**
+	 * 1個取得（必要なら待つ）。maxWait 以内に取れない場合は待たずに false
+	 */
+	public boolean acquire(Duration maxWait) throws InterruptedException {
+
+		long wait = reserve(maxWait);
+		if (wait < 0) {
+			return false;
+		}
+		if (wait > 0) {
+			Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+		}
+		return true;
+	}
+
+	private void refill() {
+		long now = nanoTime.getAsLong();
+		tokens = Math.min(burst, tokens + (now - lastRefill) * ratePerNano);
+		lastRefill = now;
+	}
+}
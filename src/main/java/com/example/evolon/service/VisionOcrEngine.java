@@ -0,0 +1,122 @@
+package com.example.evolon.service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.google.cloud.vision.v1.AnnotateImageRequest;
+import com.google.cloud.vision.v1.AnnotateImageResponse;
+import com.google.cloud.vision.v1.Feature;
+import com.google.cloud.vision.v1.Image;
+import com.google.cloud.vision.v1.ImageAnnotatorClient;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Google Cloud Vision（TEXT_DETECTION）による OcrEngine（既定）
+ *
+ * 画像は PNG にして maxImagesPerCall 枚ずつ1回の batchAnnotateImages にまとめて送る。
+ * 共有クライアント（VisionConfig）を使うので、呼び出しごとの接続確立は無い。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "evolon.ocr.engine", havingValue = "vision", matchIfMissing = true)
+public class VisionOcrEngine implements OcrEngine {
+
+	// ★ TEXT_DETECTION 固定なので使い回す
+	private static final Feature TEXT_DETECTION = Feature.newBuilder()
+			.setType(Feature.Type.TEXT_DETECTION)
+			.build();
+
+	private final ObjectProvider<ImageAnnotatorClient> clientProvider;
+	private final OcrImagePreprocessor preprocessor;
+
+	// batchAnnotateImages 1回に載せる画像数（Vision API の上限は 16）
+	private final int maxImagesPerCall;
+
+	public VisionOcrEngine(
+			ObjectProvider<ImageAnnotatorClient> clientProvider,
+			OcrImagePreprocessor preprocessor,
+			@Value("${evolon.ocr.batch.images-per-call:16}") int maxImagesPerCall) {
+		this.clientProvider = clientProvider;
+		this.preprocessor = preprocessor;
+		this.maxImagesPerCall = Math.max(1, Math.min(maxImagesPerCall, 16));
+	}
+
+	@Override
+	public List<Text> detectText(List<BufferedImage> images) {
+
+		Text[] results = new Text[images.size()];
+		List<AnnotateImageRequest> pending = new ArrayList<>(maxImagesPerCall);
+		List<Integer> pendingIndexes = new ArrayList<>(maxImagesPerCall);
+
+		for (int i = 0; i < images.size(); i++) {
+			try {
+				pending.add(toRequest(images.get(i)));
+			} catch (IOException ex) {
+				results[i] = Text.failed("PNG 変換失敗: " + ex.getMessage());
+				continue;
+			}
+			pendingIndexes.add(i);
+
+			if (pending.size() == maxImagesPerCall) {
+				annotateInto(pending, pendingIndexes, results);
+			}
+		}
+
+		if (!pending.isEmpty()) {
+			annotateInto(pending, pendingIndexes, results);
+		}
+
+		return Arrays.asList(results);
+	}
+
+	/* =========================
+	 * まとめて送信 → results の該当位置に書き戻し
+	 * ========================= */
+	private void annotateInto(List<AnnotateImageRequest> requests, List<Integer> indexes, Text[] results) {
+
+		List<AnnotateImageResponse> responses = clientProvider.getObject()
+				.batchAnnotateImages(requests)
+				.getResponsesList();
+
+		for (int j = 0; j < responses.size(); j++) {
+			AnnotateImageResponse res = responses.get(j);
+			int index = indexes.get(j);
+
+			if (res.hasError()) {
+				log.warn("Vision API Error (#{}): {}", index, res.getError().getMessage());
+				results[index] = Text.failed("Vision API Error: " + res.getError().getMessage());
+			} else if (res.getTextAnnotationsList().isEmpty()) {
+				results[index] = Text.of("");
+			} else {
+				results[index] = Text.of(res.getTextAnnotations(0).getDescription());
+			}
+		}
+
+		requests.clear();
+		indexes.clear();
+	}
+
+	/* =========================
+	 * 前処理済み画像 → PNG → リクエスト
+	 * ========================= */
+	private AnnotateImageRequest toRequest(BufferedImage gray) throws IOException {
+
+		Image image = Image.newBuilder()
+				.setContent(preprocessor.encodePng(gray))
+				.build();
+
+		return AnnotateImageRequest.newBuilder()
+				.setImage(image)
+				.addFeatures(TEXT_DETECTION)
+				.build();
+	}
+}
@@ -4,6 +4,7 @@ DROP TABLE IF EXISTS favorite_item CASCADE;
 DROP TABLE IF EXISTS review CASCADE;
 DROP TABLE IF EXISTS app_order CASCADE;
 DROP TABLE IF EXISTS card_info CASCADE;
+DROP TABLE IF EXISTS item_image CASCADE;
 DROP TABLE IF EXISTS item CASCADE;
 DROP TABLE IF EXISTS category CASCADE;
 DROP TABLE IF EXISTS review_stats CASCADE;
@@ -11,6 +12,11 @@ DROP TABLE IF EXISTS user_complaint CASCADE;
 DROP TABLE IF EXISTS inquiry CASCADE;
 DROP TABLE IF EXISTS users CASCADE;
 DROP TABLE IF EXISTS card_master CASCADE;
+DROP TABLE IF EXISTS ocr_result_cache CASCADE;
+
+-- ========== EXTENSION ==========
+-- 商品名・カード名の部分一致検索（trigram GIN インデックス / similarity()）
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
 
 -- ========== USERS ==========
 CREATE TABLE users (
@@ -51,6 +57,7 @@ CREATE TABLE item (
     user_id INT NOT NULL,
 
     name VARCHAR(255) NOT NULL,
+    name_key VARCHAR(255),
     description TEXT,
     price NUMERIC(10,2) NOT NULL,
 
@@ -58,14 +65,10 @@ CREATE TABLE item (
 
     status VARCHAR(20) NOT NULL DEFAULT 'SELLING',
 
-    image_url TEXT,
-	image_url2 TEXT,
-  	image_url3 TEXT,
-  	image_url4 TEXT,
-  	image_url5 TEXT,
-	image_url6 TEXT,
-	image_url7 TEXT,
-	image_url8 TEXT,
+    -- 画像の非同期アップロード状態（READY / PENDING / FAILED）
+    image_status VARCHAR(20) NOT NULL DEFAULT 'READY',
+    -- 楽観ロック（Item#version）
+    version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
 
@@ -78,13 +81,35 @@ CREATE TABLE item (
     FOREIGN KEY (category_id) REFERENCES category(id)
 );
 
+-- ========== ITEM IMAGE ==========
+-- 商品画像（1商品に最大8枚。position 0 が一覧・サムネイルに使う1枚目）
+-- 並べ替えで position を入れ替えるので、一意制約はコミット時に検査する（DEFERRABLE）
+CREATE TABLE item_image (
+    id SERIAL PRIMARY KEY,
+    item_id INT NOT NULL,
+    position INT NOT NULL,
+
+    url TEXT NOT NULL,
+    width INT,
+    height INT,
+    thumbnail_url TEXT,
+    content_hash VARCHAR(64),
+
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    FOREIGN KEY (item_id) REFERENCES item(id) ON DELETE CASCADE,
+    CONSTRAINT uq_item_image_position UNIQUE (item_id, position) DEFERRABLE INITIALLY DEFERRED
+);
+
 -- ========== CARD INFO ==========
 CREATE TABLE card_info (
     id SERIAL PRIMARY KEY,
     item_id INT NOT NULL UNIQUE,
 
     card_name VARCHAR(255) NOT NULL,
+    card_name_key VARCHAR(255),
     pack_name VARCHAR(255),
+    pack_name_key VARCHAR(255),
     rarity VARCHAR(50) NOT NULL,
     regulation VARCHAR(50) NOT NULL,
     condition VARCHAR(50) NOT NULL,
@@ -216,6 +241,7 @@ CREATE TABLE  card_master (
     set_code VARCHAR(20) NOT NULL,
     card_number VARCHAR(20) NOT NULL,
     card_name VARCHAR(255) NOT NULL,
+    card_name_key VARCHAR(255),
     pack_name VARCHAR(255),
     rarity VARCHAR(50) NOT NULL,
     printed_regulation VARCHAR(5) NOT NULL,
@@ -223,12 +249,42 @@ CREATE TABLE  card_master (
     UNIQUE (set_code, card_number)
 );
 
+-- OCR 結果キャッシュ（OcrResultCache：evolon.ocr.cache.persistent=true のときだけ使う）
+-- content_hash = 前処理後（下部切り出し・グレースケール）画像の SHA-256
+-- set_code / card_number が NULL = カード番号を検出できなかった画像
+CREATE TABLE ocr_result_cache (
+    content_hash CHAR(64) PRIMARY KEY,
+    set_code VARCHAR(20),
+    card_number VARCHAR(20),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
 
 
 -- ========== INDEX ==========
 CREATE INDEX idx_item_user_id ON item(user_id);
 CREATE INDEX idx_item_category_id ON item(category_id);
 
+-- キーセットページング用（ItemSortHelper.toKeysetSort と同じ並び）
+CREATE INDEX idx_item_created_at_id ON item(created_at DESC, id DESC);
+CREATE INDEX idx_item_price_id ON item(price, id);
+CREATE INDEX idx_item_status ON item(status);
+
+-- OCR キャッシュの期限切れ掃除（OcrResultCache.purgeExpired）用
+CREATE INDEX idx_ocr_result_cache_created_at ON ocr_result_cache(created_at);
+
+-- カード条件検索（ItemSpecifications.cardFilters）用
+CREATE INDEX idx_card_info_rarity ON card_info(rarity);
+CREATE INDEX idx_card_info_regulation ON card_info(regulation);
+CREATE INDEX idx_card_info_condition ON card_info(condition);
+
+-- 部分一致（*_key LIKE '%...%'）と関連度順（similarity()）用
+-- *_key は SearchKeyNormalizer（NFKC・かな→カナ・小文字・空白除去）済みの値
+CREATE INDEX idx_item_name_key_trgm ON item USING gin (name_key gin_trgm_ops);
+CREATE INDEX idx_card_info_card_name_key_trgm ON card_info USING gin (card_name_key gin_trgm_ops);
+CREATE INDEX idx_card_info_pack_name_key_trgm ON card_info USING gin (pack_name_key gin_trgm_ops);
+CREATE INDEX idx_card_master_card_name_key_trgm ON card_master USING gin (card_name_key gin_trgm_ops);
+
 CREATE INDEX idx_order_item_id ON app_order(item_id);
 CREATE INDEX idx_order_buyer_id ON app_order(buyer_id);
 
@@ -0,0 +1,107 @@
+package com.example.evolon.bench;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.evolon.domain.OcrEditDistance;
+import com.example.evolon.domain.enums.PrintedRegulation;
+import com.example.evolon.domain.enums.Rarity;
+import com.example.evolon.dto.CardMasterCandidate;
+import com.example.evolon.entity.CardMaster;
+import com.example.evolon.repository.CardMasterRepository;
+import com.example.evolon.service.CardMasterIndex;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * CardMasterIndex.findSimilar（あいまい検索）のベンチマーク
+ *
+ * 100 セット × 300 枚 = 30,000 枚の card_master に対し、OCR の読み間違いを含む番号で引く。
+ * 比較用に全件と OcrEditDistance を総当たりする場合も測る。
+ *
+ * 実行：IDE から main()、または
+ *   mvn test-compile && java -cp target/test-classes:target/classes:(test classpath) \
+ *     com.example.evolon.bench.CardMasterSimilarBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardMasterSimilarBenchmark {
+
+	@Param({
+			"sv8e|212/187", // セットコードの読み間違い
+			"sv8a|2l2/187" // カード番号の見間違い（l → 1）
+	})
+	public String query;
+
+	private CardMasterIndex index;
+	private List<CardMaster> all;
+	private String setCode;
+	private String cardNumber;
+
+	@Setup
+	public void setUp() {
+
+		all = new ArrayList<>();
+		for (int s = 0; s < 100; s++) {
+			String code = "sv" + (s / 4 + 1) + "abcd".charAt(s % 4);
+			for (int n = 1; n <= 300; n++) {
+				all.add(new CardMaster(null, code, String.format("%03d/%03d", n, 187),
+						"card" + n, Rarity.C, "pack", PrintedRegulation.H));
+			}
+		}
+
+		CardMasterRepository repository = mock(CardMasterRepository.class);
+		when(repository.findAll()).thenReturn(all);
+		index = new CardMasterIndex(repository, new SimpleMeterRegistry());
+		index.reload();
+
+		String[] parts = query.split("\\|");
+		setCode = parts[0];
+		cardNumber = parts[1];
+	}
+
+	@Benchmark
+	public List<CardMasterCandidate> bkTree() {
+		return index.findSimilar(setCode, cardNumber, 4, 5);
+	}
+
+	@Benchmark
+	public int bruteForce() {
+		String key = setCode + cardNumber;
+		int best = Integer.MAX_VALUE;
+		for (CardMaster cm : all) {
+			best = Math.min(best, OcrEditDistance.distance(key, cm.getSetCode() + cm.getCardNumber()));
+		}
+		return best;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(CardMasterSimilarBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
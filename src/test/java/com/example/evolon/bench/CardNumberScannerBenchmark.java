@@ -0,0 +1,97 @@
+package com.example.evolon.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.evolon.domain.CardNumberScanner;
+import com.example.evolon.dto.ParsedCardNumber;
+
+/**
+ * CardNumberScanner のベンチマーク（旧 OcrService.parseCardNumber / CardNumberParserService との比較）
+ *
+ * 実行：IDE から main()、または
+ *   mvn test-compile && java -cp target/test-classes:target/classes:(test classpath) \
+ *     com.example.evolon.bench.CardNumberScannerBenchmark
+ * main() は -prof gc 付き。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardNumberScannerBenchmark {
+
+	private static final Pattern LEGACY_SET_CODE = Pattern.compile("sv[0-9]+[a-z]");
+	private static final Pattern LEGACY_CARD_NUMBER = Pattern.compile("\\d{1,3}\\s*/\\s*\\d{1,3}");
+
+	@Param({
+			"sv8a 212/187", // 手入力
+			"Illus. saino H sv8a 212/187 SAR ©2024 Pokémon/Nintendo/Creatures/GAME FREAK" // OCR（改行は JMH の表示が崩れるので空白）
+	})
+	public String input;
+
+	@Benchmark
+	public ParsedCardNumber scanner() {
+		return CardNumberScanner.DEFAULT.scan(input);
+	}
+
+	/** 旧 OcrService.parseCardNumber（呼び出しごとに Pattern をコンパイル） */
+	@Benchmark
+	public ParsedCardNumber legacyOcr() {
+
+		String cleaned = input.replaceAll("(?m)^\\s*[HIJ]\\s+", "");
+
+		Pattern setCodePattern = Pattern.compile("\\b(sv|m)[a-z0-9]{1,4}\\b", Pattern.CASE_INSENSITIVE);
+		Matcher setCodeMatcher = setCodePattern.matcher(cleaned);
+		if (setCodeMatcher.find()) {
+			String setCode = setCodeMatcher.group().toLowerCase();
+			int start = setCodeMatcher.end();
+			String tail = cleaned.substring(start, Math.min(start + 200, cleaned.length()));
+			Matcher numberMatcher = Pattern.compile("(\\d{1,3}/\\d{1,3})").matcher(tail);
+			if (numberMatcher.find()) {
+				return new ParsedCardNumber(setCode, numberMatcher.group());
+			}
+		}
+		return ParsedCardNumber.invalid();
+	}
+
+	/** 旧 CardNumberParserService.parse */
+	@Benchmark
+	public ParsedCardNumber legacyAutoFill() {
+
+		String normalized = input
+				.toLowerCase()
+				.replaceAll("[\\s　]+", "")
+				.replace("／", "/");
+
+		Matcher set = LEGACY_SET_CODE.matcher(normalized);
+		Matcher number = LEGACY_CARD_NUMBER.matcher(normalized);
+		return new ParsedCardNumber(
+				set.find() ? set.group() : null,
+				number.find() ? number.group() : null);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(CardNumberScannerBenchmark.class.getSimpleName())
+				.addProfiler("gc")
+				.build())
+				.run();
+	}
+}
@@ -0,0 +1,360 @@
+package com.example.evolon.bench;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * 出品画面の OCR（POST /api/ocr）と自動入力（GET /items/auto-fill）の負荷試験ハーネス
+ *
+ * 起動中のアプリに対して、同時接続数を段階的に上げながら一定時間リクエストを投げ続け、
+ * 段階ごとのスループット（req/s）・レイテンシ（p50 / p95 / p99 / max）・エラー数（503 含む）を出す。
+ * 新しい弾の発売前に evolon.ocr.jobs.threads や Tomcat のスレッド数を決めるための目安用。
+ *
+ * Vision を呼ばずに測るときは、アプリ側を evolon.ocr.engine=fixture で起動する
+ * （evolon.ocr.fixture.latency / latency-per-image で Vision の往復時間を模擬できる）。
+ *
+ * 実行：IDE から main()、または
+ *   mvn test-compile && java -cp target/test-classes:target/classes:(test classpath) \
+ *     -Dload.user=seller@example.com -Dload.password=... \
+ *     com.example.evolon.bench.OcrLoadHarness
+ *
+ * 設定（-D）：
+ *   load.base-url     既定 http://localhost:8080
+ *   load.user / load.password   ログインするユーザー（/api/ocr はログイン必須）
+ *   load.target       ocr / auto-fill / mixed（既定 mixed：交互に投げる）
+ *   load.concurrency  同時接続数の段階（既定 1,4,8,16,32）
+ *   load.duration     1段階の計測時間（既定 20s）、load.warmup 計測前の空回し（既定 5s）
+ *   load.images       OCR に送る画像のディレクトリ（未指定なら load.image-count 枚の合成画像。
+ *                     OcrResultCache に当たらないよう、画像はすべて別の画素にしてある）
+ */
+public class OcrLoadHarness {
+
+	private static final Pattern CSRF = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+
+	private final HttpClient client;
+	private final String baseUrl;
+	private final List<byte[]> images;
+	private final List<String> autoFillTexts;
+	private String csrfToken;
+
+	OcrLoadHarness(String baseUrl, List<byte[]> images, List<String> autoFillTexts) {
+		this.baseUrl = baseUrl;
+		this.images = images;
+		this.autoFillTexts = autoFillTexts;
+		this.client = HttpClient.newBuilder()
+				.cookieHandler(new CookieManager())
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		String baseUrl = System.getProperty("load.base-url", "http://localhost:8080");
+		String target = System.getProperty("load.target", "mixed");
+		int[] concurrency = Arrays.stream(System.getProperty("load.concurrency", "1,4,8,16,32").split(","))
+				.map(String::trim)
+				.mapToInt(Integer::parseInt)
+				.toArray();
+		Duration duration = Duration.parse("PT" + System.getProperty("load.duration", "20s"));
+		Duration warmup = Duration.parse("PT" + System.getProperty("load.warmup", "5s"));
+
+		String imageDir = System.getProperty("load.images");
+		List<byte[]> images = imageDir != null
+				? readImages(Path.of(imageDir))
+				: syntheticImages(Integer.getInteger("load.image-count", 200));
+
+		OcrLoadHarness harness = new OcrLoadHarness(baseUrl, images, corpusTexts());
+		harness.login(System.getProperty("load.user", "user@example.com"), System.getProperty("load.password", "password"));
+
+		System.out.printf("%-10s %6s %9s %9s %9s %9s %9s %9s %7s%n",
+				"target", "conc", "requests", "req/s", "p50(ms)", "p95(ms)", "p99(ms)", "max(ms)", "errors");
+
+		for (int c : concurrency) {
+			harness.run(target, c, warmup);
+			for (Stats stats : harness.run(target, c, duration)) {
+				stats.print(c, duration);
+			}
+		}
+	}
+
+	/* =========================
+	 * 1段階分：c 本のスレッドで duration の間投げ続ける
+	 * ========================= */
+	List<Stats> run(String target, int concurrency, Duration duration) throws InterruptedException {
+
+		Stats ocr = new Stats("ocr");
+		Stats autoFill = new Stats("auto-fill");
+		long deadline = System.nanoTime() + duration.toNanos();
+
+		ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+		for (int w = 0; w < concurrency; w++) {
+			int worker = w;
+			workers.execute(() -> {
+				Recorder ocrRecorder = new Recorder();
+				Recorder autoFillRecorder = new Recorder();
+				int n = worker;
+				while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+					boolean doOcr = switch (target) {
+					case "ocr" -> true;
+					case "auto-fill" -> false;
+					default -> n % 2 == 0;
+					};
+					if (doOcr) {
+						ocrRecorder.record(this::postOcr);
+					} else {
+						autoFillRecorder.record(this::getAutoFill);
+					}
+					n++;
+				}
+				ocr.merge(ocrRecorder);
+				autoFill.merge(autoFillRecorder);
+			});
+		}
+		workers.shutdown();
+		workers.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+
+		return Stream.of(ocr, autoFill).filter(s -> s.count() > 0).toList();
+	}
+
+	/* =========================
+	 * リクエスト（2xx 以外は false）
+	 * ========================= */
+	private boolean postOcr() throws IOException, InterruptedException {
+
+		byte[] image = images.get(ThreadLocalRandom.current().nextInt(images.size()));
+		String boundary = "----evolon" + UUID.randomUUID();
+
+		ByteArrayOutputStream body = new ByteArrayOutputStream(image.length + 256);
+		body.writeBytes(("--" + boundary + "\r\n"
+				+ "Content-Disposition: form-data; name=\"image\"; filename=\"card.png\"\r\n"
+				+ "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+		body.writeBytes(image);
+		body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/ocr"))
+				.header("Content-Type", "multipart/form-data; boundary=" + boundary)
+				.header("X-CSRF-TOKEN", csrfToken)
+				.POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+				.build();
+
+		return isSuccess(client.send(request, HttpResponse.BodyHandlers.discarding()));
+	}
+
+	private boolean getAutoFill() throws IOException, InterruptedException {
+
+		String text = autoFillTexts.get(ThreadLocalRandom.current().nextInt(autoFillTexts.size()));
+		HttpRequest request = HttpRequest.newBuilder(URI.create(
+				baseUrl + "/items/auto-fill?text=" + URLEncoder.encode(text, StandardCharsets.UTF_8)))
+				.GET()
+				.build();
+
+		return isSuccess(client.send(request, HttpResponse.BodyHandlers.discarding()));
+	}
+
+	private static boolean isSuccess(HttpResponse<?> response) {
+		return response.statusCode() / 100 == 2;
+	}
+
+	/* =========================
+	 * フォームログイン（セッション Cookie は CookieManager が保持）
+	 * ========================= */
+	void login(String user, String password) throws IOException, InterruptedException {
+
+		String form = "username=" + URLEncoder.encode(user, StandardCharsets.UTF_8)
+				+ "&password=" + URLEncoder.encode(password, StandardCharsets.UTF_8)
+				+ "&_csrf=" + URLEncoder.encode(fetchCsrfToken(), StandardCharsets.UTF_8);
+
+		HttpResponse<Void> response = client.send(
+				HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+						.header("Content-Type", "application/x-www-form-urlencoded")
+						.POST(HttpRequest.BodyPublishers.ofString(form))
+						.build(),
+				HttpResponse.BodyHandlers.discarding());
+
+		String location = response.headers().firstValue("Location").orElse("");
+		if (response.statusCode() != 302 || location.contains("error")) {
+			throw new IllegalStateException("ログイン失敗: " + response.statusCode() + " " + location);
+		}
+
+		// ログインでセッションが変わるので取り直す
+		csrfToken = fetchCsrfToken();
+	}
+
+	private String fetchCsrfToken() throws IOException, InterruptedException {
+
+		String html = client.send(
+				HttpRequest.newBuilder(URI.create(baseUrl + "/login")).GET().build(),
+				HttpResponse.BodyHandlers.ofString()).body();
+
+		Matcher m = CSRF.matcher(html);
+		if (!m.find()) {
+			throw new IllegalStateException("/login から CSRF トークンを取得できませんでした");
+		}
+		return m.group(1);
+	}
+
+	/* =========================
+	 * テストデータ
+	 * ========================= */
+	private static List<byte[]> readImages(Path dir) throws IOException {
+
+		try (Stream<Path> files = Files.list(dir)) {
+			List<byte[]> images = files
+					.filter(p -> p.getFileName().toString().matches("(?i).+\\.(jpe?g|png)"))
+					.map(p -> {
+						try {
+							return Files.readAllBytes(p);
+						} catch (IOException ex) {
+							throw new UncheckedIOException(ex);
+						}
+					})
+					.toList();
+			if (images.isEmpty()) {
+				throw new IllegalArgumentException("画像がありません: " + dir);
+			}
+			return images;
+		}
+	}
+
+	// スマホ写真相当（1200x1680）。下部の番号帯に画像ごとに違う模様を入れる
+	private static List<byte[]> syntheticImages(int count) throws IOException {
+
+		Random random = new Random(42);
+		List<byte[]> images = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			BufferedImage photo = new BufferedImage(1200, 1680, BufferedImage.TYPE_3BYTE_BGR);
+			Graphics2D g = photo.createGraphics();
+			g.setColor(new Color(random.nextInt(0x1000000)));
+			g.fillRect(0, 0, 1200, 1680);
+			for (int k = 0; k < 40; k++) {
+				g.setColor(new Color(random.nextInt(0x1000000)));
+				g.fillRect(random.nextInt(1200), 1210 + random.nextInt(470), 30, 12);
+			}
+			g.dispose();
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			ImageIO.write(photo, "png", out);
+			images.add(out.toByteArray());
+		}
+		return images;
+	}
+
+	// 自動入力に投げる文字列：カード番号スキャナのコーパス（入力テキスト列）
+	private static List<String> corpusTexts() throws IOException {
+
+		try (InputStream in = OcrLoadHarness.class.getResourceAsStream("/ocr/card-number-corpus.tsv")) {
+			if (in == null) {
+				return List.of("sv8a 212/187");
+			}
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines()
+					.filter(line -> !line.isBlank() && !line.startsWith("#"))
+					.map(line -> line.split("\t", -1)[0].replace("\\n", "\n"))
+					.toList();
+		}
+	}
+
+	/* =========================
+	 * 集計（計測中はスレッドごとの Recorder に貯め、段階の終わりに Stats へまとめる）
+	 * ========================= */
+	interface Call {
+		boolean send() throws IOException, InterruptedException;
+	}
+
+	static final class Recorder {
+
+		private long[] nanos = new long[1024];
+		private int size;
+		private long errors;
+
+		void record(Call call) {
+
+			long start = System.nanoTime();
+			boolean ok;
+			try {
+				ok = call.send();
+			} catch (IOException ex) {
+				ok = false;
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+
+			if (size == nanos.length) {
+				nanos = Arrays.copyOf(nanos, size * 2);
+			}
+			nanos[size++] = System.nanoTime() - start;
+			if (!ok) {
+				errors++;
+			}
+		}
+	}
+
+	static final class Stats {
+
+		private final String name;
+		private final List<long[]> nanos = new ArrayList<>();
+		private long errors;
+
+		Stats(String name) {
+			this.name = name;
+		}
+
+		synchronized void merge(Recorder recorder) {
+			nanos.add(Arrays.copyOf(recorder.nanos, recorder.size));
+			errors += recorder.errors;
+		}
+
+		synchronized long count() {
+			return nanos.stream().mapToLong(v -> v.length).sum();
+		}
+
+		synchronized void print(int concurrency, Duration duration) {
+
+			long[] all = nanos.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+
+			System.out.printf("%-10s %6d %9d %9.1f %9.1f %9.1f %9.1f %9.1f %7d%n",
+					name, concurrency, all.length,
+					all.length / (double) duration.toSeconds(),
+					percentile(all, 0.50), percentile(all, 0.95), percentile(all, 0.99),
+					all.length == 0 ? 0 : all[all.length - 1] / 1e6,
+					errors);
+		}
+
+		private static double percentile(long[] sorted, double p) {
+			if (sorted.length == 0) {
+				return 0;
+			}
+			return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+		}
+	}
+}
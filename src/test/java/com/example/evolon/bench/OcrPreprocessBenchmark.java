@@ -0,0 +1,109 @@
+package com.example.evolon.bench;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.evolon.service.OcrImagePreprocessor;
+import com.google.protobuf.ByteString;
+
+/**
+ * OCR 前処理のベンチマーク（12MP のスマホ写真 1枚 → Vision に送る PNG）
+ *
+ * legacy : ImageIO.read → getSubimage → drawImage でグレー化 → PNG → ByteString.copyFrom
+ * lean   : OcrImagePreprocessor（下部だけ間引いてデコード → ラスタ直接変換 → 使い回しバッファ）
+ *
+ * 実行：IDE から main()、または
+ *   mvn test-compile && java -cp target/test-classes:target/classes:(test classpath) \
+ *     com.example.evolon.bench.OcrPreprocessBenchmark
+ * main() は -prof gc 付き（gc.alloc.rate.norm = 1回あたりの確保バイト数）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class OcrPreprocessBenchmark {
+
+	private byte[] photo;
+	private OcrImagePreprocessor preprocessor;
+
+	@Setup
+	public void setUp() throws IOException {
+
+		// 4032x3024 の JPEG（グラデーション＋下部にカード番号風の文字）
+		BufferedImage image = new BufferedImage(4032, 3024, BufferedImage.TYPE_3BYTE_BGR);
+		Graphics2D g = image.createGraphics();
+		g.setPaint(new GradientPaint(0, 0, new Color(250, 200, 120), 4032, 3024, new Color(40, 80, 160)));
+		g.fillRect(0, 0, 4032, 3024);
+		g.setColor(Color.BLACK);
+		g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 120));
+		g.drawString("H sv8a 212/187 SAR", 200, 2800);
+		g.dispose();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "jpg", out);
+		photo = out.toByteArray();
+
+		preprocessor = new OcrImagePreprocessor(1600);
+	}
+
+	@Benchmark
+	public ByteString legacy() throws IOException {
+
+		BufferedImage original = ImageIO.read(new ByteArrayInputStream(photo));
+
+		int w = original.getWidth();
+		int h = original.getHeight();
+		int cropY = (int) (h * 0.72);
+		BufferedImage cropped = original.getSubimage(0, cropY, w, h - cropY);
+
+		BufferedImage gray = new BufferedImage(cropped.getWidth(), cropped.getHeight(),
+				BufferedImage.TYPE_BYTE_GRAY);
+		Graphics g = gray.getGraphics();
+		g.drawImage(cropped, 0, 0, null);
+		g.dispose();
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ImageIO.write(gray, "png", baos);
+		return ByteString.copyFrom(baos.toByteArray());
+	}
+
+	@Benchmark
+	public ByteString lean() throws IOException {
+		BufferedImage gray = preprocessor.toGrayBottom(new ByteArrayInputStream(photo));
+		return preprocessor.encodePng(gray);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(OcrPreprocessBenchmark.class.getSimpleName())
+				.addProfiler("gc")
+				.build())
+				.run();
+	}
+}
@@ -0,0 +1,65 @@
+package com.example.evolon.bench;
+
+import java.text.Normalizer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.evolon.domain.SearchKeyNormalizer;
+
+/**
+ * SearchKeyNormalizer のベンチマーク（保存・検索のたびに通るので ns/op と alloc を見る）
+ *
+ * 実行：IDE から main()、または
+ *   mvn test-compile && java -cp target/test-classes:target/classes:(test classpath) \
+ *     com.example.evolon.bench.SearchKeyNormalizerBenchmark
+ * アロケーションは -prof gc を付ける。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchKeyNormalizerBenchmark {
+
+	@Param({
+			"ニンフィアex", // 正規形（アロケーションなしの経路）
+			"ﾆﾝﾌｨｱ ex", // 半角カナ + 空白
+			"にんふぃあ", // ひらがな
+			"ＳＶ８ａ テラスタルフェスex" // 全角英数 + 全角空白
+	})
+	public String input;
+
+	@Benchmark
+	public String normalize() {
+		return SearchKeyNormalizer.normalize(input);
+	}
+
+	/** 比較用：NFKC + toLowerCase + replaceAll だけの素朴な実装 */
+	@Benchmark
+	public String naive() {
+		return Normalizer.normalize(input, Normalizer.Form.NFKC)
+				.toLowerCase()
+				.replaceAll("\\s+", "");
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(SearchKeyNormalizerBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
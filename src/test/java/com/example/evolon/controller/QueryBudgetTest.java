@@ -0,0 +1,145 @@
+package com.example.evolon.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.example.evolon.entity.AppOrder;
+import com.example.evolon.entity.Item;
+import com.example.evolon.entity.OrderStatus;
+import com.example.evolon.entity.User;
+import com.example.evolon.repository.AppOrderRepository;
+import com.example.evolon.repository.ItemRepository;
+import com.example.evolon.repository.UserRepository;
+import com.example.evolon.support.QueryBudget;
+
+/**
+ * 画面ごとの SQL 件数の上限（クエリ予算）
+ *
+ * 予算は「行数に依存しない固定件数」。一覧の行ごとに関連を読む N+1 が入ると
+ * 行数（Init*Runner の商品5件 + ここで作る注文3件）ぶん増えて失敗する。
+ */
+@SpringBootTest(properties = {
+		"spring.sql.init.mode=always",
+		"spring.jpa.hibernate.ddl-auto=update",
+		"stripe.secret-key=sk_test_dummy",
+		"stripe.public-key=pk_test_dummy"
+})
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class QueryBudgetTest {
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Autowired
+	ItemRepository itemRepository;
+
+	@Autowired
+	AppOrderRepository appOrderRepository;
+
+	Item item;
+	AppOrder order;
+
+	@BeforeEach
+	void seedOrders() {
+
+		User seller = userRepository.findByEmailIgnoreCase("member1@evolon.com").orElseThrow();
+		User buyer = userRepository.findByEmailIgnoreCase("member2@evolon.com").orElseThrow();
+
+		List<Item> items = itemRepository.findBySeller(seller);
+		item = items.get(0);
+
+		if (appOrderRepository.count() == 0) {
+			for (Item i : items.subList(0, 3)) {
+				AppOrder o = new AppOrder();
+				o.setItem(i);
+				o.setBuyer(buyer);
+				o.setPrice(i.getPrice());
+				o.setOrderStatus(OrderStatus.PURCHASED);
+				o.setStatus(OrderStatus.PURCHASED.getLabel());
+				appOrderRepository.save(o);
+			}
+		}
+		order = appOrderRepository.findAll().get(0);
+	}
+
+	@Test
+	void itemList() throws Exception {
+		// 一覧（キーセット：count なし）+ カテゴリ
+		mockMvc.perform(get("/items"))
+				.andExpect(status().isOk())
+				.andExpect(QueryBudget.maxStatements(2));
+	}
+
+	@Test
+	void itemListByRelevance() throws Exception {
+		// 一覧（関連度順はページ番号：+ count）+ カテゴリ
+		mockMvc.perform(get("/items").param("keyword", "ex"))
+				.andExpect(status().isOk())
+				.andExpect(QueryBudget.maxStatements(3));
+	}
+
+	@Test
+	void cardSearch() throws Exception {
+		// 一覧（キーセット：count なし）+ ファセット + カテゴリ
+		mockMvc.perform(get("/items/search").param("regulation", "STANDARD"))
+				.andExpect(status().isOk())
+				.andExpect(QueryBudget.maxStatements(3));
+	}
+
+	@Test
+	void itemDetail() throws Exception {
+		// 商品（出品者・カテゴリ・カード情報）+ チャット + GOOD/BAD 件数
+		mockMvc.perform(get("/items/{id}", item.getId()))
+				.andExpect(status().isOk())
+				.andExpect(QueryBudget.maxStatements(4));
+	}
+
+	@Test
+	@WithUserDetails("member2@evolon.com")
+	void buyerOrders() throws Exception {
+		// ログインユーザー + 注文（商品・出品者）
+		mockMvc.perform(get("/my-page/orders"))
+				.andExpect(status().isOk())
+				.andExpect(QueryBudget.maxStatements(2));
+	}
+
+	@Test
+	@WithUserDetails("member1@evolon.com")
+	void sellerSales() throws Exception {
+		// ログインユーザー + 注文（商品・購入者）
+		mockMvc.perform(get("/my-page/sales"))
+				.andExpect(status().isOk())
+				.andExpect(QueryBudget.maxStatements(2));
+	}
+
+	@Test
+	@WithUserDetails("member1@evolon.com")
+	void orderDetail() throws Exception {
+		// ログインユーザー + 注文 + 取引メッセージ + 商品チャット + 評価済み判定×2
+		mockMvc.perform(get("/orders/{id}", order.getId()))
+				.andExpect(status().isOk())
+				.andExpect(QueryBudget.maxStatements(6));
+	}
+}
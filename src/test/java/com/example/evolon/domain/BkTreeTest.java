@@ -0,0 +1,57 @@
+package com.example.evolon.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class BkTreeTest {
+
+	@Test
+	void returnsExactlyTheKeysABruteForceScanFinds() {
+
+		Random random = new Random(42);
+		List<String> keys = new ArrayList<>();
+		BkTree<String> tree = new BkTree<>(OcrEditDistance::distance);
+
+		for (int i = 0; i < 2000; i++) {
+			String key = String.format("sv%d%c %03d/%03d",
+					random.nextInt(10), (char) ('a' + random.nextInt(3)), random.nextInt(250), 187);
+			keys.add(key);
+			tree.add(key, key);
+		}
+
+		for (int q = 0; q < 200; q++) {
+			String query = mutate(keys.get(random.nextInt(keys.size())), random);
+			for (int max = 0; max <= 4; max++) {
+				int limit = max;
+				List<String> expected = keys.stream()
+						.filter(k -> OcrEditDistance.distance(query, k) <= limit)
+						.toList();
+
+				assertThat(tree.search(query, max))
+						.extracting(BkTree.Match::value)
+						.containsExactlyInAnyOrderElementsOf(expected);
+			}
+		}
+	}
+
+	@Test
+	void weighsOcrConfusionsLowerThanOtherEdits() {
+		assertThat(OcrEditDistance.distance("212/187", "2l2/187")).isEqualTo(1);
+		assertThat(OcrEditDistance.distance("206/187", "2O6/187")).isEqualTo(1);
+		assertThat(OcrEditDistance.distance("sv8a", "SV8A")).isZero();
+		assertThat(OcrEditDistance.distance("sv8a", "sv8e")).isEqualTo(2);
+		assertThat(OcrEditDistance.distance("sv8a", "sv8")).isEqualTo(2);
+	}
+
+	private static String mutate(String key, Random random) {
+		char[] chars = key.toCharArray();
+		int i = random.nextInt(chars.length);
+		chars[i] = "l1o0s5xa".charAt(random.nextInt(8));
+		return new String(chars);
+	}
+}
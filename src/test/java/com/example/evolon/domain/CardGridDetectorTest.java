@@ -0,0 +1,105 @@
+package com.example.evolon.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.evolon.domain.CardGridDetector.Cell;
+import com.example.evolon.domain.CardGridDetector.Result;
+
+class CardGridDetectorTest {
+
+	@Test
+	void findsEachCardOfANineCardBinderPage() {
+
+		// 3×3 のバインダー：無地の台紙に、絵柄（ノイズ）のあるカードが並ぶ
+		int margin = 60;
+		int gap = 40;
+		int cardW = 630;
+		int cardH = 880;
+		BufferedImage page = binderPage(3, 3, margin, gap, cardW, cardH);
+
+		Result result = CardGridDetector.detect(page, 3, 3);
+
+		assertThat(result.detected()).isTrue();
+		assertThat(result.rows()).isEqualTo(3);
+		assertThat(result.cols()).isEqualTo(3);
+		assertThat(result.cells()).hasSize(9);
+
+		// 縮小して検出するので、数画素 × 間引き幅のずれは許す
+		int tolerance = 4 * ((Math.max(page.getWidth(), page.getHeight()) + 639) / 640);
+		for (Cell cell : result.cells()) {
+			Rectangle expected = new Rectangle(
+					margin + cell.col() * (cardW + gap),
+					margin + cell.row() * (cardH + gap),
+					cardW, cardH);
+			Rectangle actual = cell.bounds();
+			assertThat(Math.abs(actual.x - expected.x)).isLessThanOrEqualTo(tolerance);
+			assertThat(Math.abs(actual.y - expected.y)).isLessThanOrEqualTo(tolerance);
+			assertThat(Math.abs(actual.width - expected.width)).isLessThanOrEqualTo(2 * tolerance);
+			assertThat(Math.abs(actual.height - expected.height)).isLessThanOrEqualTo(2 * tolerance);
+		}
+	}
+
+	@Test
+	void findsAFourPocketPage() {
+
+		Result result = CardGridDetector.detect(binderPage(2, 2, 30, 30, 400, 560), 3, 3);
+
+		assertThat(result.detected()).isTrue();
+		assertThat(result.rows()).isEqualTo(2);
+		assertThat(result.cols()).isEqualTo(2);
+	}
+
+	@Test
+	void fallsBackToAUniformGridWhenNoGuttersAreVisible() {
+
+		// 全面ノイズ（ガターが無い）
+		BufferedImage photo = new BufferedImage(900, 1200, BufferedImage.TYPE_3BYTE_BGR);
+		Random random = new Random(1);
+		for (int y = 0; y < photo.getHeight(); y++) {
+			for (int x = 0; x < photo.getWidth(); x++) {
+				photo.setRGB(x, y, random.nextInt(0x1000000));
+			}
+		}
+
+		Result result = CardGridDetector.detect(photo, 3, 3);
+
+		assertThat(result.detected()).isFalse();
+		assertThat(result.cells()).hasSize(9);
+		assertThat(result.cells().get(0).bounds()).isEqualTo(new Rectangle(0, 0, 300, 400));
+		assertThat(result.cells().get(8).bounds()).isEqualTo(new Rectangle(600, 800, 300, 400));
+	}
+
+	private static BufferedImage binderPage(int rows, int cols, int margin, int gap, int cardW, int cardH) {
+
+		int w = 2 * margin + cols * cardW + (cols - 1) * gap;
+		int h = 2 * margin + rows * cardH + (rows - 1) * gap;
+		BufferedImage page = new BufferedImage(w, h, BufferedImage.TYPE_3BYTE_BGR);
+
+		Graphics2D g = page.createGraphics();
+		g.setColor(new Color(40, 40, 48));
+		g.fillRect(0, 0, w, h);
+		g.dispose();
+
+		Random random = new Random(7);
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < cols; c++) {
+				int x0 = margin + c * (cardW + gap);
+				int y0 = margin + r * (cardH + gap);
+				for (int y = y0; y < y0 + cardH; y++) {
+					for (int x = x0; x < x0 + cardW; x++) {
+						page.setRGB(x, y, random.nextInt(0x1000000));
+					}
+				}
+			}
+		}
+		return page;
+	}
+}
@@ -0,0 +1,91 @@
+package com.example.evolon.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.example.evolon.dto.ParsedCardNumber;
+
+class CardNumberScannerTest {
+
+	private static final String CORPUS = "/ocr/card-number-corpus.tsv";
+
+	/**
+	 * コーパス（src/test/resources/ocr/card-number-corpus.tsv）の全行が期待どおりに読めること
+	 */
+	@ParameterizedTest(name = "[{index}] {0}")
+	@MethodSource("corpus")
+	void scansCorpus(Sample sample) {
+
+		ParsedCardNumber parsed = CardNumberScanner.DEFAULT.scan(sample.text());
+
+		assertThat(parsed.getSetCode()).as("setCode").isEqualTo(sample.setCode());
+		assertThat(parsed.getCardNumber()).as("cardNumber").isEqualTo(sample.cardNumber());
+	}
+
+	@Test
+	void grammarIsConfigurable() {
+
+		CardNumberScanner scanner = new CardNumberScanner(List.of("s", "sv", "sm"), 6, "DEFGH");
+
+		assertThat(scanner.scan("E s8b 250/184").getSetCode()).isEqualTo("s8b");
+		assertThat(scanner.scan("D sm12a 210/173").getSetCode()).isEqualTo("sm12a");
+		assertThat(scanner.scan("H sv8a 212/187").getSetCode()).isEqualTo("sv8a");
+
+		// 既定の文法では s / sm は対象外
+		assertThat(CardNumberScanner.DEFAULT.scan("E s8b 250/184").getSetCode()).isNull();
+	}
+
+	@Test
+	void ignoresNumbersFarAfterSetCode() {
+
+		String text = "sv8a " + "x".repeat(CardNumberScanner.NUMBER_WINDOW + 10) + " 212/187";
+
+		assertThat(CardNumberScanner.DEFAULT.scan(text).getCardNumber()).isNull();
+	}
+
+	@Test
+	void nullIsInvalid() {
+		assertThat(CardNumberScanner.DEFAULT.scan(null).isValid()).isFalse();
+	}
+
+	static Stream<Sample> corpus() throws IOException {
+
+		List<Sample> samples = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				CardNumberScannerTest.class.getResourceAsStream(CORPUS), StandardCharsets.UTF_8))) {
+
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith("#")) {
+					continue;
+				}
+				String[] cols = line.split("\t", -1);
+				samples.add(new Sample(cols[0].replace("\\n", "\n"), orNull(cols[1]), orNull(cols[2])));
+			}
+		}
+		return samples.stream();
+	}
+
+	private static String orNull(String value) {
+		return "-".equals(value) ? null : value;
+	}
+
+	record Sample(String text, String setCode, String cardNumber) {
+
+		@Override
+		public String toString() {
+			return text.replace("\n", "\\n");
+		}
+	}
+}
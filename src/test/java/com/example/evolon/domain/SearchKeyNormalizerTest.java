@@ -0,0 +1,38 @@
+package com.example.evolon.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class SearchKeyNormalizerTest {
+
+	@ParameterizedTest
+	@ValueSource(strings = { "ニンフィア", "ﾆﾝﾌｨｱ", "にんふぃあ", "ニン フィア", "ニン　フィア" })
+	void foldsWidthKanaAndSpaces(String input) {
+		assertThat(SearchKeyNormalizer.normalize(input)).isEqualTo("ニンフィア");
+	}
+
+	@Test
+	void foldsFullWidthAlphanumericsToLowerAscii() {
+		assertThat(SearchKeyNormalizer.normalize("ＳＶ８ａ")).isEqualTo("sv8a");
+		assertThat(SearchKeyNormalizer.normalize("グレイシアEX")).isEqualTo("グレイシアex");
+	}
+
+	@Test
+	void composesHalfWidthDakuten() {
+		assertThat(SearchKeyNormalizer.normalize("ｹﾞﾝｶﾞｰ")).isEqualTo("ゲンガー");
+	}
+
+	@Test
+	void returnsSameInstanceWhenAlreadyNormalized() {
+		String key = "ニンフィアex";
+		assertThat(SearchKeyNormalizer.normalize(key)).isSameAs(key);
+	}
+
+	@Test
+	void keepsNull() {
+		assertThat(SearchKeyNormalizer.normalize(null)).isNull();
+	}
+}
@@ -0,0 +1,48 @@
+package com.example.evolon.dto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+class ItemCursorTest {
+
+	private final ItemCursor cursor = new ItemCursor(
+			"priceAsc", LocalDateTime.of(2026, 1, 2, 3, 4, 5, 600_000_000), new BigDecimal("1200.50"), 42L);
+
+	@Test
+	void encodeDecodeRoundTrip() {
+
+		ItemCursor decoded = ItemCursor.decode(cursor.encode(), "priceAsc");
+
+		assertThat(decoded).isEqualTo(cursor);
+		// URL にそのまま載る
+		assertThat(cursor.encode()).matches("[A-Za-z0-9_-]+");
+	}
+
+	@Test
+	void sortMismatchStartsFromTheFirstPage() {
+		assertThat(ItemCursor.decode(cursor.encode(), "new")).isNull();
+	}
+
+	@Test
+	void tamperedTokensStartFromTheFirstPage() {
+
+		assertThat(ItemCursor.decode(null, "new")).isNull();
+		assertThat(ItemCursor.decode(" ", "new")).isNull();
+		assertThat(ItemCursor.decode("***", "new")).isNull();
+		assertThat(ItemCursor.decode(token("new|2026-01-02T03:04:05|100"), "new")).isNull();
+		assertThat(ItemCursor.decode(token("new|yesterday|100|1"), "new")).isNull();
+		assertThat(ItemCursor.decode(token("new|2026-01-02T03:04:05|abc|1"), "new")).isNull();
+		assertThat(ItemCursor.decode(token("new|2026-01-02T03:04:05|100|1 OR 1=1"), "new")).isNull();
+		assertThat(ItemCursor.decode(token("new|2026-01-02T03:04:05|100|1|extra"), "new")).isNull();
+	}
+
+	private static String token(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
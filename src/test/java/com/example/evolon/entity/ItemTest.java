@@ -0,0 +1,59 @@
+package com.example.evolon.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class ItemTest {
+
+	@Test
+	void putImageReplacesInPlaceOrAppendsWithoutGaps() {
+
+		Item item = new Item();
+		item.putImage(0, "a");
+		item.putImage(5, "b");
+
+		assertThat(item.getImages()).extracting(ItemImage::getPosition).containsExactly(0, 1);
+		assertThat(item.getImageAt(1).getUrl()).isEqualTo("b");
+
+		ItemImage replaced = item.putImage(0, "a2");
+		assertThat(replaced.getUrl()).isEqualTo("a2");
+		assertThat(item.getImageUrl()).isEqualTo("a2");
+		assertThat(item.getImages()).hasSize(2);
+	}
+
+	@Test
+	void putImageRejectsANinthImage() {
+
+		Item item = new Item();
+		for (int i = 0; i < Item.MAX_IMAGES; i++) {
+			item.putImage(i, "u" + i);
+		}
+
+		// 既存の position は差し替えられる
+		item.putImage(7, "x");
+		assertThatThrownBy(() -> item.putImage(8, "y")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void removeImageShiftsLaterImagesForward() {
+
+		Item item = itemWith("a", "b", "c");
+
+		ItemImage removed = item.removeImage(1);
+
+		assertThat(removed.getUrl()).isEqualTo("b");
+		assertThat(item.getImages()).extracting(ItemImage::getUrl).containsExactly("a", "c");
+		assertThat(item.getImages()).extracting(ItemImage::getPosition).containsExactly(0, 1);
+		assertThat(item.removeImage(5)).isNull();
+	}
+
+	private static Item itemWith(String... urls) {
+		Item item = new Item();
+		for (int i = 0; i < urls.length; i++) {
+			item.putImage(i, urls[i]);
+		}
+		return item;
+	}
+}
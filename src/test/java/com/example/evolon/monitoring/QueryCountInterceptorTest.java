@@ -0,0 +1,157 @@
+package com.example.evolon.monitoring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hibernate.SessionEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class QueryCountInterceptorTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final QueryCountRecorder recorder = new QueryCountRecorder(meterRegistry);
+	private final QueryCountInterceptor interceptor = new QueryCountInterceptor(recorder);
+	private final QueryCountInspector inspector = new QueryCountInspector();
+
+	@Test
+	void countsStatementsPerHandler() throws Exception {
+
+		HandlerMethod handler = new HandlerMethod(new SampleController(), "listItems");
+
+		for (int statements : new int[] { 3, 1 }) {
+			MockHttpServletRequest request = new MockHttpServletRequest();
+			interceptor.preHandle(request, new MockHttpServletResponse(), handler);
+			for (int i = 0; i < statements; i++) {
+				inspector.inspect("select 1");
+			}
+			interceptor.afterCompletion(request, new MockHttpServletResponse(), handler, null);
+
+			assertThat(request.getAttribute(QueryCountInterceptor.STATEMENTS_ATTRIBUTE)).isEqualTo(statements);
+		}
+
+		QueryCountRecorder.Snapshot snapshot = recorder.snapshot().get("SampleController.listItems");
+		assertThat(snapshot.requests()).isEqualTo(2);
+		assertThat(snapshot.totalStatements()).isEqualTo(4);
+		assertThat(snapshot.maxStatements()).isEqualTo(3);
+
+		assertThat(meterRegistry.get(QueryCountRecorder.STATEMENTS_METRIC)
+				.tag("handler", "SampleController.listItems")
+				.summary().totalAmount()).isEqualTo(4);
+	}
+
+	@Test
+	void asyncHandlersDoNotLeakCountsIntoTheNextRequest() throws Exception {
+
+		HandlerMethod handler = new HandlerMethod(new SampleController(), "listItems");
+
+		// 非同期開始：afterCompletion はこのスレッドでは呼ばれない
+		interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler);
+		inspector.inspect("select 1");
+		interceptor.afterConcurrentHandlingStarted(new MockHttpServletRequest(), new MockHttpServletResponse(), handler);
+		assertThat(QueryCounter.current()).isNull();
+
+		// 同じスレッドの次のリクエストは 0 から
+		MockHttpServletRequest next = new MockHttpServletRequest();
+		interceptor.preHandle(next, new MockHttpServletResponse(), handler);
+		inspector.inspect("select 1");
+		interceptor.afterCompletion(next, new MockHttpServletResponse(), handler, null);
+
+		assertThat(next.getAttribute(QueryCountInterceptor.STATEMENTS_ATTRIBUTE)).isEqualTo(1);
+	}
+
+	@Test
+	void startResetsStaleCounts() {
+
+		QueryCounter.start();
+		QueryCounter.countStatement();
+		QueryCounter.start();
+
+		assertThat(QueryCounter.stop().getStatements()).isZero();
+	}
+
+	@Test
+	void ignoresStatementsOutsideRequests() {
+
+		inspector.inspect("select 1");
+
+		assertThat(QueryCounter.current()).isNull();
+		assertThat(recorder.snapshot()).isEmpty();
+	}
+
+	@Test
+	void wrapsAnAlreadyConfiguredInspector() {
+
+		QueryCountInspector wrapped = QueryCountInspector.wrapping(UpperCaseInspector.class.getName());
+
+		QueryCounter.start();
+		String sql = wrapped.inspect("select 1");
+
+		assertThat(sql).isEqualTo("SELECT 1");
+		assertThat(QueryCounter.stop().getStatements()).isEqualTo(1);
+		assertThat(QueryCountInspector.wrapping(null).inspect("select 1")).isEqualTo("select 1");
+	}
+
+	@Test
+	void chainsAnAlreadyConfiguredSessionListener() {
+
+		try {
+			assertThat(QueryCountSessionListener.wrapping(FlushCountingListener.class.getName()))
+					.isEqualTo(QueryCountSessionListener.class.getName());
+
+			QueryCountSessionListener listener = new QueryCountSessionListener();
+
+			QueryCounter.start();
+			listener.jdbcExecuteStatementStart();
+			listener.jdbcExecuteStatementEnd();
+			listener.flushEnd(2, 0);
+
+			assertThat(QueryCounter.stop().getExecutionNanos()).isPositive();
+			assertThat(FlushCountingListener.flushedEntities).isEqualTo(2);
+			assertThat(FlushCountingListener.statements).isEqualTo(1);
+		} finally {
+			QueryCountSessionListener.wrapping(null);
+		}
+
+		// 元が無い・自分自身なら包まない
+		assertThat(QueryCountSessionListener.wrapping(QueryCountSessionListener.class.getName()))
+				.isEqualTo(QueryCountSessionListener.class.getName());
+		new QueryCountSessionListener().flushEnd(1, 0);
+		assertThat(FlushCountingListener.flushedEntities).isEqualTo(2);
+	}
+
+	public static class FlushCountingListener implements SessionEventListener {
+
+		private static final long serialVersionUID = 1L;
+
+		static int flushedEntities;
+		static int statements;
+
+		@Override
+		public void jdbcExecuteStatementEnd() {
+			statements++;
+		}
+
+		@Override
+		public void flushEnd(int numberOfEntities, int numberOfCollections) {
+			flushedEntities += numberOfEntities;
+		}
+	}
+
+	public static class UpperCaseInspector implements StatementInspector {
+		@Override
+		public String inspect(String sql) {
+			return sql.toUpperCase();
+		}
+	}
+
+	static class SampleController {
+		public String listItems() {
+			return "items";
+		}
+	}
+}
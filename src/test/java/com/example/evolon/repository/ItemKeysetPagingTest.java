@@ -0,0 +1,109 @@
+package com.example.evolon.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.example.evolon.dto.ItemCardView;
+import com.example.evolon.dto.ItemCursor;
+import com.example.evolon.entity.Item;
+import com.example.evolon.entity.ItemStatus;
+import com.example.evolon.service.ItemSortHelper;
+
+/**
+ * ItemSpecifications.seekAfter：createdAt / price が同じ商品が続いても、
+ * id を第2キーにしてページ境界で重複・取りこぼしが出ないこと（昇順・降順とも）。
+ */
+@DataJpaTest(properties = {
+		"spring.sql.init.mode=always",
+		"spring.jpa.hibernate.ddl-auto=none"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class ItemKeysetPagingTest {
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static final LocalDateTime SAME_TIME = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+	@Autowired
+	ItemRepository itemRepository;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void seed() {
+
+		jdbcTemplate.update("INSERT INTO users (name, email, password, role) VALUES ('s', 's@example.com', 'x', 'USER')");
+		Long sellerId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 's@example.com'", Long.class);
+
+		// 7件：createdAt は全部同じ、価格は 3件ずつ同じ（100 ×3, 200 ×3, 300）
+		int[] prices = { 200, 100, 300, 100, 200, 100, 200 };
+		for (int i = 0; i < prices.length; i++) {
+			jdbcTemplate.update("""
+					INSERT INTO item (user_id, name, price, status, created_at,
+					    shipping_duration, shipping_fee_burden, shipping_region, shipping_method)
+					VALUES (?, ?, ?, 'SELLING', ?, 'ONE_TO_TWO_DAYS', 'SELLER', 'HOKKAIDO', 'YAMATO')
+					""", sellerId, "item" + i, BigDecimal.valueOf(prices[i]), Timestamp.valueOf(SAME_TIME));
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "new", "priceAsc", "priceDesc" })
+	void pagesThroughTiesWithoutDuplicatesOrGaps(String sort) {
+
+		Specification<Item> base = ItemSpecifications.statusIn(List.of(ItemStatus.SELLING));
+		Sort keysetSort = ItemSortHelper.toKeysetSort(sort);
+
+		List<ItemCardView> all = itemRepository.findCardViews(base, keysetSort, 100);
+
+		List<ItemCardView> paged = new ArrayList<>();
+		ItemCursor cursor = null;
+		while (true) {
+			List<ItemCardView> page = itemRepository.findCardViews(
+					base.and(ItemSpecifications.seekAfter(cursor)), keysetSort, 2);
+			if (page.isEmpty()) {
+				break;
+			}
+			paged.addAll(page);
+			// encode / decode を通して画面と同じ経路にする
+			cursor = ItemCursor.decode(ItemCursor.of(sort, page.get(page.size() - 1)).encode(), sort);
+		}
+
+		assertThat(paged).extracting(ItemCardView::getId)
+				.containsExactlyElementsOf(all.stream().map(ItemCardView::getId).toList())
+				.doesNotHaveDuplicates()
+				.hasSize(7);
+		assertThat(paged).isSortedAccordingTo(expectedOrder(sort));
+	}
+
+	private static Comparator<ItemCardView> expectedOrder(String sort) {
+		return switch (sort) {
+		case "priceAsc" -> Comparator.comparing(ItemCardView::getPrice).thenComparing(ItemCardView::getId);
+		case "priceDesc" -> Comparator.comparing(ItemCardView::getPrice).thenComparing(ItemCardView::getId).reversed();
+		default -> Comparator.comparing(ItemCardView::getCreatedAt).thenComparing(ItemCardView::getId).reversed();
+		};
+	}
+}
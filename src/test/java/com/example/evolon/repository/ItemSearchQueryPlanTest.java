@@ -0,0 +1,244 @@
+package com.example.evolon.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.example.evolon.domain.enums.CardCondition;
+import com.example.evolon.domain.enums.Rarity;
+import com.example.evolon.domain.enums.Regulation;
+import com.example.evolon.entity.ItemStatus;
+import com.example.evolon.service.ItemSortHelper;
+
+/**
+ * ItemSpecifications.cardSearch が条件の組み合わせごとに
+ * 「必要な JOIN / 述語だけ」を出し、本番と同じ条件でプランナが狙いのインデックスを選ぶことを確認する。
+ *
+ * - プランナの設定（enable_seqscan 等）は触らない
+ * - 本番に近い件数（商品 50,000 件・カード情報付き）を入れて ANALYZE してから EXPLAIN
+ * - EXPLAIN は GENERIC_PLAN（JDBC のサーバ側プリペアドで同じ SQL が繰り返されると使われるプラン）
+ */
+@DataJpaTest(properties = {
+		"spring.sql.init.mode=always",
+		"spring.jpa.hibernate.ddl-auto=none",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+				+ "com.example.evolon.repository.ItemSearchQueryPlanTest$CapturingInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class ItemSearchQueryPlanTest {
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@Autowired
+	ItemRepository itemRepository;
+
+	private static final String CREATED_AT_INDEX = "idx_item_created_at_id";
+	private static final String CARD_NAME_TRGM_INDEX = "idx_card_info_card_name_key_trgm";
+	private static final String PACK_NAME_TRGM_INDEX = "idx_card_info_pack_name_key_trgm";
+
+	private static final int ITEMS = 50_000;
+
+	// テストごとのロールバックに巻き込まれないよう、別トランザクションで1回だけ入れる
+	private static boolean seeded;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	void seedOnce() {
+
+		CapturingInspector.SQL.clear();
+		if (seeded) {
+			return;
+		}
+
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		tx.executeWithoutResult(status -> {
+			jdbcTemplate.update("INSERT INTO users (name, email, password, role) VALUES ('s', 'plan@example.com', 'x', 'USER')");
+
+			// 出品中 9 割・売り切れ 1 割、作成日時・価格はばらばら
+			jdbcTemplate.update("""
+					INSERT INTO item (user_id, name, name_key, price, status, created_at,
+					    shipping_duration, shipping_fee_burden, shipping_region, shipping_method)
+					SELECT u.id, 'item ' || g, md5(g::text), (g * 37) % 30000 + 100,
+					       CASE WHEN g % 10 = 0 THEN 'SOLD' ELSE 'SELLING' END,
+					       TIMESTAMP '2025-01-01' + g * INTERVAL '7 minutes',
+					       'ONE_TO_TWO_DAYS', 'SELLER', 'HOKKAIDO', 'YAMATO'
+					FROM users u, generate_series(1, ?) g
+					WHERE u.email = 'plan@example.com'
+					""", ITEMS);
+
+			// カード情報：レアリティ・状態は偏りあり（C / NEW が多い）、カード名・パック名は多様
+			jdbcTemplate.update("""
+					INSERT INTO card_info (item_id, card_name, card_name_key, pack_name, pack_name_key,
+					    rarity, regulation, condition)
+					SELECT i.id, 'card ' || i.id, md5('c' || i.id), 'pack ' || (i.id % 200), md5('p' || (i.id % 200)),
+					       (?::text[])[1 + (i.id * 7) % ?], (?::text[])[1 + i.id % ?], (?::text[])[1 + (i.id * 3) % ?]
+					FROM item i
+					""",
+					names(Rarity.values()), Rarity.values().length,
+					names(Regulation.values()), Regulation.values().length,
+					names(CardCondition.values()), CardCondition.values().length);
+
+			jdbcTemplate.execute("ANALYZE item");
+			jdbcTemplate.execute("ANALYZE card_info");
+		});
+		seeded = true;
+	}
+
+	private static String names(Enum<?>[] values) {
+		return Stream.of(values).map(Enum::name).collect(Collectors.joining(",", "{", "}"));
+	}
+
+	static Stream<Filter> combinations() {
+		List<ItemStatus> all = List.of(ItemStatus.SELLING, ItemStatus.SOLD);
+		List<ItemStatus> selling = List.of(ItemStatus.SELLING);
+
+		return Stream.of(
+				// 新着順の先頭 10 件：作成日時のインデックスを順に読んで止まる
+				new Filter("条件なし", all, null, null, null, null, null, null, null, CREATED_AT_INDEX),
+				new Filter("rarity", all, null, Rarity.SAR, null, null, null, null, null, CREATED_AT_INDEX),
+				new Filter("regulation", all, null, null, Regulation.STANDARD, null, null, null, null, CREATED_AT_INDEX),
+				new Filter("condition", all, null, null, null, CardCondition.NEW, null, null, null, CREATED_AT_INDEX),
+				new Filter("rarity+condition", selling,
+						null, Rarity.SAR, null, CardCondition.NEW, null, null, null, CREATED_AT_INDEX),
+				new Filter("rarity+regulation+condition", all,
+						null, Rarity.SAR, Regulation.STANDARD, CardCondition.NEW, null, null, null, null),
+				new Filter("price", all, null, null, null, null, null,
+						BigDecimal.valueOf(1000), BigDecimal.valueOf(5000), null),
+				new Filter("rarity+minPrice", selling, null, Rarity.SAR, null, null, null,
+						BigDecimal.valueOf(1000), null, null),
+				// 部分一致は trigram の GIN インデックス
+				new Filter("cardName", all, "ニンフィア", null, null, null, null, null, null, CARD_NAME_TRGM_INDEX),
+				new Filter("packName", all, null, null, null, null, "テラスタル", null, null, PACK_NAME_TRGM_INDEX),
+				new Filter("cardName+rarity", all,
+						"ニンフィア", Rarity.SAR, null, null, null, null, null, CARD_NAME_TRGM_INDEX));
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("combinations")
+	void emitsOnlyRequestedJoinsAndUsesIndexes(Filter f) {
+
+		itemRepository.findAll(
+				ItemSpecifications.cardSearch(
+						f.statuses(), f.cardName(), f.rarity(), f.regulation(), f.condition(),
+						f.packName(), f.minPrice(), f.maxPrice()),
+				PageRequest.of(0, 10, ItemSortHelper.toSort("new")));
+
+		String sql = CapturingInspector.SQL.get(0).toLowerCase();
+
+		// ---- JOIN はカード条件があるときだけ、かつ INNER ----
+		if (f.hasCardFilter()) {
+			assertThat(sql).contains("join card_info").doesNotContain("left join");
+		} else {
+			assertThat(sql).doesNotContain("card_info");
+		}
+
+		// ---- 未指定の条件は述語に出てこない ----
+		assertThat(sql.contains(".rarity")).isEqualTo(f.rarity() != null);
+		assertThat(sql.contains(".regulation")).isEqualTo(f.regulation() != null);
+		assertThat(sql.contains(".condition")).isEqualTo(f.condition() != null);
+		assertThat(sql).doesNotContain("is null");
+
+		// ---- プラン（先頭 10 件を取るのに全件は読まない。狙いのインデックスがあればそれを使う）----
+		String plan = explain(sql);
+		assertThat(plan).doesNotContain("Seq Scan on item");
+		assertThat(plan).doesNotContain("Seq Scan on card_info");
+		if (f.expectedIndex() != null) {
+			assertThat(plan).as(plan).contains(f.expectedIndex());
+		}
+	}
+
+	private String explain(String sql) {
+
+		// JDBC の ? を $1, $2 ... に置き換えて GENERIC_PLAN で見る（PostgreSQL 16+）
+		StringBuilder numbered = new StringBuilder();
+		int n = 0;
+		for (char c : sql.toCharArray()) {
+			if (c == '?') {
+				numbered.append('$').append(++n);
+			} else {
+				numbered.append(c);
+			}
+		}
+
+		return jdbcTemplate.execute((ConnectionCallback<String>) con -> {
+			try (Statement st = con.createStatement();
+					ResultSet rs = st.executeQuery("EXPLAIN (GENERIC_PLAN) " + numbered)) {
+				StringBuilder plan = new StringBuilder();
+				while (rs.next()) {
+					plan.append(rs.getString(1)).append('\n');
+				}
+				return plan.toString();
+			}
+		});
+	}
+
+	record Filter(
+			String name,
+			List<ItemStatus> statuses,
+			String cardName,
+			Rarity rarity,
+			Regulation regulation,
+			CardCondition condition,
+			String packName,
+			BigDecimal minPrice,
+			BigDecimal maxPrice,
+			String expectedIndex) {
+
+		boolean hasCardFilter() {
+			return cardName != null || rarity != null || regulation != null
+					|| condition != null || packName != null;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	/**
+	 * Hibernate が発行する SQL を記録するだけの StatementInspector
+	 */
+	public static class CapturingInspector implements StatementInspector {
+
+		static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String inspect(String sql) {
+			SQL.add(sql);
+			return sql;
+		}
+	}
+}
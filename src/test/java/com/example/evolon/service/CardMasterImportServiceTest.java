@@ -0,0 +1,132 @@
+package com.example.evolon.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.example.evolon.domain.enums.PrintedRegulation;
+import com.example.evolon.domain.enums.Rarity;
+import com.example.evolon.dto.CardMasterImportResult;
+import com.example.evolon.entity.CardMasterListener;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class CardMasterImportServiceTest {
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+	// batchUpdate に渡された行（バッチごと）
+	private final List<List<CardMasterImportService.Row>> batches = new ArrayList<>();
+
+	private CardMasterImportService service;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		when(jdbcTemplate.batchUpdate(eq(CardMasterImportService.UPSERT_SQL), any(Collection.class), anyInt(),
+				any(ParameterizedPreparedStatementSetter.class)))
+				.thenAnswer(inv -> {
+					batches.add(List.copyOf((Collection<CardMasterImportService.Row>) inv.getArgument(1)));
+					return new int[0][];
+				});
+
+		service = new CardMasterImportService(jdbcTemplate, transactionManager, new ObjectMapper(), 2);
+	}
+
+	@Test
+	void importsCsvInBatchesAndSkipsInvalidRows() throws Exception {
+
+		String csv = """
+				set_code,card_number,card_name,rarity,printed_regulation,pack_name
+				sv8a,212/187,ニンフィアex,SAR,H,テラスタルフェスex
+				sv8a,212/187,"ニンフィアex, 再録",sar,H,テラスタルフェスex
+				sv8a,206 / 187,グレイシアex,SAR,H,
+				sv8a,001/187,,SAR,H,テラスタルフェスex
+				sv8a,002/187,イーブイ,XYZ,H,テラスタルフェスex
+				sv8a,003/187,ブースター,R,H,テラスタルフェスex
+				""";
+
+		long generation = CardMasterListener.generation();
+		CardMasterImportResult result = service.importStream(
+				new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), "sv8a.csv");
+
+		assertThat(result.getRowsRead()).isEqualTo(6);
+		assertThat(result.getRowsSkipped()).isEqualTo(2);
+		assertThat(result.getErrors()).hasSize(2)
+				.anySatisfy(e -> assertThat(e).startsWith("5行目").contains("card_name"))
+				.anySatisfy(e -> assertThat(e).startsWith("6行目").contains("rarity"));
+
+		// 同じキーは後勝ちで1行、空白は除去、batchSize=2 ごと
+		assertThat(batches).hasSize(2);
+		assertThat(batches.get(0)).extracting(CardMasterImportService.Row::cardName)
+				.containsExactly("ニンフィアex, 再録", "グレイシアex");
+		assertThat(batches.get(0).get(1).cardNumber()).isEqualTo("206/187");
+		assertThat(batches.get(0).get(1).packName()).isNull();
+		assertThat(batches.get(1)).extracting(CardMasterImportService.Row::rarity).containsExactly(Rarity.R);
+		assertThat(result.getRowsWritten()).isEqualTo(3);
+
+		// インデックスの作り直し
+		assertThat(CardMasterListener.generation()).isGreaterThan(generation);
+	}
+
+	@Test
+	void importsJsonArray() throws Exception {
+
+		String json = """
+				[
+				  {"setCode": "sv9", "cardNumber": "101/100", "cardName": "ピカチュウex",
+				   "rarity": "SAR", "printedRegulation": "I", "extra": {"ignored": true}},
+				  {"set_code": "sv9", "card_number": "102/100", "card_name": "ゼクロム", "rarity": "RR",
+				   "printed_regulation": "I", "pack_name": null}
+				]
+				""";
+
+		CardMasterImportResult result = service.importStream(
+				new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), "sv9.JSON");
+
+		assertThat(result.getRowsRead()).isEqualTo(2);
+		assertThat(result.getRowsSkipped()).isZero();
+		assertThat(batches).singleElement().asList().hasSize(2);
+	}
+
+	@Test
+	void normalizesSetCodeAndRejectsOverlongNames() throws Exception {
+
+		String csv = """
+				set_code,card_number,card_name,rarity,printed_regulation
+				SV8a,212/187,ニンフィアex,SAR,H
+				ｓｖ８ａ,212/187,ニンフィアex 再録,SAR,H
+				sv8a,213/187,%s,SAR,H
+				""".formatted("あ".repeat(256));
+
+		CardMasterImportResult result = service.importStream(
+				new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), "sv8a.csv");
+
+		// 長すぎる card_name は行番号つきでスキップ（DB エラーでバッチごと落とさない）
+		assertThat(result.getRowsSkipped()).isEqualTo(1);
+		assertThat(result.getErrors()).singleElement()
+				.satisfies(e -> assertThat(e).startsWith("4行目").contains("card_name"));
+
+		// 大文字・全角の set_code も同じキーになり、後勝ちで1行
+		assertThat(batches).singleElement().asList().singleElement()
+				.isEqualTo(new CardMasterImportService.Row("sv8a", "212/187", "ニンフィアex 再録", null, Rarity.SAR,
+						PrintedRegulation.H));
+	}
+}
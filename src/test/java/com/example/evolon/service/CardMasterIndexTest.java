@@ -0,0 +1,106 @@
+package com.example.evolon.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.evolon.domain.enums.PrintedRegulation;
+import com.example.evolon.domain.enums.Rarity;
+import com.example.evolon.entity.CardMaster;
+import com.example.evolon.entity.CardMasterListener;
+import com.example.evolon.repository.CardMasterRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CardMasterIndexTest {
+
+	private final CardMasterRepository repository = mock(CardMasterRepository.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private CardMasterIndex index;
+
+	@BeforeEach
+	void setUp() {
+		when(repository.findAll()).thenReturn(List.of(
+				card("sv8a", "212/187", "ニンフィアex"),
+				card("sv8a", "206/187", "グレイシアex"),
+				card("sv7", "101/102", "テラパゴスex")));
+
+		index = new CardMasterIndex(repository, meterRegistry);
+	}
+
+	@Test
+	void looksUpBySetCodeAndNumberIgnoringWhitespace() {
+
+		assertThat(index.find("sv8a", "212 / 187")).map(CardMaster::getCardName).contains("ニンフィアex");
+		assertThat(index.find("sv8a", "999/187")).isEmpty();
+		assertThat(index.findBySetCode("sv8a")).hasSize(2);
+		assertThat(index.findBySetCode("unknown")).isEmpty();
+
+		// 何度引いても DB は1回だけ
+		verify(repository, times(1)).findAll();
+
+		assertThat(meterRegistry.get("evolon.cardmaster.index.lookups").tag("result", "hit").counter().count())
+				.isEqualTo(1);
+		assertThat(meterRegistry.get("evolon.cardmaster.index.lookups").tag("result", "miss").counter().count())
+				.isEqualTo(1);
+		assertThat(meterRegistry.get("evolon.cardmaster.index.size").gauge().value()).isEqualTo(3);
+	}
+
+	@Test
+	void reloadsAfterCardMasterChanges() {
+
+		assertThat(index.find("sv9", "001/100")).isEmpty();
+
+		when(repository.findAll()).thenReturn(List.of(card("sv9", "001/100", "ピカチュウex")));
+		CardMasterListener.markChanged();
+
+		assertThat(index.find("sv9", "001/100")).isPresent();
+		verify(repository, times(2)).findAll();
+	}
+
+	@Test
+	void findsSimilarCardsForOcrMisreads() {
+
+		// 1文字の読み間違い（a → e）：距離 2
+		assertThat(index.findSimilar("sv8e", "212/187", 4, 5))
+				.first()
+				.satisfies(c -> {
+					assertThat(c.getCard().getCardName()).isEqualTo("ニンフィアex");
+					assertThat(c.getDistance()).isEqualTo(2);
+				});
+
+		// l/1 の見間違い：距離 1、大文字小文字は区別しない
+		assertThat(index.findSimilar("SV8A", "2l2/187", 4, 5))
+				.extracting(c -> c.getCard().getCardName(), c -> c.getDistance())
+				.first()
+				.isEqualTo(tuple("ニンフィアex", 1));
+
+		// 近い順（212 → 206 は2文字違い）
+		assertThat(index.findSimilar("sv8a", "202/187", 4, 5))
+				.extracting(c -> c.getCard().getCardNumber())
+				.containsExactly("206/187", "212/187");
+
+		assertThat(index.findSimilar("sv8a", "212/187", 4, 1)).hasSize(1);
+		assertThat(index.findSimilar("xy1", "001/100", 4, 5)).isEmpty();
+	}
+
+	@Test
+	void stripWhitespaceReturnsSameInstanceWhenNothingToStrip() {
+		String value = "212/187";
+		assertThat(CardMasterIndex.stripWhitespace(value)).isSameAs(value);
+		assertThat(CardMasterIndex.stripWhitespace(" 212\t/ 187 ")).isEqualTo("212/187");
+	}
+
+	private static CardMaster card(String setCode, String cardNumber, String cardName) {
+		return new CardMaster(null, setCode, cardNumber, cardName, Rarity.SAR, "テスト", PrintedRegulation.H);
+	}
+}
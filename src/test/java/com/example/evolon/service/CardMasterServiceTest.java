@@ -0,0 +1,55 @@
+package com.example.evolon.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.evolon.domain.enums.PrintedRegulation;
+import com.example.evolon.domain.enums.Rarity;
+import com.example.evolon.dto.ParsedCardNumber;
+import com.example.evolon.entity.CardMaster;
+import com.example.evolon.repository.CardMasterRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CardMasterServiceTest {
+
+	private final CardMasterRepository repository = mock(CardMasterRepository.class);
+
+	private CardMasterService service;
+
+	@BeforeEach
+	void setUp() {
+		when(repository.findAll()).thenReturn(List.of(
+				new CardMaster(null, "sv8a", "212/187", "ニンフィアex", Rarity.SAR, "テスト", PrintedRegulation.H)));
+
+		service = new CardMasterService(repository, new CardMasterIndex(repository, new SimpleMeterRegistry()), 4, 2);
+	}
+
+	@Test
+	void typedNumberMatchesExactlyOnly() {
+
+		assertThat(service.findByParsedNumber(new ParsedCardNumber("sv8a", "212/187")))
+				.map(CardMaster::getCardName).contains("ニンフィアex");
+
+		// 手入力の打ち間違いを別のカードに置き換えない
+		assertThat(service.findByParsedNumber(new ParsedCardNumber("sv8a", "213/187"))).isEmpty();
+	}
+
+	@Test
+	void ocrNumberFallsBackToTheSingleNearestCard() {
+
+		// 読み間違い（sv8e / 2l2）は近いカードを採用する
+		assertThat(service.findByOcrNumber(new ParsedCardNumber("sv8e", "212/187")))
+				.map(CardMaster::getCardName).contains("ニンフィアex");
+		assertThat(service.findByOcrNumber(new ParsedCardNumber("sv8a", "213/187")))
+				.map(CardMaster::getCardName).contains("ニンフィアex");
+
+		assertThat(service.findByOcrNumber(ParsedCardNumber.invalid())).isEmpty();
+	}
+}
@@ -0,0 +1,130 @@
+package com.example.evolon.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ImageIngestServiceTest {
+
+	private final ImageIngestService service = new ImageIngestService(new SimpleMeterRegistry(), 400, 100, 0.85f);
+
+	@Test
+	void downscalesToMaxEdgeAndWritesThumbnail() throws Exception {
+
+		Path source = Files.createTempFile("ingest-test-", ".png");
+		ImageIO.write(new BufferedImage(1800, 1200, BufferedImage.TYPE_INT_ARGB), "png", source.toFile());
+
+		ImageIngestService.Ingested ingested = service.ingest(source, true);
+		try {
+			assertThat(ingested.width()).isEqualTo(400);
+			assertThat(ingested.height()).isEqualTo(267);
+
+			BufferedImage image = ImageIO.read(ingested.image().toFile());
+			assertThat(image.getWidth()).isEqualTo(400);
+
+			BufferedImage thumbnail = ImageIO.read(ingested.thumbnail().toFile());
+			assertThat(Math.max(thumbnail.getWidth(), thumbnail.getHeight())).isEqualTo(100);
+		} finally {
+			Files.deleteIfExists(source);
+			Files.deleteIfExists(ingested.image());
+			Files.deleteIfExists(ingested.thumbnail());
+		}
+	}
+
+	@Test
+	void keepsSmallImagesAtOriginalSize() throws Exception {
+
+		Path source = Files.createTempFile("ingest-test-", ".png");
+		ImageIO.write(new BufferedImage(120, 80, BufferedImage.TYPE_INT_RGB), "png", source.toFile());
+
+		ImageIngestService.Ingested ingested = service.ingest(source, false);
+		try {
+			assertThat(ingested.width()).isEqualTo(120);
+			assertThat(ingested.height()).isEqualTo(80);
+			assertThat(ingested.thumbnail()).isNull();
+		} finally {
+			Files.deleteIfExists(source);
+			Files.deleteIfExists(ingested.image());
+		}
+	}
+
+	@Test
+	void rejectsNonImages() throws Exception {
+
+		Path source = Files.createTempFile("ingest-test-", ".bin");
+		Files.write(source, new byte[] { 1, 2, 3, 4 });
+		try {
+			assertThatThrownBy(() -> service.ingest(source, true))
+					.isInstanceOf(IllegalArgumentException.class);
+		} finally {
+			Files.deleteIfExists(source);
+		}
+	}
+
+	@Test
+	void readsOrientationFromExifInBothByteOrders() {
+
+		assertThat(ImageIngestService.exifOrientation(exif(ByteOrder.BIG_ENDIAN, 6))).isEqualTo(6);
+		assertThat(ImageIngestService.exifOrientation(exif(ByteOrder.LITTLE_ENDIAN, 8))).isEqualTo(8);
+
+		// 範囲外・壊れた EXIF は「そのまま」
+		assertThat(ImageIngestService.exifOrientation(exif(ByteOrder.BIG_ENDIAN, 42))).isEqualTo(1);
+		assertThat(ImageIngestService.exifOrientation(new byte[] { 'E', 'x', 'i', 'f' })).isEqualTo(1);
+	}
+
+	@Test
+	void rotatesClockwiseForOrientation6() {
+
+		// 左上だけ赤い 4x2 → 時計回りに 90° で 2x4・右上が赤
+		BufferedImage src = new BufferedImage(4, 2, BufferedImage.TYPE_INT_RGB);
+		src.setRGB(0, 0, Color.RED.getRGB());
+
+		BufferedImage rotated = ImageIngestService.orient(src, 6);
+
+		assertThat(rotated.getWidth()).isEqualTo(2);
+		assertThat(rotated.getHeight()).isEqualTo(4);
+		assertThat(rotated.getRGB(1, 0)).isEqualTo(Color.RED.getRGB());
+		assertThat(rotated.getRGB(0, 0)).isNotEqualTo(Color.RED.getRGB());
+	}
+
+	@Test
+	void transposesForOrientation5And7() {
+
+		BufferedImage src = new BufferedImage(4, 2, BufferedImage.TYPE_INT_RGB);
+		src.setRGB(0, 0, Color.RED.getRGB());
+
+		// 5：左上はそのまま左上、7：左上は右下へ
+		assertThat(ImageIngestService.orient(src, 5).getRGB(0, 0)).isEqualTo(Color.RED.getRGB());
+		assertThat(ImageIngestService.orient(src, 7).getRGB(1, 3)).isEqualTo(Color.RED.getRGB());
+	}
+
+	// "Exif\0\0" + TIFF ヘッダ + IFD0（Orientation 1件）
+	private static byte[] exif(ByteOrder order, int orientation) {
+
+		ByteBuffer buf = ByteBuffer.allocate(6 + 8 + 2 + 12 + 4).order(order);
+		buf.put(new byte[] { 'E', 'x', 'i', 'f', 0, 0 });
+		buf.put(order == ByteOrder.BIG_ENDIAN ? new byte[] { 'M', 'M' } : new byte[] { 'I', 'I' });
+		buf.putShort((short) 42);
+		buf.putInt(8);
+		buf.putShort((short) 1);
+		buf.putShort((short) 0x0112);
+		buf.putShort((short) 3);
+		buf.putInt(1);
+		buf.putShort((short) orientation);
+		buf.putShort((short) 0);
+		buf.putInt(0);
+		return buf.array();
+	}
+}
@@ -0,0 +1,51 @@
+package com.example.evolon.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ImageOrphanCleanerTest {
+
+	private final ImageStorage imageStorage = mock(ImageStorage.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void flushDeletesQueuedUrlsInBatches() {
+
+		ImageOrphanCleaner cleaner = new ImageOrphanCleaner(imageStorage, meterRegistry, 2, 10, Duration.ofHours(1));
+		try {
+			cleaner.enqueue(Arrays.asList("a", null, "b", "c"));
+			verifyNoInteractions(imageStorage);
+			assertThat(meterRegistry.get("evolon.images.orphans.queue.depth").gauge().value()).isEqualTo(3);
+
+			cleaner.flush();
+
+			verify(imageStorage).deleteAll(List.of("a", "b"));
+			verify(imageStorage).deleteAll(List.of("c"));
+			assertThat(meterRegistry.counter("evolon.images.orphans.deleted").count()).isEqualTo(3);
+		} finally {
+			cleaner.shutdown();
+		}
+	}
+
+	@Test
+	void deletesOverflowImmediatelyAndDrainsOnShutdown() {
+
+		ImageOrphanCleaner cleaner = new ImageOrphanCleaner(imageStorage, meterRegistry, 100, 1, Duration.ofHours(1));
+
+		cleaner.enqueue(List.of("a", "b"));
+		verify(imageStorage).deleteAll(List.of("b"));
+
+		cleaner.shutdown();
+		verify(imageStorage).deleteAll(List.of("a"));
+	}
+}
@@ -0,0 +1,307 @@
+package com.example.evolon.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.example.evolon.entity.ImageStatus;
+import com.example.evolon.entity.Item;
+import com.example.evolon.entity.ItemImage;
+import com.example.evolon.repository.ItemRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ItemImagePipelineTest {
+
+	private final ImageStorage imageStorage = mock(ImageStorage.class);
+	private final ItemRepository itemRepository = mock(ItemRepository.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private ImageOrphanCleaner orphanCleaner;
+	private ItemImagePipeline pipeline;
+	private Item item;
+
+	@BeforeEach
+	void setUp() {
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+		item = new Item();
+		item.setImageStatus(ImageStatus.PENDING);
+		when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+
+		ImageIngestService ingest = new ImageIngestService(meterRegistry, 64, 16, 0.8f);
+		orphanCleaner = new ImageOrphanCleaner(imageStorage, meterRegistry, 100, 100, Duration.ofHours(1));
+		pipeline = new ItemImagePipeline(imageStorage, ingest, orphanCleaner, itemRepository, transactionManager,
+				meterRegistry, 1, 10, 3, Duration.ofMillis(1), Duration.ofSeconds(5));
+	}
+
+	@AfterEach
+	void tearDown() {
+		pipeline.shutdown();
+		orphanCleaner.shutdown();
+	}
+
+	@Test
+	void spoolCopiesTheFileAndHashesIt() throws Exception {
+
+		ItemImagePipeline.Upload upload = pipeline.spool(
+				new MockMultipartFile("images", "a.jpg", "image/jpeg", new byte[] { 1, 2, 3 }), 5L);
+		try {
+			assertThat(upload.replaceImageId()).isEqualTo(5L);
+			assertThat(Files.readAllBytes(upload.file())).containsExactly(1, 2, 3);
+			assertThat(upload.contentHash()).isEqualTo(ImageIngestService.sha256(upload.file()));
+		} finally {
+			pipeline.discard(List.of(upload));
+		}
+		assertThat(upload.file()).doesNotExist();
+
+		// 空ファイルは無し（PENDING にしない）
+		assertThat(pipeline.spool(new MockMultipartFile("images", new byte[0]), null)).isNull();
+		assertThat(pipeline.spool(null, null)).isNull();
+	}
+
+	@Test
+	void retriesThenStoresUrlsAndMarksReady() throws Exception {
+
+		ItemImagePipeline.Upload upload = upload(null);
+		when(imageStorage.store(anyList()))
+				.thenThrow(new IllegalStateException("集中"))
+				.thenReturn(List.of("https://res.example/a.jpg", "https://res.example/a_thumb.jpg"));
+
+		pipeline.process(1L, List.of(upload));
+
+		assertThat(item.getImageStatus()).isEqualTo(ImageStatus.READY);
+		assertThat(item.getImages()).hasSize(1);
+		ItemImage image = item.getImageAt(0);
+		assertThat(image.getUrl()).isEqualTo("https://res.example/a.jpg");
+		assertThat(image.getThumbnailUrl()).isEqualTo("https://res.example/a_thumb.jpg");
+		assertThat(image.getWidth()).isEqualTo(64);
+		assertThat(image.getHeight()).isEqualTo(32);
+		assertThat(image.getContentHash()).isEqualTo(upload.contentHash());
+		assertThat(meterRegistry.counter("evolon.images.pipeline.retries").count()).isEqualTo(1);
+		assertThat(upload.file()).doesNotExist();
+	}
+
+	@Test
+	void reReadsTheItemWhenAnEditWasSavedConcurrently() throws Exception {
+
+		// 1回目のコミットは版の競合（その間に編集が保存された）
+		Item edited = new Item();
+		edited.setName("編集後");
+		edited.setImageStatus(ImageStatus.PENDING);
+		when(itemRepository.findById(1L)).thenReturn(Optional.of(item), Optional.of(edited));
+		doThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L))
+				.doNothing()
+				.when(transactionManager).commit(any());
+		when(imageStorage.store(anyList()))
+				.thenReturn(List.of("https://res.example/a.jpg", "https://res.example/a_thumb.jpg"));
+
+		pipeline.process(1L, List.of(upload(null)));
+
+		assertThat(edited.getName()).isEqualTo("編集後");
+		assertThat(edited.getImageStatus()).isEqualTo(ImageStatus.READY);
+		assertThat(edited.getImages()).extracting(ItemImage::getUrl).containsExactly("https://res.example/a.jpg");
+		assertThat(meterRegistry.counter("evolon.images.pipeline.conflicts").count()).isEqualTo(1);
+		verify(imageStorage, times(1)).store(anyList());
+	}
+
+	@Test
+	void replacesTheImageByIdAndOrphansTheOldOne() throws Exception {
+
+		item.putImage(0, "https://res.example/old0.jpg").setId(10L);
+		ItemImage second = item.putImage(1, "https://res.example/old1.jpg");
+		second.setId(11L);
+		second.setThumbnailUrl("https://res.example/old1_thumb.jpg");
+
+		// 編集中に前の画像が外されて位置がずれていても id で差し替える
+		item.removeImage(0);
+		when(imageStorage.store(anyList()))
+				.thenReturn(List.of("https://res.example/new.jpg", "https://res.example/new_thumb.jpg"));
+
+		pipeline.process(1L, List.of(upload(11L)));
+		orphanCleaner.flush();
+
+		assertThat(item.getImages()).extracting(ItemImage::getUrl).containsExactly("https://res.example/new.jpg");
+		assertThat(item.getImageAt(0).getId()).isEqualTo(11L);
+		assertThat(item.getImageById(11L).getThumbnailUrl()).isEqualTo("https://res.example/new_thumb.jpg");
+		verify(imageStorage).deleteAll(List.of("https://res.example/old1.jpg", "https://res.example/old1_thumb.jpg"));
+	}
+
+	@Test
+	void appendsWhenTheReplacedImageWasRemovedMeanwhile() throws Exception {
+
+		when(imageStorage.store(anyList()))
+				.thenReturn(List.of("https://res.example/c.jpg", "https://res.example/c_thumb.jpg"));
+
+		pipeline.process(1L, List.of(upload(99L)));
+		orphanCleaner.flush();
+
+		assertThat(item.getImages()).extracting(ItemImage::getUrl).containsExactly("https://res.example/c.jpg");
+		verify(imageStorage, never()).deleteAll(anyList());
+	}
+
+	@Test
+	void skipsImagesTheStorageDidNotKeep() throws Exception {
+
+		// cloudinary.enabled=false の CloudinaryService は null を返す
+		item.putImage(0, "https://res.example/keep.jpg").setId(10L);
+		when(imageStorage.store(anyList())).thenReturn(Arrays.asList(null, null, null, null));
+
+		pipeline.process(1L, List.of(upload(10L), upload(null)));
+		orphanCleaner.flush();
+
+		assertThat(item.getImageStatus()).isEqualTo(ImageStatus.READY);
+		assertThat(item.getImages()).extracting(ItemImage::getUrl).containsExactly("https://res.example/keep.jpg");
+		verify(imageStorage, never()).deleteAll(anyList());
+	}
+
+	@Test
+	void marksFailedAfterMaxAttempts() throws Exception {
+
+		ItemImagePipeline.Upload upload = upload(null);
+		when(imageStorage.store(anyList())).thenThrow(new IllegalStateException("集中"));
+
+		pipeline.process(1L, List.of(upload));
+
+		verify(imageStorage, times(3)).store(anyList());
+		assertThat(item.getImageStatus()).isEqualTo(ImageStatus.FAILED);
+		assertThat(meterRegistry.counter("evolon.images.pipeline.jobs", "outcome", "failed").count()).isEqualTo(1);
+		assertThat(upload.file()).doesNotExist();
+	}
+
+	@Test
+	void deletesUploadedImagesWhenTheItemCannotBeWritten() throws Exception {
+
+		// 商品への書き込みが競合し続ける（3回）→ FAILED の書き込みは通る
+		doThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L))
+				.doThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L))
+				.doThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L))
+				.doNothing()
+				.when(transactionManager).commit(any());
+		when(imageStorage.store(anyList()))
+				.thenReturn(List.of("https://res.example/a.jpg", "https://res.example/a_thumb.jpg"));
+
+		pipeline.process(1L, List.of(upload(null)));
+		orphanCleaner.flush();
+
+		verify(imageStorage).deleteAll(List.of("https://res.example/a.jpg", "https://res.example/a_thumb.jpg"));
+		assertThat(item.getImageStatus()).isEqualTo(ImageStatus.FAILED);
+	}
+
+	@Test
+	void failureAfterStoringDoesNotUploadAgain() throws Exception {
+
+		when(itemRepository.findById(1L))
+				.thenThrow(new IllegalStateException("DB"))
+				.thenReturn(Optional.of(item));
+		when(imageStorage.store(anyList()))
+				.thenReturn(List.of("https://res.example/a.jpg", "https://res.example/a_thumb.jpg"));
+
+		pipeline.process(1L, List.of(upload(null)));
+		orphanCleaner.flush();
+
+		verify(imageStorage, times(1)).store(anyList());
+		verify(imageStorage).deleteAll(List.of("https://res.example/a.jpg", "https://res.example/a_thumb.jpg"));
+		assertThat(item.getImageStatus()).isEqualTo(ImageStatus.FAILED);
+	}
+
+	@Test
+	void failingToMarkFailedDoesNotEscapeTheJob() throws Exception {
+
+		doThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L))
+				.when(transactionManager).commit(any());
+		when(imageStorage.store(anyList())).thenThrow(new IllegalStateException("集中"));
+
+		pipeline.process(1L, List.of(upload(null)));
+
+		assertThat(meterRegistry.counter("evolon.images.pipeline.jobs", "outcome", "failed").count()).isEqualTo(1);
+	}
+
+	@Test
+	void startupMarksJobsOfThePreviousProcessFailed() {
+
+		when(itemRepository.findIdsByImageStatus(ImageStatus.PENDING)).thenReturn(List.of(1L, 2L));
+		when(itemRepository.updateImageStatus(List.of(1L, 2L), ImageStatus.PENDING, ImageStatus.FAILED))
+				.thenReturn(2);
+
+		pipeline.failInterruptedJobs();
+
+		verify(itemRepository).updateImageStatus(List.of(1L, 2L), ImageStatus.PENDING, ImageStatus.FAILED);
+	}
+
+	@Test
+	void shutdownWaitsForRunningJobs() throws Exception {
+
+		when(imageStorage.store(anyList())).thenAnswer(invocation -> {
+			Thread.sleep(200);
+			return List.of("https://res.example/a.jpg", "https://res.example/a_thumb.jpg");
+		});
+
+		pipeline.submit(1L, List.of(upload(null)));
+		pipeline.shutdown();
+
+		assertThat(item.getImageStatus()).isEqualTo(ImageStatus.READY);
+	}
+
+	@Test
+	void deletesUploadedImagesWhenItemWasDeleted() throws Exception {
+
+		when(itemRepository.findById(2L)).thenReturn(Optional.empty());
+		when(imageStorage.store(anyList()))
+				.thenReturn(List.of("https://res.example/b.jpg", "https://res.example/b_thumb.jpg"));
+
+		pipeline.process(2L, List.of(upload(null)));
+		orphanCleaner.flush();
+
+		verify(imageStorage).deleteAll(List.of("https://res.example/b.jpg", "https://res.example/b_thumb.jpg"));
+	}
+
+	@Test
+	void unreadableImageFailsWithoutUploading() throws Exception {
+
+		Path broken = Files.createTempFile("pipeline-test-", ".tmp");
+		Files.write(broken, new byte[] { 1, 2, 3 });
+
+		pipeline.process(1L, List.of(new ItemImagePipeline.Upload(null, broken, "x")));
+
+		verify(imageStorage, never()).store(anyList());
+		assertThat(item.getImageStatus()).isEqualTo(ImageStatus.FAILED);
+		assertThat(broken).doesNotExist();
+	}
+
+	private static ItemImagePipeline.Upload upload(Long replaceImageId) throws Exception {
+		Path path = photo();
+		return new ItemImagePipeline.Upload(replaceImageId, path, ImageIngestService.sha256(path));
+	}
+
+	private static Path photo() throws Exception {
+		Path path = Files.createTempFile("pipeline-test-", ".png");
+		ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "png", path.toFile());
+		return path;
+	}
+}
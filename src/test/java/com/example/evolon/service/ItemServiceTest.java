@@ -0,0 +1,230 @@
+package com.example.evolon.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.evolon.domain.enums.CardCondition;
+import com.example.evolon.domain.enums.Rarity;
+import com.example.evolon.domain.enums.Regulation;
+import com.example.evolon.dto.ItemFacetRow;
+import com.example.evolon.dto.ItemFacets;
+import com.example.evolon.dto.ItemImageEdit;
+import com.example.evolon.entity.ImageStatus;
+import com.example.evolon.entity.Item;
+import com.example.evolon.entity.ItemImage;
+import com.example.evolon.entity.ItemStatus;
+import com.example.evolon.repository.ItemRepository;
+
+class ItemServiceTest {
+
+	private final ItemRepository itemRepository = mock(ItemRepository.class);
+	private final ImageOrphanCleaner orphanCleaner = mock(ImageOrphanCleaner.class);
+	private final ItemImagePipeline pipeline = mock(ItemImagePipeline.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+	private ItemService itemService;
+	private Item stored;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		when(itemRepository.save(any(Item.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		// 退避したファイルの中身をそのまま「ハッシュ」にする
+		when(pipeline.spool(any(), any())).thenAnswer(invocation -> {
+			MultipartFile file = invocation.getArgument(0);
+			return (file == null || file.isEmpty())
+					? null
+					: new ItemImagePipeline.Upload(invocation.getArgument(1), null,
+							new String(file.getBytes(), StandardCharsets.UTF_8));
+		});
+
+		stored = new Item();
+		stored.setId(1L);
+		stored.setImageStatus(ImageStatus.READY);
+		image(stored, 0, 10L, "a");
+		image(stored, 1, 11L, "b");
+		when(itemRepository.findById(1L)).thenReturn(Optional.of(stored));
+
+		itemService = new ItemService(itemRepository, orphanCleaner, pipeline, transactionManager);
+	}
+
+	@Test
+	void editWithoutImageChangesDoesNoImageWork() throws Exception {
+
+		Item edited = edited();
+		edited.setPrice(new BigDecimal("500"));
+
+		itemService.updateItem(edited, new ItemImageEdit());
+
+		verify(pipeline, never()).spool(any(), any());
+		verify(pipeline, never()).submit(any(), anyList());
+		verify(orphanCleaner).enqueue(List.of());
+		assertThat(edited.getImages()).extracting(ItemImage::getUrl).containsExactly("a.jpg", "b.jpg");
+		assertThat(edited.getImageStatus()).isEqualTo(ImageStatus.READY);
+	}
+
+	@Test
+	void unchangedReplacementsAndDuplicateAdditionsAreNotUploaded() throws Exception {
+
+		ItemImageEdit edit = new ItemImageEdit();
+		edit.getReplacements().put(10L, file("a"));
+		edit.getReplacements().put(11L, file("b2"));
+		edit.setAdditions(new MultipartFile[] { file("a"), file("c"), file("c") });
+
+		Item saved = itemService.updateItem(edited(), edit);
+
+		verify(pipeline).submit(any(), argThat(uploads -> uploads.stream()
+				.map(ItemImagePipeline.Upload::contentHash)
+				.toList()
+				.equals(List.of("b2", "c"))));
+		verify(pipeline).discard(argThat(uploads -> uploads.size() == 3));
+		assertThat(saved.getImageStatus()).isEqualTo(ImageStatus.PENDING);
+	}
+
+	@Test
+	void removalsOrphanTheImageAndFreeItsSlot() throws Exception {
+
+		ItemImageEdit edit = new ItemImageEdit();
+		edit.getRemovals().add(10L);
+		edit.getReplacements().put(10L, file("x"));
+
+		Item saved = itemService.updateItem(edited(), edit);
+
+		assertThat(saved.getImages()).extracting(ItemImage::getUrl).containsExactly("b.jpg");
+		assertThat(saved.getImageAt(0).getId()).isEqualTo(11L);
+		verify(orphanCleaner).enqueue(List.of("a.jpg", "a_thumb.jpg"));
+		// 外した画像への差し替えは捨てる
+		verify(pipeline, never()).submit(any(), anyList());
+	}
+
+	@Test
+	void additionsBeyondTheLimitAreDropped() throws Exception {
+
+		MultipartFile[] additions = new MultipartFile[Item.MAX_IMAGES];
+		for (int i = 0; i < additions.length; i++) {
+			additions[i] = file("n" + i);
+		}
+		ItemImageEdit edit = new ItemImageEdit();
+		edit.setAdditions(additions);
+
+		itemService.updateItem(edited(), edit);
+
+		verify(pipeline).submit(any(), argThat(uploads -> uploads.size() == Item.MAX_IMAGES - 2));
+		verify(pipeline).discard(argThat(uploads -> uploads.size() == 2));
+	}
+
+	@Test
+	void staleEditIsRejectedAndItsUploadsDiscarded() throws Exception {
+
+		doThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L))
+				.when(transactionManager).commit(any());
+		ItemImageEdit edit = new ItemImageEdit();
+		edit.setAdditions(new MultipartFile[] { file("c") });
+
+		assertThatThrownBy(() -> itemService.updateItem(edited(), edit))
+				.isInstanceOf(IllegalStateException.class)
+				.hasCauseInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+		verify(pipeline).discard(argThat(uploads -> uploads.size() == 1));
+		verify(pipeline, never()).submit(any(), anyList());
+		verify(orphanCleaner, never()).enqueue(any());
+	}
+
+	@Test
+	void eachFacetIgnoresItsOwnSelectionButAppliesTheOthers() {
+
+		when(itemRepository.countFacets(any())).thenReturn(List.of(
+				new ItemFacetRow(Rarity.SAR, Regulation.STANDARD, CardCondition.NEW, ItemStatus.SELLING, 5L),
+				new ItemFacetRow(Rarity.SAR, Regulation.EXTRA, CardCondition.NEW, ItemStatus.SELLING, 2L),
+				new ItemFacetRow(Rarity.UR, Regulation.STANDARD, CardCondition.GOOD, ItemStatus.SELLING, 3L),
+				new ItemFacetRow(Rarity.UR, Regulation.STANDARD, CardCondition.NEW, ItemStatus.SOLD, 4L)));
+
+		// rarity=SAR, regulation=STANDARD を選択中
+		ItemFacets facets = itemService.countFacets(
+				null, Rarity.SAR, Regulation.STANDARD, null, null, null, null, null);
+
+		// rarity の件数：rarity の選択は無視、regulation=STANDARD は適用
+		assertThat(facets.rarityCount(Rarity.SAR)).isEqualTo(5);
+		assertThat(facets.rarityCount(Rarity.UR)).isEqualTo(7);
+		// regulation の件数：regulation の選択は無視、rarity=SAR は適用
+		assertThat(facets.regulationCount(Regulation.STANDARD)).isEqualTo(5);
+		assertThat(facets.regulationCount(Regulation.EXTRA)).isEqualTo(2);
+		// condition / status の件数：両方の選択を適用
+		assertThat(facets.conditionCount(CardCondition.NEW)).isEqualTo(5);
+		assertThat(facets.conditionCount(CardCondition.GOOD)).isZero();
+		assertThat(facets.statusCount(ItemStatus.SELLING)).isEqualTo(5);
+		assertThat(facets.totalCount()).isEqualTo(5);
+	}
+
+	@Test
+	void selectedValueWithNoHitsIsCountedAsZero() {
+
+		when(itemRepository.countFacets(any())).thenReturn(List.of(
+				new ItemFacetRow(Rarity.SAR, Regulation.STANDARD, CardCondition.NEW, ItemStatus.SELLING, 5L)));
+
+		// 他の条件の結果、選択中の UR は 0 件（画面では選択中なので無効にしない）
+		ItemFacets facets = itemService.countFacets(
+				null, Rarity.UR, null, CardCondition.NEW, null, null, null, null);
+
+		assertThat(facets.rarityCount(Rarity.UR)).isZero();
+		assertThat(facets.rarityCount(Rarity.SAR)).isEqualTo(5);
+		assertThat(facets.conditionCount(CardCondition.NEW)).isZero();
+		assertThat(facets.totalCount()).isZero();
+	}
+
+	@Test
+	void editWithoutVersionIsRejected() throws Exception {
+
+		Item edited = edited();
+		edited.setVersion(null);
+		ItemImageEdit edit = new ItemImageEdit();
+		edit.setAdditions(new MultipartFile[] { file("c") });
+
+		assertThatThrownBy(() -> itemService.updateItem(edited, edit))
+				.isInstanceOf(IllegalStateException.class);
+
+		verify(itemRepository, never()).save(any(Item.class));
+		verify(pipeline).discard(argThat(uploads -> uploads.size() == 1));
+		verify(pipeline, never()).submit(any(), anyList());
+	}
+
+	private static Item edited() {
+		Item item = new Item();
+		item.setId(1L);
+		item.setVersion(0L);
+		return item;
+	}
+
+	private static void image(Item item, int position, Long id, String content) {
+		ItemImage image = item.putImage(position, content + ".jpg");
+		image.setId(id);
+		image.setThumbnailUrl(content + "_thumb.jpg");
+		image.setContentHash(content);
+	}
+
+	private static MockMultipartFile file(String content) {
+		return new MockMultipartFile("images", content + ".jpg", "image/jpeg", content.getBytes(StandardCharsets.UTF_8));
+	}
+}
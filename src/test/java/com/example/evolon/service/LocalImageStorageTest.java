@@ -0,0 +1,69 @@
+package com.example.evolon.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LocalImageStorageTest {
+
+	@TempDir
+	Path root;
+
+	@Test
+	void storesFilesAndResolvesTheirUrls() throws Exception {
+
+		LocalImageStorage storage = new LocalImageStorage(root);
+		Path source = Files.write(root.resolve("source.jpg"), new byte[] { 1, 2, 3 });
+
+		List<String> urls = storage.store(Arrays.asList(source, null));
+
+		assertThat(urls).hasSize(2);
+		assertThat(urls.get(1)).isNull();
+		assertThat(urls.get(0)).matches("/media/[0-9a-f]{2}/[0-9a-f-]{36}\\.jpg");
+
+		String[] parts = urls.get(0).substring(LocalImageStorage.URL_PREFIX.length()).split("/");
+		Path stored = storage.resolve(parts[0], parts[1]).orElseThrow();
+		assertThat(Files.readAllBytes(stored)).containsExactly(1, 2, 3);
+		assertThat(source).exists();
+
+		storage.delete(urls.get(0));
+		assertThat(stored).doesNotExist();
+		assertThat(storage.resolve(parts[0], parts[1])).isEmpty();
+	}
+
+	@Test
+	void rejectsNamesOutsideTheStorageLayout() throws Exception {
+
+		LocalImageStorage storage = new LocalImageStorage(root);
+		Files.write(root.resolve("secret.txt"), new byte[] { 1 });
+
+		assertThat(storage.resolve("..", "secret.txt")).isEmpty();
+		assertThat(storage.resolve("ab", "../secret.txt")).isEmpty();
+		assertThat(storage.resolve("ab", "cd000000-0000-0000-0000-000000000000.jpg")).isEmpty();
+
+		// 他のストレージの URL は消さない
+		storage.delete("https://res.cloudinary.com/demo/image/upload/x.jpg");
+		storage.delete(null);
+	}
+
+	@Test
+	void removesAlreadyStoredFilesWhenALaterFileFails() throws Exception {
+
+		LocalImageStorage storage = new LocalImageStorage(root.resolve("images"));
+		Path source = Files.write(root.resolve("source.jpg"), new byte[] { 1 });
+
+		assertThatThrownBy(() -> storage.store(List.of(source, root.resolve("missing.jpg"))))
+				.isInstanceOf(IllegalStateException.class);
+
+		try (var files = Files.walk(root.resolve("images"))) {
+			assertThat(files.filter(Files::isRegularFile)).isEmpty();
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.example.evolon.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+class OcrImagePreprocessorTest {
+
+	private final OcrImagePreprocessor preprocessor = new OcrImagePreprocessor(1600);
+
+	@Test
+	void decodesOnlyTheBottomAreaAndSubsamplesLargePhotos() throws IOException {
+
+		// 上 72% は黒、下 28% は白の 4000x3000 写真
+		BufferedImage photo = new BufferedImage(4000, 3000, BufferedImage.TYPE_3BYTE_BGR);
+		Graphics2D g = photo.createGraphics();
+		g.setColor(Color.BLACK);
+		g.fillRect(0, 0, 4000, 3000);
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 2160, 4000, 840);
+		g.dispose();
+
+		BufferedImage gray = preprocessor.toGrayBottom(new ByteArrayInputStream(encode(photo, "png")));
+
+		assertThat(gray.getType()).isEqualTo(BufferedImage.TYPE_BYTE_GRAY);
+		// 間引き 3 → 1334 x 280
+		assertThat(gray.getWidth()).isEqualTo(1334);
+		assertThat(gray.getHeight()).isEqualTo(280);
+		assertThat(gray.getRaster().getSample(0, 0, 0)).isEqualTo(255);
+		assertThat(gray.getRaster().getSample(1333, 279, 0)).isEqualTo(255);
+	}
+
+	@Test
+	void convertsColorsToLuma() {
+
+		BufferedImage rgb = new BufferedImage(3, 1, BufferedImage.TYPE_3BYTE_BGR);
+		rgb.setRGB(0, 0, 0xff0000);
+		rgb.setRGB(1, 0, 0x00ff00);
+		rgb.setRGB(2, 0, 0x0000ff);
+
+		BufferedImage argb = new BufferedImage(3, 1, BufferedImage.TYPE_INT_ARGB);
+		argb.setRGB(0, 0, 0xffff0000);
+		argb.setRGB(1, 0, 0xff00ff00);
+		argb.setRGB(2, 0, 0xff0000ff);
+
+		for (BufferedImage src : new BufferedImage[] { rgb, argb }) {
+			BufferedImage gray = OcrImagePreprocessor.toGray(src);
+			assertThat(gray.getRaster().getSample(0, 0, 0)).isEqualTo(76);
+			assertThat(gray.getRaster().getSample(1, 0, 0)).isEqualTo(149);
+			assertThat(gray.getRaster().getSample(2, 0, 0)).isEqualTo(28);
+		}
+	}
+
+	@Test
+	void keepsSmallImagesAtFullResolution() throws IOException {
+
+		BufferedImage photo = new BufferedImage(800, 1000, BufferedImage.TYPE_INT_RGB);
+
+		BufferedImage gray = preprocessor.toGrayBottom(new ByteArrayInputStream(encode(photo, "jpg")));
+
+		assertThat(gray.getWidth()).isEqualTo(800);
+		assertThat(gray.getHeight()).isEqualTo(280);
+	}
+
+	@Test
+	void convertsOnlyTheRequestedRegionWithSubsampling() {
+
+		// 左右で色の違う写真の右下だけを 2 画素おきに
+		BufferedImage bgr = new BufferedImage(100, 60, BufferedImage.TYPE_3BYTE_BGR);
+		Graphics2D g = bgr.createGraphics();
+		g.setColor(Color.BLACK);
+		g.fillRect(0, 0, 50, 60);
+		g.setColor(Color.WHITE);
+		g.fillRect(50, 0, 50, 60);
+		g.dispose();
+
+		BufferedImage argb = new BufferedImage(100, 60, BufferedImage.TYPE_INT_ARGB);
+		argb.createGraphics().drawImage(bgr, 0, 0, null);
+
+		for (BufferedImage src : new BufferedImage[] { bgr, argb }) {
+			BufferedImage gray = OcrImagePreprocessor.toGray(src, new Rectangle(40, 30, 21, 30), 2);
+
+			assertThat(gray.getWidth()).isEqualTo(11);
+			assertThat(gray.getHeight()).isEqualTo(15);
+			// x = 40, 42, ... 48 は黒、50〜60 は白
+			assertThat(gray.getRaster().getSample(4, 0, 0)).isZero();
+			assertThat(gray.getRaster().getSample(5, 14, 0)).isEqualTo(255);
+		}
+	}
+
+	@Test
+	void decodesWholePhotoSubsampledToTheWidthLimit() throws IOException {
+
+		BufferedImage photo = new BufferedImage(4000, 3000, BufferedImage.TYPE_3BYTE_BGR);
+
+		BufferedImage decoded = preprocessor.decode(new ByteArrayInputStream(encode(photo, "png")), 2000);
+
+		assertThat(decoded.getWidth()).isEqualTo(2000);
+		assertThat(decoded.getHeight()).isEqualTo(1500);
+	}
+
+	@Test
+	void rejectsNonImages() {
+		assertThatThrownBy(() -> preprocessor.toGrayBottom(new ByteArrayInputStream(new byte[] { 1, 2, 3 })))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static byte[] encode(BufferedImage image, String format) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, format, out);
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,164 @@
+package com.example.evolon.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import com.example.evolon.dto.OcrJobStatus;
+import com.example.evolon.dto.ParsedCardNumber;
+import com.example.evolon.entity.CardMaster;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OcrJobServiceTest {
+
+	private final OcrService ocrService = mock(OcrService.class);
+	private final CardMasterService cardMasterService = mock(CardMasterService.class);
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	// スレッド1・待ち行列1
+	private final OcrJobService service = new OcrJobService(
+			ocrService, cardMasterService, registry, 1, 1, Duration.ofMinutes(10), Duration.ofSeconds(5), 1);
+
+	private final MockMultipartFile image = new MockMultipartFile("image", "card.jpg", "image/jpeg", new byte[] { 1 });
+
+	@AfterEach
+	void tearDown() {
+		service.shutdown();
+	}
+
+	@Test
+	void runsJobAndReportsResultOnlyToOwner() throws Exception {
+
+		ParsedCardNumber parsed = new ParsedCardNumber("sv8a", "212/187");
+		CardMaster card = new CardMaster();
+		card.setCardName("ニンフィアex");
+		// 画像は退避した一時ファイルから読まれる
+		List<byte[]> received = new CopyOnWriteArrayList<>();
+		when(ocrService.extractCardNumber(any(InputStream.class))).thenAnswer(inv -> {
+			received.add(inv.<InputStream> getArgument(0).readAllBytes());
+			return parsed;
+		});
+		when(cardMasterService.findByOcrNumber(parsed)).thenReturn(Optional.of(card));
+
+		OcrJobStatus submitted = service.submit("seller@example.com", image);
+		assertThat(submitted.getStatus()).isEqualTo("QUEUED");
+
+		await().atMost(5, TimeUnit.SECONDS).until(
+				() -> service.status("seller@example.com", submitted.getJobId()).orElseThrow().isFinished());
+
+		OcrJobStatus done = service.status("seller@example.com", submitted.getJobId()).orElseThrow();
+		assertThat(done.getStatus()).isEqualTo("DONE");
+		assertThat(done.getCard().getCardName()).isEqualTo("ニンフィアex");
+
+		assertThat(received).singleElement().isEqualTo(new byte[] { 1 });
+		assertThat(service.status("other@example.com", submitted.getJobId())).isEmpty();
+		assertThat(registry.get("evolon.ocr.jobs.wait").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void finishedJobsAreEvictedWithoutNewSubmissions() throws Exception {
+
+		OcrJobService shortLived = new OcrJobService(
+				ocrService, cardMasterService, registry, 1, 1, Duration.ofMillis(100), Duration.ofSeconds(5), 1);
+		try {
+			when(ocrService.extractCardNumber(any(InputStream.class))).thenReturn(ParsedCardNumber.invalid());
+
+			OcrJobStatus submitted = shortLived.submit("u", image);
+			await().atMost(5, TimeUnit.SECONDS).until(
+					() -> shortLived.status("u", submitted.getJobId()).map(OcrJobStatus::isFinished).orElse(false));
+
+			// 次の受付が無くても定期掃除で消える
+			await().atMost(5, TimeUnit.SECONDS).until(
+					() -> shortLived.status("u", submitted.getJobId()).isEmpty());
+		} finally {
+			shortLived.shutdown();
+		}
+	}
+
+	@Test
+	void rejectsWhenQueueIsFull() throws Exception {
+
+		CountDownLatch release = new CountDownLatch(1);
+		when(ocrService.extractCardNumber(any(InputStream.class))).thenAnswer(inv -> {
+			release.await();
+			return ParsedCardNumber.invalid();
+		});
+
+		service.submit("u", image); // 実行中
+		await().atMost(5, TimeUnit.SECONDS).until(
+				() -> registry.get("evolon.ocr.jobs.active").gauge().value() == 1);
+		service.submit("u", image); // 待ち行列
+
+		assertThat(registry.get("evolon.ocr.jobs.queue.depth").gauge().value()).isEqualTo(1);
+		assertThatThrownBy(() -> service.submit("u", image)).isInstanceOf(RejectedExecutionException.class);
+		assertThat(registry.get("evolon.ocr.jobs.rejected").counter().count()).isEqualTo(1);
+
+		release.countDown();
+	}
+
+	@Test
+	void runBoundedRejectsWithoutWaitingWhenAllPermitsAreTaken() throws Exception {
+
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Thread holder = new Thread(() -> {
+			try {
+				service.runBounded(() -> {
+					running.countDown();
+					awaitQuietly(release);
+					return null;
+				});
+			} catch (IOException ex) {
+				throw new IllegalStateException(ex);
+			}
+		});
+		holder.start();
+		running.await(5, TimeUnit.SECONDS);
+
+		assertThat(registry.get("evolon.ocr.sync.active").gauge().value()).isEqualTo(1);
+		assertThatThrownBy(() -> service.runBounded(() -> "x")).isInstanceOf(RejectedExecutionException.class);
+		assertThat(registry.get("evolon.ocr.sync.rejected").counter().count()).isEqualTo(1);
+
+		release.countDown();
+		holder.join(5000);
+		assertThat(service.runBounded(() -> "x")).isEqualTo("x");
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	void marksFailedJobs() throws Exception {
+
+		when(ocrService.extractCardNumber(any(InputStream.class))).thenThrow(new IllegalArgumentException("bad"));
+
+		String jobId = service.submit("u", image).getJobId();
+
+		await().atMost(5, TimeUnit.SECONDS).until(
+				() -> service.status("u", jobId).orElseThrow().isFinished());
+		assertThat(service.status("u", jobId).orElseThrow().getStatus()).isEqualTo("FAILED");
+	}
+}
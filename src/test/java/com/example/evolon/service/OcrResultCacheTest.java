@@ -0,0 +1,134 @@
+package com.example.evolon.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.evolon.dto.ParsedCardNumber;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OcrResultCacheTest {
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final MutableClock clock = new MutableClock();
+
+	private final OcrResultCache cache = new OcrResultCache(
+			jdbcTemplate, registry, 2, Duration.ofHours(1), false, Duration.ofHours(1), clock);
+
+	@Test
+	void sameImageGivesSameKey() {
+
+		BufferedImage a = gray(40, 10, 7);
+		BufferedImage b = gray(40, 10, 7);
+		BufferedImage c = gray(40, 10, 8);
+
+		assertThat(OcrResultCache.keyOf(a))
+				.hasSize(64)
+				.isEqualTo(OcrResultCache.keyOf(b))
+				.isNotEqualTo(OcrResultCache.keyOf(c));
+	}
+
+	@Test
+	void evictsLeastRecentlyUsed() {
+
+		cache.put("a", new ParsedCardNumber("sv8a", "212/187"));
+		cache.put("b", new ParsedCardNumber("sv8a", "206/187"));
+		cache.get("a");
+		cache.put("c", ParsedCardNumber.invalid());
+
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.get("a")).contains(new ParsedCardNumber("sv8a", "212/187"));
+		assertThat(cache.get("b")).isEmpty();
+		assertThat(cache.get("c")).hasValueSatisfying(p -> assertThat(p.isValid()).isFalse());
+	}
+
+	@Test
+	void expiresAfterTtlAndReportsHitRatio() {
+
+		cache.put("a", new ParsedCardNumber("sv8a", "212/187"));
+		assertThat(cache.get("a")).isPresent();
+
+		clock.advance(Duration.ofMinutes(61));
+		assertThat(cache.get("a")).isEmpty();
+		assertThat(cache.size()).isZero();
+
+		assertThat(registry.get("evolon.ocr.cache.hit.ratio").gauge().value()).isEqualTo(0.5);
+		assertThat(registry.get("evolon.ocr.cache.lookups").tag("result", "miss").counter().count())
+				.isEqualTo(1);
+
+		// persistent=false ではテーブルに触らない
+		verifyNoInteractions(jdbcTemplate);
+	}
+
+	@Test
+	void purgeRemovesExpiredRowsFromTheTable() {
+
+		when(jdbcTemplate.update(anyString(), any(Timestamp.class))).thenReturn(3);
+		OcrResultCache persistent = new OcrResultCache(
+				jdbcTemplate, new SimpleMeterRegistry(), 10, Duration.ofHours(1), true, Duration.ofDays(1), clock);
+		try {
+			persistent.put("a", new ParsedCardNumber("sv8a", "212/187"));
+			clock.advance(Duration.ofMinutes(30));
+			persistent.put("b", new ParsedCardNumber("sv8a", "206/187"));
+			clock.advance(Duration.ofMinutes(31));
+
+			assertThat(persistent.purgeExpired()).isEqualTo(3);
+
+			// メモリからも期限切れだけ消える
+			assertThat(persistent.size()).isEqualTo(1);
+
+			// ttl より前に作られた行を消す
+			verify(jdbcTemplate).update("DELETE FROM ocr_result_cache WHERE created_at <= ?",
+					Timestamp.from(clock.instant().minus(Duration.ofHours(1))));
+		} finally {
+			persistent.shutdown();
+		}
+	}
+
+	private static BufferedImage gray(int w, int h, int value) {
+		BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_GRAY);
+		image.getRaster().setSample(w / 2, h / 2, 0, value);
+		return image;
+	}
+
+	private static class MutableClock extends Clock {
+
+		private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+		void advance(Duration d) {
+			now = now.plus(d);
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package com.example.evolon.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.evolon.dto.ParsedCardNumber;
+import com.example.evolon.service.OcrEngine.Text;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * OcrService をオフラインの FixtureOcrEngine で動かす（Vision・ネットワーク不要）
+ */
+class OcrServiceTest {
+
+	private final OcrImagePreprocessor preprocessor = new OcrImagePreprocessor(1600);
+	private final OcrResultCache cache = new OcrResultCache(
+			mock(JdbcTemplate.class), new SimpleMeterRegistry(), 100, Duration.ofHours(1), false, Duration.ofHours(1), Clock.systemUTC());
+	private final CardNumberParserService parser = new CardNumberParserService(List.of("sv", "m"), 6, "DEFGHIJK");
+
+	private final Map<String, String> fixtures = new HashMap<>();
+	private final List<String> fallbackTexts = new ArrayList<>();
+	private final FixtureOcrEngine fixtureEngine =
+			new FixtureOcrEngine(fixtures, fallbackTexts, Duration.ZERO, Duration.ZERO);
+
+	// エンジンに渡った枚数（呼び出しごと）
+	private final List<Integer> calls = new ArrayList<>();
+	private final OcrService ocrService = new OcrService(images -> {
+		calls.add(images.size());
+		return fixtureEngine.detectText(images);
+	}, cache, preprocessor, parser);
+
+	@Test
+	void readsCardNumbersAndSendsEachDistinctImageOnce() {
+
+		BufferedImage known = gray(1);
+		BufferedImage unknown = gray(2);
+		fixtures.put(OcrResultCache.keyOf(known), "Illus. saino\nH sv8a 212/187 SAR");
+
+		List<ParsedCardNumber> results = ocrService.extractCardNumbersFromGray(
+				Arrays.asList(known, unknown, gray(1), null));
+
+		assertThat(results).hasSize(4);
+		assertThat(results.get(0)).isEqualTo(new ParsedCardNumber("sv8a", "212/187"));
+		assertThat(results.get(1).isValid()).isFalse();
+		assertThat(results.get(2)).isEqualTo(new ParsedCardNumber("sv8a", "212/187"));
+		assertThat(results.get(3).isValid()).isFalse();
+		assertThat(calls).containsExactly(2);
+
+		// 2回目はキャッシュから
+		assertThat(ocrService.extractCardNumbersFromGray(List.of(gray(1))))
+				.containsExactly(new ParsedCardNumber("sv8a", "212/187"));
+		assertThat(calls).containsExactly(2);
+	}
+
+	@Test
+	void readsAnUploadedPhoto() throws IOException {
+
+		byte[] png = photo(3);
+		BufferedImage strip = preprocessor.toGrayBottom(new ByteArrayInputStream(png));
+		fixtures.put(OcrResultCache.keyOf(strip), "H sv7 101/102 SR");
+
+		assertThat(ocrService.extractCardNumber(new ByteArrayInputStream(png)))
+				.isEqualTo(new ParsedCardNumber("sv7", "101/102"));
+	}
+
+	@Test
+	void unknownImagesGetAStableFallbackText() {
+
+		fallbackTexts.addAll(List.of("H sv8a 212/187 SAR", "H sv7 101/102 SR", "G sv4a 349/190 SSR"));
+
+		ParsedCardNumber first = ocrService.extractCardNumbersFromGray(List.of(gray(4))).get(0);
+
+		OcrService another = new OcrService(fixtureEngine, new OcrResultCache(
+				mock(JdbcTemplate.class), new SimpleMeterRegistry(), 100, Duration.ofHours(1), false, Duration.ofHours(1), Clock.systemUTC()),
+				preprocessor, parser);
+		assertThat(first.isValid()).isTrue();
+		assertThat(another.extractCardNumbersFromGray(List.of(gray(4)))).containsExactly(first);
+	}
+
+	@Test
+	void engineFailuresAreNotCached() {
+
+		List<Integer> failingCalls = new ArrayList<>();
+		OcrService failing = new OcrService(images -> {
+			failingCalls.add(images.size());
+			return images.stream().map(i -> Text.failed("quota exceeded")).toList();
+		}, cache, preprocessor, parser);
+
+		assertThat(failing.extractCardNumbersFromGray(List.of(gray(5))).get(0).isValid()).isFalse();
+		assertThat(failing.extractCardNumbersFromGray(List.of(gray(5))).get(0).isValid()).isFalse();
+		assertThat(failingCalls).containsExactly(1, 1);
+
+		assertThatThrownBy(() -> failing.extractCardNumber(new ByteArrayInputStream(photo(5))))
+				.hasMessageContaining("quota exceeded");
+	}
+
+	@Test
+	void loadsFixtureTsvAndWaitsForTheConfiguredLatency() throws IOException {
+
+		FixtureOcrEngine engine = new FixtureOcrEngine(
+				new HashMap<>(), new ArrayList<>(), Duration.ofMillis(30), Duration.ofMillis(10));
+		String key = OcrResultCache.keyOf(gray(6));
+		engine.load(new StringReader("""
+				# コメント
+				%s\tIllus. saino\\nH sv8a 212/187 SAR
+
+				*\tH sv7 101/102 SR
+				""".formatted(key)));
+
+		long start = System.nanoTime();
+		List<Text> texts = engine.detectText(List.of(gray(6), gray(7)));
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+		assertThat(texts).extracting(Text::text)
+				.containsExactly("Illus. saino\nH sv8a 212/187 SAR", "H sv7 101/102 SR");
+		assertThat(elapsedMillis).isGreaterThanOrEqualTo(50);
+	}
+
+	// seed ごとに画素の違うグレー画像
+	private static BufferedImage gray(int seed) {
+		BufferedImage image = new BufferedImage(64, 16, BufferedImage.TYPE_BYTE_GRAY);
+		byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) (i * seed);
+		}
+		return image;
+	}
+
+	private static byte[] photo(int seed) throws IOException {
+		BufferedImage photo = new BufferedImage(400, 560, BufferedImage.TYPE_3BYTE_BGR);
+		Graphics2D g = photo.createGraphics();
+		g.setColor(new Color(seed * 40, 120, 200));
+		g.fillRect(0, 0, 400, 560);
+		g.dispose();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(photo, "png", out);
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,77 @@
+package com.example.evolon.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+	private final AtomicLong now = new AtomicLong();
+
+	// 2件/秒、4件まで連続
+	private final TokenBucket bucket = new TokenBucket(2, 4, now::get);
+
+	@Test
+	void allowsABurstThenSpacesCallsAtTheRate() {
+
+		for (int i = 0; i < 4; i++) {
+			assertThat(bucket.reserve(Duration.ZERO)).isZero();
+		}
+
+		// 5件目以降は 0.5 秒ずつずれた時刻を予約する（待機はロックの外）
+		assertThat(bucket.reserve(Duration.ofSeconds(10))).isEqualTo(500_000_000L);
+		assertThat(bucket.reserve(Duration.ofSeconds(10))).isEqualTo(1_000_000_000L);
+	}
+
+	@Test
+	void refillsOverTimeButNeverAboveTheBurst() {
+
+		for (int i = 0; i < 4; i++) {
+			bucket.reserve(Duration.ZERO);
+		}
+		now.addAndGet(Duration.ofSeconds(1).toNanos());
+
+		assertThat(bucket.reserve(Duration.ZERO)).isZero();
+		assertThat(bucket.reserve(Duration.ZERO)).isZero();
+		assertThat(bucket.reserve(Duration.ZERO)).isEqualTo(-1);
+
+		now.addAndGet(Duration.ofHours(1).toNanos());
+		for (int i = 0; i < 4; i++) {
+			assertThat(bucket.reserve(Duration.ZERO)).isZero();
+		}
+		assertThat(bucket.reserve(Duration.ZERO)).isEqualTo(-1);
+	}
+
+	@Test
+	void refusesWithoutReservingWhenTheWaitIsTooLong() {
+
+		for (int i = 0; i < 4; i++) {
+			bucket.reserve(Duration.ZERO);
+		}
+
+		assertThat(bucket.reserve(Duration.ofMillis(100))).isEqualTo(-1);
+		// 断った分は予約されていない
+		assertThat(bucket.reserve(Duration.ofSeconds(1))).isEqualTo(500_000_000L);
+	}
+
+	@Test
+	void acquireWaitsForItsSlot() throws InterruptedException {
+
+		TokenBucket real = new TokenBucket(5, 1);
+		assertThat(real.acquire(Duration.ZERO)).isTrue();
+
+		long start = System.nanoTime();
+		assertThat(real.acquire(Duration.ofSeconds(1))).isTrue();
+		assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(100_000_000L);
+	}
+
+	@Test
+	void rejectsNonPositiveSettings() {
+		assertThatThrownBy(() -> new TokenBucket(0, 1)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new TokenBucket(1, 0)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,64 @@
+package com.example.evolon.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import com.example.evolon.monitoring.QueryCountInterceptor;
+import com.example.evolon.monitoring.QueryCounter;
+
+/**
+ * SQL 件数の上限（クエリ予算）を検証するテスト用ユーティリティ
+ *
+ * MockMvc：
+ *   mockMvc.perform(get("/items")).andExpect(QueryBudget.maxStatements(3));
+ *
+ * Service 等を直接呼ぶ場合：
+ *   QueryBudget.assertMaxStatements(2, () -> appOrderService.findOrdersBySeller(seller));
+ *
+ * 件数は本番と同じ QueryCountInspector（Hibernate StatementInspector）で数える。
+ */
+public final class QueryBudget {
+
+	/**
+	 * 1リクエスト（View 描画まで）の SQL 件数が max 以下であること
+	 */
+	public static ResultMatcher maxStatements(int max) {
+		return result -> {
+			Object statements = result.getRequest().getAttribute(QueryCountInterceptor.STATEMENTS_ATTRIBUTE);
+			assertThat(statements)
+					.as("SQL 件数が記録されていない（Controller のハンドラを通っていない？）: %s",
+							result.getRequest().getRequestURI())
+					.isNotNull();
+			assertThat((Integer) statements)
+					.as("SQL 件数の上限超過（N+1 の可能性）: %s", result.getRequest().getRequestURI())
+					.isLessThanOrEqualTo(max);
+		};
+	}
+
+	/**
+	 * action の中で発行された SQL 件数が max 以下であること（戻り値はそのまま返す）
+	 */
+	public static <T> T assertMaxStatements(int max, Callable<T> action) throws Exception {
+
+		QueryCounter.start();
+		T result;
+		int statements;
+		try {
+			result = action.call();
+		} finally {
+			statements = QueryCounter.stop().getStatements();
+		}
+
+		assertThat(statements)
+				.as("SQL 件数の上限超過（N+1 の可能性）")
+				.isLessThanOrEqualTo(max);
+		return result;
+	}
+
+	// インスタンス化させない（ユーティリティクラス）
+	private QueryBudget() {
+	}
+}